@@ -0,0 +1,114 @@
+// k6 load test for the P2P transfer path (and, optionally, login).
+//
+// Hits wallet-service-core and wallet-auth-service directly, bypassing the gateway, so the
+// numbers reflect the services' own threading model rather than signature verification.
+//
+//   k6 run public/load-test/transfer-load.js
+//   k6 run -e RATE=800 -e DURATION=2m -e LOGIN_RATE=50 public/load-test/transfer-load.js
+//
+// See README.md in this directory for the virtual-thread vs platform-thread comparison.
+
+import http from 'k6/http';
+import { check } from 'k6';
+import { uuidv4 } from 'https://jslib.k6.io/k6-utils/1.4.0/index.js';
+
+const CORE_URL = __ENV.CORE_URL || 'http://localhost:8081';
+const AUTH_URL = __ENV.AUTH_URL || 'http://localhost:8083';
+const USERS = parseInt(__ENV.USERS || '50');
+const RATE = parseInt(__ENV.RATE || '300');             // transfers per second
+const LOGIN_RATE = parseInt(__ENV.LOGIN_RATE || '0');   // logins per second, 0 disables the scenario
+const DURATION = __ENV.DURATION || '1m';
+const PASSWORD = 'LoadTest#2026';
+
+const scenarios = {
+    transfers: {
+        executor: 'constant-arrival-rate',
+        exec: 'transfer',
+        rate: RATE,
+        timeUnit: '1s',
+        duration: DURATION,
+        preAllocatedVUs: Math.max(50, RATE),
+        maxVUs: RATE * 4,
+    },
+};
+if (LOGIN_RATE > 0) {
+    scenarios.logins = {
+        executor: 'constant-arrival-rate',
+        exec: 'login',
+        rate: LOGIN_RATE,
+        timeUnit: '1s',
+        duration: DURATION,
+        preAllocatedVUs: Math.max(10, LOGIN_RATE),
+        maxVUs: LOGIN_RATE * 4,
+    };
+}
+
+export const options = {
+    scenarios,
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+    thresholds: {
+        'http_req_duration{scenario:transfers}': ['p(99)<500'],
+        'checks{scenario:transfers}': ['rate>0.99'],
+    },
+};
+
+function coreHeaders(clientId) {
+    return {
+        'Content-Type': 'application/json',
+        'X-Request-ID': uuidv4(),
+        'X-Client-Id': clientId,
+    };
+}
+
+// Registers USERS users, gives each a funded MYR wallet and hands them to the VUs
+export function setup() {
+    const runId = uuidv4().substring(0, 8);
+    const users = [];
+
+    for (let i = 0; i < USERS; i++) {
+        const username = `load-${runId}-${i}`;
+        const registered = http.post(`${AUTH_URL}/api/v1/auth/register`,
+            JSON.stringify({ username, password: PASSWORD }),
+            { headers: { 'Content-Type': 'application/json' } });
+        check(registered, { 'registered': (r) => r.status === 200 });
+        const userId = registered.json('userId');
+
+        const wallet = http.post(`${CORE_URL}/api/v1/wallets/initialize`,
+            JSON.stringify({ userId, currency: 'MYR' }),
+            { headers: coreHeaders(userId) });
+        check(wallet, { 'wallet created': (r) => r.status === 201 });
+        const walletId = wallet.json('walletId');
+
+        const topUp = http.post(`${CORE_URL}/api/v1/wallets/topup`,
+            JSON.stringify({ walletId, amount: '1000000.00', source: 'BANK_FPX', referenceId: `LOAD-${runId}-${i}` }),
+            { headers: coreHeaders(userId) });
+        check(topUp, { 'wallet funded': (r) => r.status === 200 });
+
+        users.push({ username, userId, walletId });
+    }
+    return { users };
+}
+
+// Random sender to random other receiver, so most transfers touch distinct wallets
+export function transfer(data) {
+    const users = data.users;
+    const sender = users[Math.floor(Math.random() * users.length)];
+    let receiver = sender;
+    while (receiver === sender) {
+        receiver = users[Math.floor(Math.random() * users.length)];
+    }
+
+    const res = http.post(`${CORE_URL}/api/v1/wallets/transfer`,
+        JSON.stringify({ fromWalletId: sender.walletId, toWalletId: receiver.walletId, amount: '1.00', remark: 'k6' }),
+        { headers: coreHeaders(sender.userId) });
+    check(res, { 'transfer completed': (r) => r.status === 200 });
+}
+
+// BCrypt-bound, exercises the auth service's request threads and Postgres pool
+export function login(data) {
+    const user = data.users[Math.floor(Math.random() * data.users.length)];
+    const res = http.post(`${AUTH_URL}/api/v1/auth/login`,
+        JSON.stringify({ username: user.username, password: PASSWORD }),
+        { headers: { 'Content-Type': 'application/json' } });
+    check(res, { 'logged in': (r) => r.status === 200 });
+}
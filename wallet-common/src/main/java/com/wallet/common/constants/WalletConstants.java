@@ -3,6 +3,7 @@ package com.wallet.common.constants;
 public class WalletConstants {
     public static final String HEADER_REQUEST_ID = "X-Request-ID";
     public static final String HEADER_CLIENT_ID = "X-Client-Id";
+    public static final String HEADER_IDEMPOTENT_REPLAYED = "Idempotent-Replayed"; // Set on responses served from the idempotency store
 
     private WalletConstants() {}
 }
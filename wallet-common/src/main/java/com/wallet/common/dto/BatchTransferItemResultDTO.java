@@ -0,0 +1,28 @@
+package com.wallet.common.dto;
+
+import java.math.BigDecimal;
+
+public record BatchTransferItemResultDTO(
+        int index,
+        String transactionId,
+        String fromWalletId,
+        String toWalletId,
+        BigDecimal amount,
+        String status, // COMPLETED, PENDING (placed as a hold) or FAILED
+        String errorMessage
+) {
+    public static BatchTransferItemResultDTO completed(int index, String txId, TransferRequestDTO transfer) {
+        return new BatchTransferItemResultDTO(index, txId, transfer.fromWalletId(), transfer.toWalletId(),
+                transfer.amount(), "COMPLETED", null);
+    }
+
+    public static BatchTransferItemResultDTO pending(int index, String txId, TransferRequestDTO transfer) {
+        return new BatchTransferItemResultDTO(index, txId, transfer.fromWalletId(), transfer.toWalletId(),
+                transfer.amount(), "PENDING", null);
+    }
+
+    public static BatchTransferItemResultDTO failed(int index, TransferRequestDTO transfer, String errorMessage) {
+        return new BatchTransferItemResultDTO(index, null, transfer.fromWalletId(), transfer.toWalletId(),
+                transfer.amount(), "FAILED", errorMessage);
+    }
+}
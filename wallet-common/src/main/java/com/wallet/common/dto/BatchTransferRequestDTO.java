@@ -0,0 +1,10 @@
+package com.wallet.common.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+
+public record BatchTransferRequestDTO(
+        @NotEmpty(message = "At least one transfer is required")
+        List<@Valid TransferRequestDTO> transfers
+) {}
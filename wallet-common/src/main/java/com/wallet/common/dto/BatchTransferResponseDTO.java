@@ -0,0 +1,11 @@
+package com.wallet.common.dto;
+
+import java.util.List;
+
+public record BatchTransferResponseDTO(
+        int totalCount,
+        int successCount,
+        int failureCount,
+        List<BatchTransferItemResultDTO> results
+) {
+}
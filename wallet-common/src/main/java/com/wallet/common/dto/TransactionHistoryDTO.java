@@ -5,7 +5,7 @@ import java.time.LocalDateTime;
 
 public record TransactionHistoryDTO(
         String transactionId,
-        String type, // CREDIT or DEBIT
+        String type, // CREDIT or DEBIT, or OPENING_BALANCE as the first line of a statement
         BigDecimal amount,
         LocalDateTime timestamp
 ) {
@@ -0,0 +1,12 @@
+package com.wallet.common.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record WalletBalanceResponseDTO(
+        String walletId,
+        BigDecimal balance, // Ledger balance: every credit minus every debit posted before asOf
+        String currency,
+        LocalDateTime asOf
+) {
+}
@@ -0,0 +1,14 @@
+package com.wallet.common.dto;
+
+import com.wallet.common.enums.JournalEntryType;
+
+import java.time.LocalDateTime;
+
+public record WalletHistoryRequestDTO(
+        String cursor, // nextCursor of the previous page, null for the newest page
+        int size,
+        LocalDateTime from, // Inclusive
+        LocalDateTime to, // Exclusive
+        JournalEntryType type // Only CREDIT or only DEBIT entries, null for both
+) {
+}
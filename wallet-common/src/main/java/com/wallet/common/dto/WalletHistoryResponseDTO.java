@@ -7,6 +7,7 @@ public record WalletHistoryResponseDTO(
         String walletId,
         BigDecimal currentBalance,
         String currency,
-        List<TransactionHistoryDTO> transactions
+        List<TransactionHistoryDTO> transactions,
+        String nextCursor // Pass back as cursor for the next (older) page, null on the last page
 ) {
 }
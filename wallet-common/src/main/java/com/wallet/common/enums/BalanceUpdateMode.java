@@ -0,0 +1,6 @@
+package com.wallet.common.enums;
+
+public enum BalanceUpdateMode {
+    OPTIMISTIC, // Read-modify-write, the UPDATE only succeeds if the version is unchanged
+    ATOMIC      // Relative UPDATE guarded in SQL, Postgres computes and returns the new balance
+}
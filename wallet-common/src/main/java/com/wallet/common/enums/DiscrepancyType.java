@@ -0,0 +1,6 @@
+package com.wallet.common.enums;
+
+public enum DiscrepancyType {
+    BALANCE_MISMATCH,   // wallets.balance (plus shards) differs from credits minus debits in the journal
+    UNBALANCED_TRANSFER // A TRANSFER without exactly matching DEBIT and CREDIT legs for its amount
+}
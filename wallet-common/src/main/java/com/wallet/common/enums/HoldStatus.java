@@ -0,0 +1,7 @@
+package com.wallet.common.enums;
+
+public enum HoldStatus {
+    PENDING,  // Funds reserved on the sender, not yet moved
+    SETTLED,  // Moved to the receiver and journaled
+    RELEASED  // Expired before it could settle, the funds are available to the sender again
+}
@@ -0,0 +1,7 @@
+package com.wallet.common.enums;
+
+public enum IdempotencyBackend {
+    LOCAL,    // In-memory, per instance: answers recently seen keys without a network hop
+    REDIS,    // Shared by every instance, the usual source of truth
+    POSTGRES  // The unique transaction_requests.request_id, durable but cannot replay responses
+}
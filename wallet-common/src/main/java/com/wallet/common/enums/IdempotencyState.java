@@ -0,0 +1,7 @@
+package com.wallet.common.enums;
+
+public enum IdempotencyState {
+    IN_PROGRESS,      // The first request with this key is running, held on a short lease
+    COMPLETED,        // Finished, the stored response is replayed to duplicates
+    FAILED_RETRYABLE  // Rejected without writing anything, the next request with this key runs again
+}
@@ -0,0 +1,6 @@
+package com.wallet.common.enums;
+
+public enum JournalEntryType {
+    DEBIT,  // Money leaving the wallet
+    CREDIT  // Money arriving in the wallet
+}
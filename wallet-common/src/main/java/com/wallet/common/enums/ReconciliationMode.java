@@ -0,0 +1,6 @@
+package com.wallet.common.enums;
+
+public enum ReconciliationMode {
+    FULL,        // Every wallet and every transfer
+    INCREMENTAL  // Only what changed since the previous run's watermark
+}
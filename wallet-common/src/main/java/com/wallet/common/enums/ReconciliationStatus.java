@@ -0,0 +1,8 @@
+package com.wallet.common.enums;
+
+public enum ReconciliationStatus {
+    RUNNING,
+    COMPLETED, // Its watermark is where the next incremental run continues
+    FAILED,
+    ABANDONED  // Still RUNNING long after it should have finished, its instance died
+}
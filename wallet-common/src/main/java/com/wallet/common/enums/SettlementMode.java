@@ -0,0 +1,6 @@
+package com.wallet.common.enums;
+
+public enum SettlementMode {
+    IMMEDIATE, // Debit, credit, journal and outbox in the transfer's own transaction
+    HOLD       // The transfer only places a hold on the sender, holds are settled in batches afterwards
+}
@@ -0,0 +1,6 @@
+package com.wallet.common.enums;
+
+public enum StatementFormat {
+    CSV,    // text/csv, one header line then one line per entry
+    NDJSON  // application/x-ndjson, one JSON object per line
+}
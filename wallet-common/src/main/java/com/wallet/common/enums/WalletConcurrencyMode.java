@@ -0,0 +1,7 @@
+package com.wallet.common.enums;
+
+public enum WalletConcurrencyMode {
+    OPTIMISTIC,  // Plain read, conflicting writers are rejected by the version check
+    PESSIMISTIC, // SELECT ... FOR UPDATE, rows locked in wallet ID order
+    ADVISORY     // pg_advisory_xact_lock per wallet ID in wallet ID order, then a plain read
+}
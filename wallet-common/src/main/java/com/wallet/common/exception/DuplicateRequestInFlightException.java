@@ -0,0 +1,8 @@
+package com.wallet.common.exception;
+
+// The same X-Request-ID is still being processed by an earlier request. The client should retry later.
+public class DuplicateRequestInFlightException extends WalletBusinessException {
+    public DuplicateRequestInFlightException(String message) {
+        super(message);
+    }
+}
@@ -30,6 +30,21 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
+    // A duplicate arrived while the original request was still running
+    @ExceptionHandler(DuplicateRequestInFlightException.class)
+    public ResponseEntity<ErrorResponse> handleDuplicateInFlight(DuplicateRequestInFlightException ex) {
+        String requestId = MDC.get("requestId");
+
+        log.warn("Duplicate request in flight [{}]: {}", requestId, ex.getMessage());
+
+        ErrorResponse response = new ErrorResponse(
+                "ERR_DUPLICATE_IN_FLIGHT",
+                ex.getMessage(),
+                requestId,
+                LocalDateTime.now());
+        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+    }
+
     // Handle unexpected system crashes (e.g., NullPointerException)
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleSystemException(Exception ex) {
@@ -58,6 +73,33 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, org.springframework.http.HttpStatus.BAD_REQUEST);
     }
 
+    // A query parameter that does not parse, e.g. an unknown entry type or a malformed date
+    @ExceptionHandler(org.springframework.web.method.annotation.MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<ErrorResponse> handleTypeMismatch(
+            org.springframework.web.method.annotation.MethodArgumentTypeMismatchException ex) {
+        log.warn("Invalid value for parameter {}: {}", ex.getName(), ex.getValue());
+
+        ErrorResponse errorResponse = new ErrorResponse(
+                "ERR_BAD_REQUEST",
+                "Invalid value for parameter: " + ex.getName(),
+                MDC.get("requestId"),
+                LocalDateTime.now());
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(org.springframework.web.bind.MissingServletRequestParameterException.class)
+    public ResponseEntity<ErrorResponse> handleMissingParameter(
+            org.springframework.web.bind.MissingServletRequestParameterException ex) {
+        log.warn("Missing request parameter: {}", ex.getParameterName());
+
+        ErrorResponse errorResponse = new ErrorResponse(
+                "ERR_BAD_REQUEST",
+                "Missing required parameter: " + ex.getParameterName(),
+                MDC.get("requestId"),
+                LocalDateTime.now());
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(org.springframework.web.bind.MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponse> handleValidationExceptions(
             org.springframework.web.bind.MethodArgumentNotValidException ex) {
@@ -0,0 +1,8 @@
+package com.wallet.common.exception;
+
+// A wallet changed between read and write. Safe to retry the whole unit of work.
+public class WalletConcurrencyException extends WalletBusinessException {
+    public WalletConcurrencyException(String message) {
+        super(message);
+    }
+}
@@ -8,4 +8,7 @@ import java.lang.annotation.Target;
 @Target(ElementType.METHOD)
 @Retention(RetentionPolicy.RUNTIME)
 public @interface Idempotent {
+
+    // How long the completed response is kept for replay. Property placeholders are resolved.
+    String ttl() default "${app.idempotency.ttl.default:24h}";
 }
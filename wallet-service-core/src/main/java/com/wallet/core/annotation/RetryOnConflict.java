@@ -0,0 +1,13 @@
+package com.wallet.core.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Re-runs the annotated @Transactional method when a wallet changed underneath it.
+// The method must be safe to run again from scratch, with the same arguments.
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+}
@@ -0,0 +1,100 @@
+package com.wallet.core.aspect;
+
+import com.wallet.common.exception.WalletConcurrencyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retries methods annotated with {@code @RetryOnConflict} when they fail on a wallet conflict:
+ * a lost version check ({@link WalletConcurrencyException}) or a Postgres deadlock / lock
+ * timeout ({@link ConcurrencyFailureException}). Runs outside the transaction advisor, so every
+ * attempt is a fresh transaction that re-reads the wallets. The caller's arguments, including
+ * the request ID, are reused as they are.
+ * <p>
+ * Backoff is "full jitter": a random sleep between zero and an exponentially growing cap, so
+ * writers that collided once do not collide again on the next attempt.
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ConflictRetryAspect {
+
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+
+    private final Counter retries;
+    private final Counter recovered;
+    private final Counter exhausted;
+
+    public ConflictRetryAspect(@Value("${app.retry.conflict.max-attempts:3}") int maxAttempts,
+                               @Value("${app.retry.conflict.initial-backoff:20ms}") Duration initialBackoff,
+                               @Value("${app.retry.conflict.max-backoff:200ms}") Duration maxBackoff,
+                               MeterRegistry meterRegistry) {
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+
+        this.retries = Counter.builder("wallet.conflict.retry.attempts")
+                .description("Extra attempts made after a wallet conflict")
+                .register(meterRegistry);
+        this.recovered = Counter.builder("wallet.conflict.retry.recovered")
+                .description("Operations that succeeded after at least one retry")
+                .register(meterRegistry);
+        this.exhausted = Counter.builder("wallet.conflict.retry.exhausted")
+                .description("Operations that still conflicted after the last attempt")
+                .register(meterRegistry);
+    }
+
+    @Around("@annotation(com.wallet.core.annotation.RetryOnConflict)")
+    public Object retryOnConflict(ProceedingJoinPoint joinPoint) throws Throwable {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Object result = joinPoint.proceed();
+                if (attempt > 1) {
+                    recovered.increment();
+                    log.info("{} succeeded on attempt {}", joinPoint.getSignature().toShortString(), attempt);
+                }
+                return result;
+
+            } catch (WalletConcurrencyException | ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    log.warn("{} still conflicting after {} attempts: {}",
+                            joinPoint.getSignature().toShortString(), attempt, e.getMessage());
+                    throw e;
+                }
+
+                retries.increment();
+                long backoffMillis = backoffMillis(attempt);
+                log.info("Wallet conflict on attempt {} ({}), retrying in {} ms", attempt, e.getMessage(), backoffMillis);
+
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // Random point in [0, min(maxBackoff, initialBackoff * 2^(attempt - 1))]
+    private long backoffMillis(int attempt) {
+        long cap = Math.min(maxBackoff.toMillis(), initialBackoff.toMillis() << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+}
@@ -1,28 +1,52 @@
-// wallet-service-core/src/main/java/com/wallet/core/aspect/IdempotencyAspect.java
 package com.wallet.core.aspect;
 
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wallet.common.constants.WalletConstants;
 import com.wallet.common.exception.WalletBusinessException;
+import com.wallet.core.annotation.Idempotent;
 import com.wallet.core.service.IdempotencyService;
+import com.wallet.core.service.IdempotencyService.StoredResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.aspectj.lang.annotation.Before;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.env.Environment;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
 @Slf4j
 @Aspect
 @Component
 @RequiredArgsConstructor
 public class IdempotencyAspect {
 
+    // transaction_requests.request_id and holds.request_id are VARCHAR(100)
+    private static final int MAX_REQUEST_ID_LENGTH = 100;
+
     private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
+    private final Environment environment;
 
-    // This tells Spring: "Run this exact method BEFORE any method annotated with @Idempotent"
-    @Before("@annotation(com.wallet.core.annotation.Idempotent)")
-    public void checkIdempotency() {
+    // Resolved @Idempotent TTL per endpoint method
+    private final Map<Method, Duration> ttls = new ConcurrentHashMap<>();
+
+    // Runs the @Idempotent method once per X-Request-ID, duplicates get the stored response back
+    @Around("@annotation(idempotent)")
+    public Object applyIdempotency(ProceedingJoinPoint joinPoint, Idempotent idempotent) throws Throwable {
         // 1. Secretly reach into the current HTTP Request
         ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
         if (attributes == null) {
@@ -32,14 +56,56 @@ public class IdempotencyAspect {
         HttpServletRequest request = attributes.getRequest();
 
         // 2. Extract the header
-        String requestId = request.getHeader("X-Request-ID");
+        String requestId = request.getHeader(WalletConstants.HEADER_REQUEST_ID);
         if (requestId == null || requestId.isBlank()) {
             throw new WalletBusinessException("Missing required header: X-Request-ID");
         }
+        if (requestId.length() > MAX_REQUEST_ID_LENGTH) {
+            throw new WalletBusinessException("X-Request-ID must be at most " + MAX_REQUEST_ID_LENGTH + " characters");
+        }
+
+        String clientId = request.getHeader(WalletConstants.HEADER_CLIENT_ID);
 
         log.info("AOP Interceptor caught request. Checking Idempotency for ID: {}", requestId);
 
-        // 3. Trigger the Redis lock
-        idempotencyService.checkAndLock(requestId);
+        // 3. Take the key, or replay the response of the request that already ran
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        Optional<StoredResponse> stored = idempotencyService.acquireOrReplay(clientId, requestId);
+        if (stored.isPresent()) {
+            return replay(stored.get(), signature);
+        }
+
+        // 4. Run the endpoint. A business rejection rolls back everything it wrote, so the same ID
+        // may be retried. Any other failure leaves the outcome unknown: the key stays IN_PROGRESS
+        // until its lease runs out.
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (WalletBusinessException e) {
+            idempotencyService.releaseForRetry(clientId, requestId);
+            throw e;
+        }
+
+        // 5. Keep the response for any retry
+        if (result instanceof ResponseEntity<?> response) {
+            idempotencyService.complete(clientId, requestId, new StoredResponse(
+                    response.getStatusCode().value(), objectMapper.writeValueAsString(response.getBody())),
+                    ttls.computeIfAbsent(signature.getMethod(), method -> resolveTtl(idempotent)));
+        }
+        return result;
+    }
+
+    private Duration resolveTtl(Idempotent idempotent) {
+        return DurationStyle.detectAndParse(environment.resolveRequiredPlaceholders(idempotent.ttl()));
+    }
+
+    // The body is read back into the endpoint's declared type so it is written out exactly like the original
+    private ResponseEntity<Object> replay(StoredResponse stored, MethodSignature signature) throws Exception {
+        JavaType bodyType = objectMapper.constructType(
+                ResolvableType.forMethodReturnType(signature.getMethod()).getGeneric(0).getType());
+
+        return ResponseEntity.status(stored.status())
+                .header(WalletConstants.HEADER_IDEMPOTENT_REPLAYED, "true")
+                .body(objectMapper.readValue(stored.body(), bodyType));
     }
 }
@@ -0,0 +1,49 @@
+package com.wallet.core.concurrency;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Caps the rate of background work shared by several threads, in permits per second.
+ * <p>
+ * Each caller reserves its permits on a single timeline and sleeps until its reservation
+ * starts. The callers together never run faster than the rate, however many there are,
+ * and a burst is spread out instead of being rejected. A rate of zero or less turns the
+ * throttle off.
+ */
+public class Throttle {
+
+    private final double nanosPerPermit;
+    private final LongSupplier nanoClock;
+
+    private long nextFree;
+
+    public Throttle(double permitsPerSecond) {
+        this(permitsPerSecond, System::nanoTime);
+    }
+
+    Throttle(double permitsPerSecond, LongSupplier nanoClock) {
+        this.nanosPerPermit = permitsPerSecond > 0 ? Duration.ofSeconds(1).toNanos() / permitsPerSecond : 0;
+        this.nanoClock = nanoClock;
+        this.nextFree = nanoClock.getAsLong();
+    }
+
+    // Blocks until the permits may be used
+    public void acquire(int permits) throws InterruptedException {
+        long wait = reserve(permits);
+        if (wait > 0) {
+            Thread.sleep(Duration.ofNanos(wait));
+        }
+    }
+
+    // Books the permits and returns how long the caller has to wait before using them
+    synchronized long reserve(int permits) {
+        if (nanosPerPermit == 0) {
+            return 0;
+        }
+        long now = nanoClock.getAsLong();
+        long start = Math.max(now, nextFree);
+        nextFree = start + (long) (permits * nanosPerPermit);
+        return start - now;
+    }
+}
@@ -0,0 +1,84 @@
+package com.wallet.core.concurrency;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Hashed timing wheel: a ring of buckets, one per tick, each holding the items that fall
+ * due in that tick (or in that tick of a later turn of the wheel). Scheduling is O(1)
+ * and {@link #advance} only looks at the buckets of the ticks that passed since the last
+ * call, so tracking many thousands of deadlines costs no sorting and no per-item timer
+ * thread. Deadlines are only as precise as the tick.
+ * <p>
+ * The wheel keeps no thread of its own; the owner calls {@link #advance} on its tick.
+ */
+public class TimerWheel<T> {
+
+    private final long tickNanos;
+    private final List<List<Entry<T>>> buckets;
+    private final LongSupplier clock;
+    private final long startNanos;
+
+    private long currentTick;
+    private int size;
+
+    public TimerWheel(Duration tick, int bucketCount) {
+        this(tick, bucketCount, System::nanoTime);
+    }
+
+    TimerWheel(Duration tick, int bucketCount, LongSupplier clock) {
+        this.tickNanos = tick.toNanos();
+        this.buckets = new ArrayList<>(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        this.clock = clock;
+        this.startNanos = clock.getAsLong();
+    }
+
+    public synchronized void schedule(T item, Duration delay) {
+        // Rounded up, an item never comes out before its deadline
+        long deadlineTick = Math.max(currentTick + 1, (elapsedNanos() + delay.toNanos() + tickNanos - 1) / tickNanos);
+        buckets.get((int) (deadlineTick % buckets.size())).add(new Entry<>(item, deadlineTick));
+        size++;
+    }
+
+    /**
+     * Removes and returns every item whose deadline has passed.
+     */
+    public synchronized List<T> advance() {
+        long nowTick = elapsedNanos() / tickNanos;
+        List<T> due = new ArrayList<>();
+
+        // A full turn visits every bucket, however many ticks were missed
+        long lastTick = Math.min(nowTick, currentTick + buckets.size());
+        for (long tick = currentTick + 1; tick <= lastTick; tick++) {
+            Iterator<Entry<T>> entries = buckets.get((int) (tick % buckets.size())).iterator();
+            while (entries.hasNext()) {
+                Entry<T> entry = entries.next();
+                if (entry.deadlineTick() <= nowTick) {
+                    due.add(entry.item());
+                    entries.remove();
+                }
+            }
+        }
+
+        currentTick = Math.max(currentTick, nowTick);
+        size -= due.size();
+        return due;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private long elapsedNanos() {
+        return clock.getAsLong() - startNanos;
+    }
+
+    private record Entry<T>(T item, long deadlineTick) {
+    }
+}
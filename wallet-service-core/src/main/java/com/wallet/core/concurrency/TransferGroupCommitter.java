@@ -0,0 +1,239 @@
+package com.wallet.core.concurrency;
+
+import com.wallet.common.exception.WalletBusinessException;
+import com.wallet.core.handler.HandlerChainExecutor;
+import com.wallet.core.handler.TransactionContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.IntStream;
+
+/**
+ * Opt-in group commit for single transfers.
+ * <p>
+ * Callers hand their context to {@link #submit} and block. Committer threads take the
+ * first waiting transfer, linger for a few milliseconds to collect up to {@code max-size}
+ * more, and run the whole group through {@link HandlerChainExecutor#executeGroup} as one
+ * database transaction, so the group pays for one commit instead of one each. Every
+ * caller then gets its own outcome back: success, or the exact business exception its
+ * transfer raised.
+ * <p>
+ * A rejected transfer never touches the rest of its group, because writes are staged and
+ * only flushed at the end. If the group as a whole cannot commit (retries exhausted, a
+ * database error), each transfer is re-run on its own so one bad item cannot fail the
+ * others.
+ * <p>
+ * Callers wait at most {@code max-wait}. A transfer still queued by then is withdrawn and
+ * rejected with a retryable error. One a committer already took may still commit, so its
+ * outcome is reported as unknown instead. The sender's username is resolved before the
+ * transfer is queued, so no remote call ever runs inside a group's transaction. Each
+ * transfer's chain runs under its caller's MDC, so its log lines keep the request ID.
+ */
+@Slf4j
+@Component
+public class TransferGroupCommitter {
+
+    private static final String SHUTTING_DOWN = "Service is shutting down. Please retry.";
+
+    private final HandlerChainExecutor handlerChainExecutor;
+    private final WalletExecutionLanes executionLanes;
+    private final boolean enabled;
+    private final int maxSize;
+    private final long lingerNanos;
+    private final Duration maxWait;
+
+    private final BlockingQueue<PendingTransfer> queue = new LinkedBlockingQueue<>();
+    private final List<Thread> committers;
+    private final DistributionSummary groupSize;
+    private final Counter fallbacks;
+
+    private volatile boolean stopped;
+
+    public TransferGroupCommitter(HandlerChainExecutor handlerChainExecutor,
+                                  WalletExecutionLanes executionLanes,
+                                  @Value("${app.transfer.group-commit.enabled:false}") boolean enabled,
+                                  @Value("${app.transfer.group-commit.max-size:64}") int maxSize,
+                                  @Value("${app.transfer.group-commit.linger:5ms}") Duration linger,
+                                  @Value("${app.transfer.group-commit.committers:2}") int committerCount,
+                                  @Value("${app.transfer.group-commit.max-wait:10s}") Duration maxWait,
+                                  MeterRegistry meterRegistry) {
+        this.handlerChainExecutor = handlerChainExecutor;
+        this.executionLanes = executionLanes;
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+        this.lingerNanos = linger.toNanos();
+        this.maxWait = maxWait;
+
+        this.groupSize = DistributionSummary.builder("wallet.group.commit.size")
+                .description("Transfers committed together in one database transaction")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.fallbacks = Counter.builder("wallet.group.commit.fallbacks")
+                .description("Groups that failed as a whole and were re-run one transfer at a time")
+                .register(meterRegistry);
+
+        this.committers = !enabled ? List.of() : IntStream.range(0, committerCount)
+                .mapToObj(i -> Thread.ofVirtual().name("group-commit-" + i).start(this::runCommitter))
+                .toList();
+
+        if (enabled) {
+            log.info("Group commit enabled: up to {} transfers per commit, {} linger, {} committers",
+                    maxSize, linger, committerCount);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues the transfer for the next group and waits until that group has committed.
+     * Throws whatever the transfer would have thrown had it run on its own.
+     */
+    public void submit(TransactionContext context) {
+        // The chain runs on a committer thread, which must log under this caller's request ID
+        context.setLogContext(MDC.getCopyOfContextMap());
+        PendingTransfer pending = new PendingTransfer(context, new CompletableFuture<>());
+        queue.add(pending);
+
+        // Queued after stop() drained the queue: no committer will ever take it
+        if (stopped && queue.remove(pending)) {
+            throw new WalletBusinessException(SHUTTING_DOWN);
+        }
+
+        try {
+            pending.done().get(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            // Never taken: nothing was written, so the same request may run again
+            if (queue.remove(pending)) {
+                throw new WalletBusinessException("Transfer queue is busy. Please retry.");
+            }
+            // Taken by a committer that may still commit it: leave the idempotency key in progress
+            throw new IllegalStateException("Transfer " + context.getTransactionId()
+                    + " did not finish committing within " + maxWait + ", its outcome is unknown");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (queue.remove(pending)) {
+                throw new WalletBusinessException(SHUTTING_DOWN);
+            }
+            throw new IllegalStateException("Interrupted while transfer " + context.getTransactionId() + " was committing");
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        stopped = true;
+        committers.forEach(Thread::interrupt);
+
+        List<PendingTransfer> abandoned = new ArrayList<>();
+        queue.drainTo(abandoned);
+        abandoned.forEach(pending -> pending.done().completeExceptionally(
+                new WalletBusinessException(SHUTTING_DOWN)));
+    }
+
+    private void runCommitter() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                List<PendingTransfer> group = nextGroup();
+                try {
+                    commit(group);
+                } catch (RuntimeException e) {
+                    // Keep the committer alive; the group's callers learn the outcome is unknown
+                    log.error("Committer failed on a group of {} transfers", group.size(), e);
+                    group.forEach(pending -> pending.done().completeExceptionally(e));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Blocks for the first transfer, then collects more until the group is full or the linger runs out
+    List<PendingTransfer> nextGroup() throws InterruptedException {
+        List<PendingTransfer> group = new ArrayList<>(maxSize);
+        group.add(queue.take());
+
+        long deadline = System.nanoTime() + lingerNanos;
+        while (group.size() < maxSize) {
+            PendingTransfer next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            group.add(next);
+        }
+        return group;
+    }
+
+    void commit(List<PendingTransfer> group) {
+        List<TransactionContext> contexts = group.stream().map(PendingTransfer::context).toList();
+        Set<String> walletIds = new LinkedHashSet<>();
+        contexts.forEach(context -> {
+            walletIds.add(context.getRequest().fromWalletId());
+            walletIds.add(context.getRequest().toWalletId());
+        });
+        groupSize.record(group.size());
+
+        Map<Integer, RuntimeException> rejections;
+        try {
+            rejections = executionLanes.call(walletIds, () -> handlerChainExecutor.executeGroup(contexts));
+        } catch (RuntimeException e) {
+            log.warn("Group of {} transfers failed to commit, re-running them one by one: {}", group.size(), e.getMessage());
+            fallbacks.increment();
+            group.forEach(this::commitAlone);
+            return;
+        }
+
+        for (int index = 0; index < group.size(); index++) {
+            RuntimeException rejection = rejections.get(index);
+            if (rejection == null) {
+                group.get(index).done().complete(null);
+            } else {
+                group.get(index).done().completeExceptionally(rejection);
+            }
+        }
+    }
+
+    private void commitAlone(PendingTransfer pending) {
+        TransactionContext context = pending.context();
+        context.setLedgerBatch(null); // Left over from the failed group run
+
+        if (context.getLogContext() != null) {
+            MDC.setContextMap(context.getLogContext());
+        }
+        try {
+            executionLanes.execute(List.of(context.getRequest().fromWalletId(), context.getRequest().toWalletId()),
+                    () -> handlerChainExecutor.execute(context));
+            pending.done().complete(null);
+        } catch (RuntimeException e) {
+            pending.done().completeExceptionally(e);
+        } finally {
+            MDC.clear();
+        }
+    }
+
+    record PendingTransfer(TransactionContext context, CompletableFuture<Void> done) {
+    }
+}
@@ -0,0 +1,120 @@
+package com.wallet.core.concurrency;
+
+import com.wallet.common.exception.WalletBusinessException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Opt-in single-writer lanes for wallet mutations.
+ * <p>
+ * Wallet IDs are hashed onto a fixed set of lanes. Work that touches a set of wallets
+ * holds every lane those wallets map to, so two transfers sharing a wallet run one
+ * after the other in this JVM instead of racing on the optimistic-lock version in
+ * Postgres. Each lane is a fair lock, so waiters are served in arrival order, and the
+ * work runs on the caller's thread to keep MDC and request context intact. Lanes are
+ * always acquired in ascending index order, which rules out deadlocks between
+ * transfers that touch the same two lanes in opposite directions.
+ * <p>
+ * Lanes only serialize within one instance. Conflicts between instances are still
+ * caught by the version check.
+ */
+@Slf4j
+@Component
+public class WalletExecutionLanes {
+
+    private final boolean enabled;
+    private final Duration maxWait;
+    private final ReentrantLock[] lanes;
+    private final Timer waitTimer;
+
+    public WalletExecutionLanes(@Value("${app.transfer.lanes.enabled:false}") boolean enabled,
+                                @Value("${app.transfer.lanes.count:64}") int laneCount,
+                                @Value("${app.transfer.lanes.max-wait:5s}") Duration maxWait,
+                                MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxWait = maxWait;
+        this.lanes = IntStream.range(0, laneCount)
+                .mapToObj(i -> new ReentrantLock(true))
+                .toArray(ReentrantLock[]::new);
+
+        this.waitTimer = Timer.builder("wallet.lane.wait")
+                .description("Time spent waiting to enter the wallet execution lanes")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("wallet.lane.queue.depth", this, WalletExecutionLanes::totalQueueDepth)
+                .description("Threads currently queued across all wallet execution lanes")
+                .register(meterRegistry);
+        Gauge.builder("wallet.lane.queue.depth.max", this, WalletExecutionLanes::maxQueueDepth)
+                .description("Deepest single lane queue, a hot wallet shows up here")
+                .register(meterRegistry);
+
+        if (enabled) {
+            log.info("Wallet execution lanes enabled with {} lanes", laneCount);
+        }
+    }
+
+    public void execute(Collection<String> walletIds, Runnable work) {
+        call(walletIds, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public <T> T call(Collection<String> walletIds, Supplier<T> work) {
+        if (!enabled) {
+            return work.get();
+        }
+
+        int[] laneIndexes = walletIds.stream().mapToInt(this::laneOf).distinct().sorted().toArray();
+        int acquired = 0;
+        long start = System.nanoTime();
+
+        try {
+            for (int laneIndex : laneIndexes) {
+                if (!lanes[laneIndex].tryLock(remainingNanos(start), TimeUnit.NANOSECONDS)) {
+                    throw new WalletBusinessException("Wallet is busy. Please retry.");
+                }
+                acquired++;
+            }
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+            return work.get();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WalletBusinessException("Interrupted while waiting for wallet lane");
+        } finally {
+            for (int i = acquired - 1; i >= 0; i--) {
+                lanes[laneIndexes[i]].unlock();
+            }
+        }
+    }
+
+    int laneOf(String walletId) {
+        return Math.floorMod(walletId.hashCode(), lanes.length);
+    }
+
+    private long remainingNanos(long start) {
+        return Math.max(0, maxWait.toNanos() - (System.nanoTime() - start));
+    }
+
+    private double totalQueueDepth() {
+        return Arrays.stream(lanes).mapToInt(ReentrantLock::getQueueLength).sum();
+    }
+
+    private double maxQueueDepth() {
+        return Arrays.stream(lanes).mapToInt(ReentrantLock::getQueueLength).max().orElse(0);
+    }
+}
@@ -0,0 +1,18 @@
+package com.wallet.core.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class AsyncConfig {
+
+    // Remote identity lookups spend almost all their time blocked on the network,
+    // so each one gets its own virtual thread instead of a slot in a bounded pool
+    @Bean(destroyMethod = "close")
+    public ExecutorService identityLookupExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+}
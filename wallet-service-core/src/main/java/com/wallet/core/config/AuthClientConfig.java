@@ -0,0 +1,21 @@
+package com.wallet.core.config;
+
+import com.wallet.core.concurrency.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class AuthClientConfig {
+
+    // Shared by every call to wallet-auth-service, so one slow instance of it trips the breaker for the whole JVM
+    @Bean
+    public CircuitBreaker authCircuitBreaker(@Value("${app.auth.circuit-breaker.failure-threshold:5}") int failureThreshold,
+                                             @Value("${app.auth.circuit-breaker.open-duration:10s}") Duration openDuration,
+                                             MeterRegistry meterRegistry) {
+        return new CircuitBreaker("auth-service", failureThreshold, openDuration, meterRegistry);
+    }
+}
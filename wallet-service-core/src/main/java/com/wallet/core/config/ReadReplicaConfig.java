@@ -0,0 +1,76 @@
+package com.wallet.core.config;
+
+import com.wallet.core.datasource.ReadReplicas;
+import com.wallet.core.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Routes read-only transactions to the replicas in {@code app.datasource.replicas.urls}.
+ * Without replicas this configuration stays off and Spring Boot's single pool is used.
+ * <p>
+ * Every pool is named ({@code primary}, {@code replica-1}, ...) and reports its own
+ * {@code hikaricp.*} metrics, tagged with that name.
+ */
+@Configuration
+@ConditionalOnExpression("!'${app.datasource.replicas.urls:}'.isBlank()")
+public class ReadReplicaConfig {
+
+    @Bean(destroyMethod = "close")
+    public ReadReplicas readReplicas(DataSourceProperties properties,
+                                     Environment environment,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${app.datasource.replicas.urls}") List<String> urls,
+                                     @Value("${app.datasource.replicas.username:${spring.datasource.username:}}") String username,
+                                     @Value("${app.datasource.replicas.password:${spring.datasource.password:}}") String password,
+                                     @Value("${app.datasource.replicas.maximum-pool-size:20}") int maximumPoolSize,
+                                     @Value("${app.datasource.replicas.max-lag:5s}") Duration maxLag) {
+        Map<String, DataSource> pools = new LinkedHashMap<>();
+        for (String url : urls.stream().map(String::trim).filter(url -> !url.isEmpty()).toList()) {
+            HikariDataSource pool = pool("replica-" + (pools.size() + 1), properties, environment, meterRegistry);
+            pool.setJdbcUrl(url);
+            pool.setUsername(username);
+            pool.setPassword(password);
+            pool.setMaximumPoolSize(maximumPoolSize);
+            pool.setReadOnly(true);
+            pools.put(pool.getPoolName(), pool);
+        }
+        return new ReadReplicas(pools, maxLag, meterRegistry);
+    }
+
+    // Takes the place of Spring Boot's pool, which backs off once a DataSource bean exists
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties,
+                                 Environment environment,
+                                 MeterRegistry meterRegistry,
+                                 ReadReplicas readReplicas) {
+        return new ReplicaRoutingDataSource(
+                pool(ReplicaRoutingDataSource.PRIMARY, properties, environment, meterRegistry), readReplicas, meterRegistry);
+    }
+
+    // A pool for spring.datasource with its spring.datasource.hikari settings
+    private static HikariDataSource pool(String name,
+                                         DataSourceProperties properties,
+                                         Environment environment,
+                                         MeterRegistry meterRegistry) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        pool.setMetricRegistry(meterRegistry);
+        return pool;
+    }
+}
@@ -2,17 +2,28 @@ package com.wallet.core.controller;
 
 import com.wallet.common.constants.WalletConstants;
 import com.wallet.common.dto.*;
+import com.wallet.common.enums.JournalEntryType;
+import com.wallet.common.enums.StatementFormat;
 import com.wallet.core.annotation.Idempotent;
 import com.wallet.core.facade.TransactionFacade;
 import com.wallet.core.service.QrService;
 import com.wallet.core.service.WalletManagementService;
+import com.wallet.core.service.WalletStatementService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 
 @Slf4j
 @RestController
@@ -23,6 +34,7 @@ public class WalletController {
     private final TransactionFacade transactionFacade;
     private final WalletManagementService walletManagementService;
     private final QrService qrService;
+    private final WalletStatementService walletStatementService;
 
     @Idempotent
     @PostMapping("/initialize")
@@ -64,19 +76,71 @@ public class WalletController {
     public ResponseEntity<WalletHistoryResponseDTO> getWalletHistory(
             @PathVariable String walletId,
             @RequestHeader(value = WalletConstants.HEADER_REQUEST_ID) String requestId,
-            @RequestHeader(value = WalletConstants.HEADER_CLIENT_ID) String clientId) {
+            @RequestHeader(value = WalletConstants.HEADER_CLIENT_ID) String clientId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) JournalEntryType type) {
 
         MDC.put("requestId", requestId);
 
         try {
             log.info("Received HTTP request for Wallet History.");
-            WalletHistoryResponseDTO response = walletManagementService.getWalletHistory(walletId, clientId);
+            WalletHistoryResponseDTO response = walletManagementService.getWalletHistory(walletId, clientId,
+                    new WalletHistoryRequestDTO(cursor, size, from, to, type));
             return ResponseEntity.ok(response);
         } finally {
             MDC.clear();
         }
     }
 
+    @GetMapping("/{walletId}/balance")
+    public ResponseEntity<WalletBalanceResponseDTO> getBalanceAt(
+            @PathVariable String walletId,
+            @RequestHeader(value = WalletConstants.HEADER_REQUEST_ID) String requestId,
+            @RequestHeader(value = WalletConstants.HEADER_CLIENT_ID) String clientId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+
+        MDC.put("requestId", requestId);
+
+        try {
+            log.info("Received HTTP request for a point-in-time Wallet Balance.");
+            return ResponseEntity.ok(walletManagementService.getBalanceAt(walletId, clientId, at));
+        } finally {
+            MDC.clear();
+        }
+    }
+
+    @GetMapping("/{walletId}/statement")
+    public ResponseEntity<StreamingResponseBody> exportStatement(
+            @PathVariable String walletId,
+            @RequestHeader(value = WalletConstants.HEADER_REQUEST_ID) String requestId,
+            @RequestHeader(value = WalletConstants.HEADER_CLIENT_ID) String clientId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "CSV") StatementFormat format) {
+
+        MDC.put("requestId", requestId);
+
+        try {
+            log.info("Received HTTP request for Wallet Statement.");
+            StreamingResponseBody body = walletStatementService.exportStatement(walletId, clientId, from, to, format);
+
+            // The body is written after this returns, on its own thread
+            String filename = "statement-" + walletId + (format == StatementFormat.CSV ? ".csv" : ".ndjson");
+            return ResponseEntity.ok()
+                    .contentType(format == StatementFormat.CSV
+                            ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                            : MediaType.APPLICATION_NDJSON)
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                            ContentDisposition.attachment().filename(filename).build().toString())
+                    .body(body);
+        } finally {
+            MDC.clear();
+        }
+    }
+
     @Idempotent
     @PostMapping("/transfer")
     public ResponseEntity<WalletResponseDTO> transferFunds(
@@ -101,6 +165,29 @@ public class WalletController {
         }
     }
 
+    @Idempotent(ttl = "${app.idempotency.ttl.transfer-batch:6h}")
+    @PostMapping("/transfer/batch")
+    public ResponseEntity<BatchTransferResponseDTO> transferFundsInBatch(
+            @RequestHeader(value = WalletConstants.HEADER_REQUEST_ID) String requestId,
+            @RequestHeader(value = WalletConstants.HEADER_CLIENT_ID) String clientId,
+            @Valid @RequestBody BatchTransferRequestDTO request) {
+
+        MDC.put("requestId", requestId);
+
+        try {
+            log.info("Received batch transfer HTTP request with {} transfers.", request.transfers().size());
+
+            BatchTransferResponseDTO response = transactionFacade.executeBatchTransfer(requestId, clientId, request);
+
+            log.info("Batch processed: {} completed, {} failed.", response.successCount(), response.failureCount());
+
+            return ResponseEntity.ok(response);
+
+        } finally {
+            MDC.clear();
+        }
+    }
+
     @PostMapping("/qr/generate")
     public ResponseEntity<QrGenerateResponseDTO> generateQr(
             @RequestHeader(value = WalletConstants.HEADER_REQUEST_ID) String requestId,
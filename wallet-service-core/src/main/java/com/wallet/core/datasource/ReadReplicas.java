@@ -0,0 +1,143 @@
+package com.wallet.core.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The read replicas behind {@link ReplicaRoutingDataSource}, and which of them may serve reads.
+ * <p>
+ * A replica serves reads while it is reachable and no further behind the primary than the
+ * staleness budget, {@code app.datasource.replicas.max-lag}. Its lag is measured every
+ * {@code lag-check-interval-ms}. Until its first check succeeds, after a failed check and
+ * after it refused a connection, its reads go to the primary instead.
+ */
+@Slf4j
+public class ReadReplicas implements AutoCloseable {
+
+    // Milliseconds behind the primary. A standby that replayed everything it received is caught
+    // up, however old its last transaction is, so an idle primary does not show up as lag.
+    // NULL when the standby has not replayed anything yet.
+    static final String LAG_QUERY = """
+            SELECT CASE
+                       WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                       ELSE (EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000)::BIGINT
+                   END""";
+
+    private final List<Replica> replicas;
+    private final long maxLagMillis;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReadReplicas(Map<String, DataSource> dataSources, Duration maxLag, MeterRegistry meterRegistry) {
+        this.replicas = dataSources.entrySet().stream()
+                .map(entry -> new Replica(entry.getKey(), entry.getValue()))
+                .toList();
+        this.maxLagMillis = maxLag.toMillis();
+
+        for (Replica replica : replicas) {
+            Gauge.builder("wallet.datasource.replica.lag", replica, r -> r.lagMillis)
+                    .description("Milliseconds behind the primary at the last check, -1 = unknown")
+                    .baseUnit("milliseconds")
+                    .tag("replica", replica.name)
+                    .register(meterRegistry);
+            Gauge.builder("wallet.datasource.replica.available", replica, r -> r.available ? 1 : 0)
+                    .description("1 = serving reads, 0 = reads go to the primary")
+                    .tag("replica", replica.name)
+                    .register(meterRegistry);
+        }
+    }
+
+    public Map<String, DataSource> dataSources() {
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        replicas.forEach(replica -> dataSources.put(replica.name, replica.dataSource));
+        return dataSources;
+    }
+
+    /**
+     * Returns the next replica that may serve reads, round robin, or empty when none may.
+     */
+    public Optional<String> next() {
+        List<Replica> available = replicas.stream().filter(replica -> replica.available).toList();
+        if (available.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(available.get(Math.floorMod(next.getAndIncrement(), available.size())).name);
+    }
+
+    // Takes the replica out of rotation until its next successful lag check
+    public void markUnavailable(String name, SQLException cause) {
+        replicas.stream().filter(replica -> replica.name.equals(name)).forEach(replica -> {
+            if (replica.available) {
+                log.warn("Read replica {} refused a connection, reading from the primary: {}", name, cause.getMessage());
+            }
+            replica.available = false;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replicas.lag-check-interval-ms:1000}")
+    public void checkLag() {
+        for (Replica replica : replicas) {
+            long lag;
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(LAG_QUERY)) {
+                resultSet.next();
+                lag = resultSet.getLong(1);
+                if (resultSet.wasNull()) {
+                    lag = -1;
+                }
+            } catch (SQLException e) {
+                if (replica.available) {
+                    log.warn("Read replica {} is unreachable, reading from the primary: {}", replica.name, e.getMessage());
+                }
+                replica.lagMillis = -1;
+                replica.available = false;
+                continue;
+            }
+
+            boolean available = lag >= 0 && lag <= maxLagMillis;
+            if (available != replica.available) {
+                log.info("Read replica {} is {} ms behind the primary, {}", replica.name, lag,
+                        available ? "serving reads" : "reading from the primary");
+            }
+            replica.lagMillis = lag;
+            replica.available = available;
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable pool) {
+                pool.close();
+            }
+        }
+    }
+
+    private static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+
+        private volatile long lagMillis = -1;
+        private volatile boolean available;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
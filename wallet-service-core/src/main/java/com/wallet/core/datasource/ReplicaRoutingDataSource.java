@@ -0,0 +1,73 @@
+package com.wallet.core.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Opens the connections of read-only transactions ({@code @Transactional(readOnly = true)})
+ * on a read replica within its staleness budget, round robin, and every other connection on
+ * the primary. When a replica refuses a connection it is taken out of rotation and the
+ * connection is opened on the primary instead.
+ * <p>
+ * Whether a transaction is read-only is only known once it has begun, so this data source
+ * relies on the lazy connection proxy from {@code DataSourceConfig}, which defers the
+ * physical connection to the first statement.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    public static final String PRIMARY = "primary";
+
+    private final DataSource primary;
+    private final ReadReplicas replicas;
+    private final MeterRegistry meterRegistry;
+
+    public ReplicaRoutingDataSource(DataSource primary, ReadReplicas replicas, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.meterRegistry = meterRegistry;
+
+        Map<Object, Object> targets = new HashMap<>(replicas.dataSources());
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        return replicas.next().orElse(PRIMARY);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Object key = determineCurrentLookupKey();
+        if (PRIMARY.equals(key)) {
+            return primary.getConnection();
+        }
+
+        try {
+            return getResolvedDataSources().get(key).getConnection();
+        } catch (SQLException e) {
+            replicas.markUnavailable((String) key, e);
+            meterRegistry.counter("wallet.datasource.replica.fallbacks", "replica", (String) key).increment();
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (primary instanceof AutoCloseable pool) {
+            pool.close();
+        }
+    }
+}
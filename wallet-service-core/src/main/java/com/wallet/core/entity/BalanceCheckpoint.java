@@ -0,0 +1,13 @@
+package com.wallet.core.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Ledger balance of a wallet including every journal entry created before asOf
+public record BalanceCheckpoint(
+        String walletId,
+        LocalDateTime asOf,
+        BigDecimal balance,
+        LocalDateTime createdAt
+) {
+}
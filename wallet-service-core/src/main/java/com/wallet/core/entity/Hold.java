@@ -0,0 +1,18 @@
+package com.wallet.core.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record Hold(
+        String id,
+        String requestId,
+        String fromWalletId,
+        String toWalletId,
+        BigDecimal amount,
+        String status,
+        LocalDateTime expiresAt,
+        LocalDateTime createdAt,
+        LocalDateTime settledAt,
+        Integer batchIndex // Position in its batch, null for a single transfer
+) {
+}
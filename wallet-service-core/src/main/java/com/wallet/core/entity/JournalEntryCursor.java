@@ -0,0 +1,36 @@
+package com.wallet.core.entity;
+
+import com.wallet.common.exception.WalletBusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a wallet's history: the page continues with the entries strictly older than
+ * {@code (createdAt, id)}. Clients get it as an opaque token and only pass it back.
+ */
+public record JournalEntryCursor(LocalDateTime createdAt, long id) {
+
+    public static JournalEntryCursor after(JournalEntry entry) {
+        return new JournalEntryCursor(entry.createdAt(), entry.id());
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((createdAt + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static JournalEntryCursor decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected two parts");
+            }
+            return new JournalEntryCursor(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new WalletBusinessException("Invalid history cursor");
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.wallet.core.entity;
+
+import java.time.LocalDateTime;
+
+// One partition of journal_entries and the created_at range it holds; fromInclusive is null for MINVALUE
+public record JournalPartition(
+        String name,
+        LocalDateTime fromInclusive,
+        LocalDateTime toExclusive
+) {
+}
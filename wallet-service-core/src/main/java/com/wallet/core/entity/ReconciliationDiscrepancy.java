@@ -0,0 +1,14 @@
+package com.wallet.core.entity;
+
+import java.math.BigDecimal;
+
+// One finding of a reconciliation run, walletId or transactionId depending on its type
+public record ReconciliationDiscrepancy(
+        String type,
+        String walletId,
+        String transactionId,
+        BigDecimal expected,
+        BigDecimal actual,
+        String detail
+) {
+}
@@ -9,6 +9,7 @@ public record TransactionRequest(
         String type,
         String status,
         BigDecimal amount,
-        LocalDateTime createdAt
+        LocalDateTime createdAt,
+        Integer batchIndex // Position in its batch, null for a single request
 ) {
 }
@@ -0,0 +1,14 @@
+package com.wallet.core.entity;
+
+import java.math.BigDecimal;
+
+// A TRANSFER request with the totals of the journal legs written for it
+public record TransferLegCheck(
+        String transactionId,
+        BigDecimal amount,
+        BigDecimal debits,
+        BigDecimal credits,
+        int debitLegs,
+        int creditLegs
+) {
+}
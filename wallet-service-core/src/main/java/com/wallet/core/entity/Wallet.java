@@ -1,5 +1,7 @@
 package com.wallet.core.entity;
 
+import org.apache.ibatis.annotations.AutomapConstructor;
+
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
@@ -11,6 +13,32 @@ public record Wallet(
         String status,
         Integer version,
         LocalDateTime createdAt,
-        LocalDateTime updatedAt
+        LocalDateTime updatedAt,
+        Integer shardCount, // 0 for a plain wallet, otherwise the number of balance shards
+        BigDecimal heldBalance // Reserved by pending holds, still part of the balance until they settle
 ) {
+
+    @AutomapConstructor
+    public Wallet {
+    }
+
+    public Wallet(String id, String userId, BigDecimal balance, String currency, String status, Integer version,
+                  LocalDateTime createdAt, LocalDateTime updatedAt, Integer shardCount) {
+        this(id, userId, balance, currency, status, version, createdAt, updatedAt, shardCount, BigDecimal.ZERO);
+    }
+
+    public Wallet(String id, String userId, BigDecimal balance, String currency, String status, Integer version,
+                  LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id, userId, balance, currency, status, version, createdAt, updatedAt, 0);
+    }
+
+    // Split wallets keep their balance in wallet_balance_shards, the wallets row is not written after the split
+    public boolean isSharded() {
+        return shardCount != null && shardCount > 0;
+    }
+
+    // What the owner can still spend: the balance minus what pending holds have reserved
+    public BigDecimal availableBalance() {
+        return heldBalance == null ? balance : balance.subtract(heldBalance);
+    }
 }
@@ -0,0 +1,11 @@
+package com.wallet.core.entity;
+
+import java.math.BigDecimal;
+
+// A wallet's stored balance (row plus shards) next to its balance rebuilt from the journal
+public record WalletBalanceCheck(
+        String walletId,
+        BigDecimal walletBalance,
+        BigDecimal ledgerBalance
+) {
+}
@@ -0,0 +1,15 @@
+package com.wallet.core.entity;
+
+import java.math.BigDecimal;
+
+/**
+ * Net change settled or released holds make to one wallet row: {@code balanceDelta} is
+ * added to the balance (negative for a sender), {@code heldRelease} is taken off the
+ * held balance.
+ */
+public record WalletBalanceMovement(
+        String walletId,
+        BigDecimal balanceDelta,
+        BigDecimal heldRelease
+) {
+}
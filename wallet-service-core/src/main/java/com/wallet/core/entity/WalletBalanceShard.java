@@ -0,0 +1,12 @@
+package com.wallet.core.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record WalletBalanceShard(
+        String walletId,
+        Integer shardNo,
+        BigDecimal balance,
+        LocalDateTime updatedAt
+) {
+}
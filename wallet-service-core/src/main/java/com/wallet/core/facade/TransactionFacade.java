@@ -1,8 +1,16 @@
 package com.wallet.core.facade;
 
+import com.wallet.common.dto.BatchTransferRequestDTO;
+import com.wallet.common.dto.BatchTransferResponseDTO;
 import com.wallet.common.dto.TransferRequestDTO;
 import com.wallet.common.dto.WalletResponseDTO;
 
 public interface TransactionFacade {
     WalletResponseDTO executeTransfer(String requestId, String clientId, TransferRequestDTO request);
-}
\ No newline at end of file
+
+    /**
+     * Executes many P2P transfers in one ledger transaction. Items that fail validation
+     * are reported individually and do not stop the rest of the batch.
+     */
+    BatchTransferResponseDTO executeBatchTransfer(String requestId, String clientId, BatchTransferRequestDTO request);
+}
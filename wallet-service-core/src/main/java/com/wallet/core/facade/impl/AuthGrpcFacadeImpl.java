@@ -1,42 +1,222 @@
 package com.wallet.core.facade.impl;
 
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.wallet.common.exception.WalletBusinessException;
 import com.wallet.common.grpc.AuthServiceGrpcApiGrpc;
 import com.wallet.common.grpc.UserRequest;
 import com.wallet.common.grpc.UserResponse;
+import com.wallet.core.concurrency.CircuitBreaker;
 import com.wallet.core.facade.AuthFacade;
+import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.client.inject.GrpcClient;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
 @Slf4j
 @Service
 public class AuthGrpcFacadeImpl implements AuthFacade {
 
+    // Failures that say the auth service is unhealthy, as opposed to answers about the user
+    private static final Set<Status.Code> BREAKER_FAILURES = EnumSet.of(
+            Status.Code.UNAVAILABLE,
+            Status.Code.DEADLINE_EXCEEDED,
+            Status.Code.RESOURCE_EXHAUSTED,
+            Status.Code.INTERNAL,
+            Status.Code.UNKNOWN);
+
     @GrpcClient("auth-service")
     private AuthServiceGrpcApiGrpc.AuthServiceGrpcApiBlockingStub authBlockingStub;
 
+    // Bounded by size, entries expire after a TTL. Concurrent misses for the same user ID
+    // wait on one load instead of each making their own RPC. The cache is async so the RPC
+    // runs on its own virtual thread and waiters park on a future; a synchronous Caffeine
+    // load holds a map bin lock for the whole call, which pins the carrier of every virtual
+    // thread waiting on it.
+    private final AsyncLoadingCache<String, UsernameLookup> usernameCache;
+
+    // Last known username per user ID, kept much longer than the main cache and only
+    // read while the auth service cannot be reached
+    private final Cache<String, String> staleUsernames;
+
+    private final Duration deadline;
+    private final CircuitBreaker authCircuitBreaker;
+
+    // Registered up front, one per gRPC status and fallback outcome, so a lookup only records
+    private final Map<Status.Code, Timer> grpcLatency = new EnumMap<>(Status.Code.class);
+    private final Counter staleFallbacks;
+    private final Counter missedFallbacks;
+
+    public AuthGrpcFacadeImpl(@Value("${app.auth.username-cache.max-size:100000}") long maxSize,
+                              @Value("${app.auth.username-cache.ttl:10m}") Duration ttl,
+                              @Value("${app.auth.username-cache.negative-ttl:30s}") Duration negativeTtl,
+                              @Value("${app.auth.username-cache.stale-ttl:24h}") Duration staleTtl,
+                              @Value("${app.auth.grpc.deadline:500ms}") Duration deadline,
+                              CircuitBreaker authCircuitBreaker,
+                              ExecutorService identityLookupExecutor,
+                              MeterRegistry meterRegistry) {
+        this.deadline = deadline;
+        this.authCircuitBreaker = authCircuitBreaker;
+
+        for (Status.Code code : Status.Code.values()) {
+            grpcLatency.put(code, Timer.builder("auth.grpc.latency")
+                    .description("Latency of GetUserById calls to wallet-auth-service")
+                    .tag("status", code.name())
+                    .register(meterRegistry));
+        }
+        this.staleFallbacks = registerFallbackCounter(meterRegistry, "stale");
+        this.missedFallbacks = registerFallbackCounter(meterRegistry, "miss");
+
+        this.usernameCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UsernameLookupExpiry(ttl, negativeTtl))
+                .recordStats()
+                .executor(identityLookupExecutor)
+                .buildAsync(this::lookupRemotely);
+        this.staleUsernames = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(staleTtl)
+                .build();
+
+        // Publishes cache.gets (hit/miss), cache.evictions, cache.size, ... tagged cache=auth.username
+        CaffeineCacheMetrics.monitor(meterRegistry, usernameCache, "auth.username");
+    }
+
     @Override
     public String fetchUsername(String userId) {
+        CompletableFuture<UsernameLookup> pending = usernameCache.get(userId);
+        UsernameLookup lookup;
+        try {
+            lookup = pending.join();
+        } catch (CompletionException e) {
+            // Caffeine drops failed loads asynchronously; drop this one now so the next call retries
+            usernameCache.asMap().remove(userId, pending);
+            if (e.getCause() instanceof AuthServiceUnavailableException unavailable) {
+                return serveStale(userId, unavailable.getMessage());
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+
+        if (lookup.username() == null) {
+            throw new WalletBusinessException("Could not verify user identity: " + lookup.failure());
+        }
+        return lookup.username();
+    }
+
+    private UsernameLookup lookupRemotely(String userId) {
+        // 1. Fail fast while the breaker is open instead of queueing behind a struggling auth service
+        if (!authCircuitBreaker.tryAcquirePermission()) {
+            throw new AuthServiceUnavailableException("auth service circuit is open");
+        }
+
         log.debug("Initiating gRPC call to fetch username for ID: {}", userId);
+        long start = System.nanoTime();
+        Status.Code outcome = Status.Code.OK;
 
         try {
-            // 1. Build the Protobuf Request
+            // 2. Build the Protobuf Request
             UserRequest request = UserRequest.newBuilder()
                     .setUserId(userId)
                     .build();
 
-            // 2. Make the synchronous, binary RPC call!
-            UserResponse response = authBlockingStub.getUserById(request);
+            // 3. Make the synchronous, binary RPC call, bounded by a per-call deadline
+            UserResponse response = authBlockingStub
+                    .withDeadlineAfter(deadline.toMillis(), TimeUnit.MILLISECONDS)
+                    .getUserById(request);
 
-            return response.getUsername();
+            authCircuitBreaker.onSuccess();
+            staleUsernames.put(userId, response.getUsername());
+            return new UsernameLookup(response.getUsername(), null);
 
         } catch (StatusRuntimeException e) {
             // If the Auth Service throws a NOT_FOUND or goes offline, we catch it here!
+            outcome = e.getStatus().getCode();
             log.error("gRPC call failed for User ID {}: {}", userId, e.getStatus().getDescription());
+
+            if (BREAKER_FAILURES.contains(outcome)) {
+                authCircuitBreaker.onFailure();
+                throw new AuthServiceUnavailableException(e.getStatus().getDescription());
+            }
+            authCircuitBreaker.onSuccess();
+
+            // An unknown user is an answer and is cached; anything else is not, the next call tries again
+            if (outcome == Status.Code.NOT_FOUND) {
+                return new UsernameLookup(null, e.getStatus().getDescription());
+            }
             throw new WalletBusinessException("Could not verify user identity: " + e.getStatus().getDescription());
+
+        } finally {
+            grpcLatency.get(outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private String serveStale(String userId, String reason) {
+        String username = staleUsernames.getIfPresent(userId);
+        (username != null ? staleFallbacks : missedFallbacks).increment();
+
+        if (username == null) {
+            throw new WalletBusinessException("Could not verify user identity: " + reason);
+        }
+        log.warn("Auth service unreachable ({}), serving last known username for User ID {}", reason, userId);
+        return username;
+    }
+
+    private static Counter registerFallbackCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("auth.username.fallback")
+                .description("Username lookups answered while the auth service was unreachable")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    // Outcome of one remote lookup: either a username, or the reason the user was not found
+    private record UsernameLookup(String username, String failure) {
+    }
+
+    // Thrown out of the cache loader so the failure is not cached and the stale fallback can take over
+    private static class AuthServiceUnavailableException extends RuntimeException {
+        AuthServiceUnavailableException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    // Found usernames live for the full TTL, NOT_FOUND answers for the shorter negative TTL
+    private record UsernameLookupExpiry(Duration ttl, Duration negativeTtl) implements Expiry<String, UsernameLookup> {
+
+        @Override
+        public long expireAfterCreate(String userId, UsernameLookup lookup, long currentTime) {
+            return (lookup.username() != null ? ttl : negativeTtl).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String userId, UsernameLookup lookup, long currentTime, long currentDuration) {
+            return expireAfterCreate(userId, lookup, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String userId, UsernameLookup lookup, long currentTime, long currentDuration) {
+            return currentDuration;
         }
     }
-}
\ No newline at end of file
+}
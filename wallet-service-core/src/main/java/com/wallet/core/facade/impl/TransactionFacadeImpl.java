@@ -1,17 +1,27 @@
 package com.wallet.core.facade.impl;
 
+import com.wallet.common.dto.BatchTransferItemResultDTO;
+import com.wallet.common.dto.BatchTransferRequestDTO;
+import com.wallet.common.dto.BatchTransferResponseDTO;
 import com.wallet.common.dto.TransferRequestDTO;
 import com.wallet.common.dto.WalletResponseDTO;
+import com.wallet.common.enums.TransactionStatus;
+import com.wallet.common.exception.WalletBusinessException;
+import com.wallet.core.concurrency.TransferGroupCommitter;
+import com.wallet.core.concurrency.WalletExecutionLanes;
 import com.wallet.core.facade.TransactionFacade;
 import com.wallet.core.facade.AuthFacade;
+import com.wallet.core.handler.HandlerChainExecutor;
 import com.wallet.core.handler.TransactionContext;
-import com.wallet.core.handler.TransactionHandler;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.math.BigDecimal;
 
@@ -20,17 +30,23 @@ import java.math.BigDecimal;
 @RequiredArgsConstructor
 public class TransactionFacadeImpl implements TransactionFacade {
 
-    private final List<TransactionHandler> handlerChain;
+    private final HandlerChainExecutor handlerChainExecutor;
     private final AuthFacade authFacade;
+    private final WalletExecutionLanes executionLanes;
+    private final TransferGroupCommitter transferGroupCommitter;
+
+    @Value("${app.transfer.batch.max-size:1000}")
+    private int maxBatchSize;
 
     @Override
-    @Transactional
     public WalletResponseDTO executeTransfer(String requestId, String clientId, TransferRequestDTO request) {
 
         // 1. Generate the official Transaction ID (TXN-UUID)
-        String transactionId = "TXN-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        String transactionId = newTransactionId();
 
-        // 1.1. Fetch the username
+        // 1.1. Fetch the username before taking a lane, a group slot or a connection. The chain's
+        // transaction holds a connection and, in PESSIMISTIC/ADVISORY mode, both wallet locks; a slow
+        // or timed-out auth call must never hold them.
         String username = authFacade.fetchUsername(clientId);
 
         // 2. Initialize the shared Context bucket
@@ -44,21 +60,71 @@ public class TransactionFacadeImpl implements TransactionFacade {
 
         log.info("Starting Handler Chain for Transaction: {}", transactionId);
 
-        // 3. Push the context through the assembly line
-        for (TransactionHandler handler : handlerChain) {
-            log.debug("Executing: {}", handler.getClass().getSimpleName());
-            handler.process(context);
+        // 3. Push the context through the assembly line, one writer per wallet lane at a time,
+        // or hand it to the group committer to share a database commit with concurrent transfers
+        if (transferGroupCommitter.isEnabled()) {
+            transferGroupCommitter.submit(context);
+        } else {
+            executionLanes.execute(List.of(request.fromWalletId(), request.toWalletId()),
+                    () -> handlerChainExecutor.execute(context));
         }
 
-        // 4. THE FIX: Calculate the new balance from the database state in the context
-        BigDecimal newBalance = context.getSenderWallet().balance().subtract(request.amount());
+        // 4. THE FIX: Prefer the balance the ledger update actually wrote, fall back to the database state in the context
+        BigDecimal newBalance = context.getSenderNewBalance() != null
+                ? context.getSenderNewBalance()
+                : context.getSenderWallet().balance().subtract(request.amount());
 
-        // 5. Return the accurate response
+        // 5. Return the accurate response, PENDING if the transfer was only placed as a hold
         return new WalletResponseDTO(
                 context.getSenderWallet().id(),
                 newBalance,
                 context.getSenderWallet().currency(),
-                "COMPLETED"
+                context.isOnHold() ? TransactionStatus.PENDING.name() : "COMPLETED"
         );
     }
-}
\ No newline at end of file
+
+    @Override
+    public BatchTransferResponseDTO executeBatchTransfer(String requestId, String clientId, BatchTransferRequestDTO request) {
+        List<TransferRequestDTO> transfers = request.transfers();
+
+        if (transfers.size() > maxBatchSize) {
+            throw new WalletBusinessException("Batch size exceeds the maximum of " + maxBatchSize + " transfers");
+        }
+
+        // 1. One identity lookup for the whole batch instead of one per transfer. It is resolved
+        // up front so that an unknown user rejects the batch as a whole, not item by item.
+        String username = authFacade.fetchUsername(clientId);
+
+        // 2. One context per item, each with its own transaction ID
+        List<TransactionContext> contexts = new ArrayList<>(transfers.size());
+        Set<String> walletIds = new LinkedHashSet<>();
+
+        for (int index = 0; index < transfers.size(); index++) {
+            TransferRequestDTO transfer = transfers.get(index);
+            contexts.add(TransactionContext.builder()
+                    .requestId(requestId)
+                    .batchIndex(index) // transaction_requests is unique per request ID and batch index
+                    .transactionId(newTransactionId())
+                    .clientId(clientId)
+                    .request(transfer)
+                    .senderUsername(username)
+                    .build());
+            walletIds.add(transfer.fromWalletId());
+            walletIds.add(transfer.toWalletId());
+        }
+
+        log.info("Starting Handler Chain for batch of {} transfers", transfers.size());
+
+        // 3. The whole batch is one ledger transaction
+        List<BatchTransferItemResultDTO> results = executionLanes.call(walletIds,
+                () -> handlerChainExecutor.executeBatch(contexts));
+
+        // Items placed as holds (PENDING) were accepted too
+        int successCount = (int) results.stream().filter(r -> !"FAILED".equals(r.status())).count();
+        return new BatchTransferResponseDTO(transfers.size(), successCount, transfers.size() - successCount, results);
+    }
+
+    private static String newTransactionId() {
+        return "TXN-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+    }
+}
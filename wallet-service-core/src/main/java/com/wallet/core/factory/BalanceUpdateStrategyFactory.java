@@ -0,0 +1,42 @@
+package com.wallet.core.factory;
+
+import com.wallet.common.enums.BalanceUpdateMode;
+import com.wallet.common.exception.WalletBusinessException;
+import com.wallet.core.strategy.BalanceUpdateStrategy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+public class BalanceUpdateStrategyFactory {
+
+    private final Map<BalanceUpdateMode, BalanceUpdateStrategy> strategies;
+    private final BalanceUpdateStrategy activeStrategy;
+
+    public BalanceUpdateStrategyFactory(List<BalanceUpdateStrategy> strategyList,
+                                        @Value("${app.ledger.balance-update-mode:OPTIMISTIC}") BalanceUpdateMode activeMode) {
+        this.strategies = strategyList.stream()
+                .collect(Collectors.toMap(BalanceUpdateStrategy::getSupportedMode, Function.identity()));
+        this.activeStrategy = getStrategy(activeMode);
+        log.info("Ledger balance updates use the {} strategy", activeMode);
+    }
+
+    public BalanceUpdateStrategy getStrategy(BalanceUpdateMode mode) {
+        BalanceUpdateStrategy strategy = strategies.get(mode);
+        if (strategy == null) {
+            throw new WalletBusinessException("Unsupported balance update mode: " + mode);
+        }
+        return strategy;
+    }
+
+    // The mode chosen by app.ledger.balance-update-mode
+    public BalanceUpdateStrategy getActiveStrategy() {
+        return activeStrategy;
+    }
+}
@@ -0,0 +1,50 @@
+package com.wallet.core.factory;
+
+import com.wallet.common.enums.IdempotencyBackend;
+import com.wallet.common.exception.WalletBusinessException;
+import com.wallet.core.strategy.IdempotencyStore;
+import com.wallet.core.strategy.TieredIdempotencyStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+public class IdempotencyStoreFactory {
+
+    private final Map<IdempotencyBackend, IdempotencyStore> stores;
+    private final TieredIdempotencyStore activeStore;
+
+    public IdempotencyStoreFactory(List<IdempotencyStore> storeList,
+                                   @Value("${app.idempotency.store.tiers:REDIS}") List<IdempotencyBackend> tiers,
+                                   @Value("${app.idempotency.store.fallback:}") IdempotencyBackend fallback,
+                                   MeterRegistry meterRegistry) {
+        this.stores = storeList.stream()
+                .collect(Collectors.toMap(IdempotencyStore::getSupportedBackend, Function.identity()));
+        if (tiers.isEmpty()) {
+            throw new IllegalStateException("app.idempotency.store.tiers must name at least one backend");
+        }
+        this.activeStore = new TieredIdempotencyStore(tiers.stream().map(this::getStore).toList(),
+                fallback != null ? getStore(fallback) : null, meterRegistry);
+        log.info("Idempotency keys are kept in {} with fallback {}", tiers, fallback != null ? fallback : "none");
+    }
+
+    public IdempotencyStore getStore(IdempotencyBackend backend) {
+        IdempotencyStore store = stores.get(backend);
+        if (store == null) {
+            throw new WalletBusinessException("Unsupported idempotency backend: " + backend);
+        }
+        return store;
+    }
+
+    // The tiers chosen by app.idempotency.store.tiers and .fallback
+    public TieredIdempotencyStore getActiveStore() {
+        return activeStore;
+    }
+}
@@ -0,0 +1,42 @@
+package com.wallet.core.factory;
+
+import com.wallet.common.enums.WalletConcurrencyMode;
+import com.wallet.common.exception.WalletBusinessException;
+import com.wallet.core.strategy.WalletConcurrencyStrategy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+public class WalletConcurrencyStrategyFactory {
+
+    private final Map<WalletConcurrencyMode, WalletConcurrencyStrategy> strategies;
+    private final WalletConcurrencyStrategy activeStrategy;
+
+    public WalletConcurrencyStrategyFactory(List<WalletConcurrencyStrategy> strategyList,
+                                            @Value("${app.ledger.concurrency-mode:OPTIMISTIC}") WalletConcurrencyMode activeMode) {
+        this.strategies = strategyList.stream()
+                .collect(Collectors.toMap(WalletConcurrencyStrategy::getSupportedMode, Function.identity()));
+        this.activeStrategy = getStrategy(activeMode);
+        log.info("Wallet reads for update use the {} concurrency strategy", activeMode);
+    }
+
+    public WalletConcurrencyStrategy getStrategy(WalletConcurrencyMode mode) {
+        WalletConcurrencyStrategy strategy = strategies.get(mode);
+        if (strategy == null) {
+            throw new WalletBusinessException("Unsupported wallet concurrency mode: " + mode);
+        }
+        return strategy;
+    }
+
+    // The mode chosen by app.ledger.concurrency-mode
+    public WalletConcurrencyStrategy getActiveStrategy() {
+        return activeStrategy;
+    }
+}
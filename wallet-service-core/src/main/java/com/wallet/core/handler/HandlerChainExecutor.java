@@ -0,0 +1,216 @@
+package com.wallet.core.handler;
+
+import com.wallet.common.dto.BatchTransferItemResultDTO;
+import com.wallet.common.exception.WalletBusinessException;
+import com.wallet.common.exception.WalletConcurrencyException;
+import com.wallet.core.annotation.RetryOnConflict;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.ClassUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the handler chain as one database transaction. Kept apart from the facade so
+ * that anything the facade wraps around it (execution lanes, remote lookups) stays
+ * outside the transaction.
+ * <p>
+ * Every handler and the chain as a whole are timed into {@code wallet.handler.duration}
+ * and {@code wallet.handler.chain.duration}, tagged by outcome. The timers are registered
+ * up front, so the hot path is two {@code nanoTime} calls and a map lookup per handler.
+ */
+@Slf4j
+@Component
+public class HandlerChainExecutor {
+
+    private static final String CHAIN = "chain";
+
+    private final List<TransactionHandler> handlerChain;
+    private final LedgerBatchWriter ledgerBatchWriter;
+
+    // Handler name (or CHAIN) -> outcome -> timer
+    private final Map<String, Map<Outcome, Timer>> timers = new HashMap<>();
+
+    public HandlerChainExecutor(List<TransactionHandler> handlerChain,
+                                LedgerBatchWriter ledgerBatchWriter,
+                                MeterRegistry meterRegistry) {
+        this.handlerChain = handlerChain;
+        this.ledgerBatchWriter = ledgerBatchWriter;
+
+        for (TransactionHandler handler : handlerChain) {
+            timers.put(nameOf(handler), registerTimers(meterRegistry, "wallet.handler.duration", nameOf(handler)));
+        }
+        timers.put(CHAIN, registerTimers(meterRegistry, "wallet.handler.chain.duration", null));
+    }
+
+    @RetryOnConflict
+    @Transactional
+    public void execute(TransactionContext context) {
+        runHandlerChain(context);
+    }
+
+    /**
+     * Runs every context through the chain against one shared {@link LedgerBatch} and
+     * flushes the staged writes at the end. Results are returned in the same order as
+     * the contexts. A conflict at flush time re-runs the whole batch from fresh reads.
+     */
+    @RetryOnConflict
+    @Transactional
+    public List<BatchTransferItemResultDTO> executeBatch(List<TransactionContext> contexts) {
+        Map<Integer, RuntimeException> rejections = runStaged(contexts);
+        List<BatchTransferItemResultDTO> results = new ArrayList<>(contexts.size());
+
+        for (int index = 0; index < contexts.size(); index++) {
+            TransactionContext context = contexts.get(index);
+            RuntimeException rejection = rejections.get(index);
+            if (rejection != null) {
+                results.add(BatchTransferItemResultDTO.failed(index, context.getRequest(), rejection.getMessage()));
+            } else if (context.isOnHold()) {
+                results.add(BatchTransferItemResultDTO.pending(index, context.getTransactionId(), context.getRequest()));
+            } else {
+                results.add(BatchTransferItemResultDTO.completed(index, context.getTransactionId(), context.getRequest()));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Same as {@link #executeBatch} for independent transfers grouped into one commit.
+     * Returns the business rejection of each item that failed, keyed by its index, so
+     * every caller gets back the exception it would have seen on its own.
+     */
+    @RetryOnConflict
+    @Transactional
+    public Map<Integer, RuntimeException> executeGroup(List<TransactionContext> contexts) {
+        return runStaged(contexts);
+    }
+
+    // Business rejections only affect their own item: nothing is written until the flush,
+    // so a rejected item simply leaves nothing staged and needs no savepoint to undo
+    private Map<Integer, RuntimeException> runStaged(List<TransactionContext> contexts) {
+        Set<String> walletIds = new LinkedHashSet<>();
+        contexts.forEach(context -> {
+            walletIds.add(context.getRequest().fromWalletId());
+            walletIds.add(context.getRequest().toWalletId());
+        });
+        LedgerBatch ledgerBatch = ledgerBatchWriter.open(walletIds);
+        Map<Integer, RuntimeException> rejections = new HashMap<>();
+
+        for (int index = 0; index < contexts.size(); index++) {
+            TransactionContext context = contexts.get(index);
+            context.setLedgerBatch(ledgerBatch);
+
+            // A grouped transfer logs under its own caller's request ID, not the committer's
+            Map<String, String> previousLogContext = MDC.getCopyOfContextMap();
+            if (context.getLogContext() != null) {
+                MDC.setContextMap(context.getLogContext());
+            }
+            try {
+                runHandlerChain(context);
+            } catch (WalletBusinessException e) {
+                // Anything else is a bug, not a rejection: it propagates and rolls the whole batch back
+                log.warn("Batch item {} rejected: {}", index, e.getMessage());
+                rejections.put(index, e);
+            } finally {
+                restoreLogContext(previousLogContext);
+            }
+        }
+
+        // Write all staged wallet updates, journal entries and outbox events with multi-row statements
+        ledgerBatchWriter.flush(ledgerBatch);
+
+        return rejections;
+    }
+
+    private void runHandlerChain(TransactionContext context) {
+        long chainStart = System.nanoTime();
+        Outcome chainOutcome = Outcome.SUCCESS;
+
+        try {
+            for (TransactionHandler handler : handlerChain) {
+                String name = nameOf(handler);
+                log.debug("Executing: {}", name);
+                long start = System.nanoTime();
+                Outcome outcome = Outcome.SUCCESS;
+
+                try {
+                    handler.process(context);
+                } catch (RuntimeException e) {
+                    outcome = Outcome.of(e);
+                    throw e;
+                } finally {
+                    timers.get(name).get(outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            }
+        } catch (RuntimeException e) {
+            chainOutcome = Outcome.of(e);
+            throw e;
+        } finally {
+            timers.get(CHAIN).get(chainOutcome).record(System.nanoTime() - chainStart, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static void restoreLogContext(Map<String, String> logContext) {
+        if (logContext == null) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(logContext);
+        }
+    }
+
+    private static Map<Outcome, Timer> registerTimers(MeterRegistry meterRegistry, String metricName, String handler) {
+        Map<Outcome, Timer> byOutcome = new EnumMap<>(Outcome.class);
+        for (Outcome outcome : Outcome.values()) {
+            Timer.Builder builder = Timer.builder(metricName)
+                    .tag("outcome", outcome.tag)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofSeconds(5));
+            if (handler != null) {
+                builder.tag("handler", handler);
+            }
+            byOutcome.put(outcome, builder.register(meterRegistry));
+        }
+        return byOutcome;
+    }
+
+    private static String nameOf(TransactionHandler handler) {
+        return ClassUtils.getUserClass(handler).getSimpleName();
+    }
+
+    private enum Outcome {
+        SUCCESS("success"),
+        REJECTED("rejected"), // Business rule said no: insufficient funds, limits, unknown wallet
+        CONFLICT("conflict"), // Lost a race on a wallet version, the retry aspect may still recover it
+        ERROR("error");
+
+        private final String tag;
+
+        Outcome(String tag) {
+            this.tag = tag;
+        }
+
+        static Outcome of(RuntimeException e) {
+            if (e instanceof WalletConcurrencyException || e instanceof ConcurrencyFailureException) {
+                return CONFLICT;
+            }
+            if (e instanceof WalletBusinessException) {
+                return REJECTED;
+            }
+            return ERROR;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.wallet.core.handler;
+
+import com.wallet.core.entity.Hold;
+import com.wallet.core.entity.JournalEntry;
+import com.wallet.core.entity.OutboxEvent;
+import com.wallet.core.entity.TransactionRequest;
+import com.wallet.core.entity.Wallet;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Collects the ledger writes of many transfers so they can be flushed together
+ * by {@link LedgerBatchWriter} at the end of a single database transaction.
+ * <p>
+ * Wallets are loaded once and kept as working copies: every staged transfer moves
+ * the working balance, so later items in the batch validate against the funds
+ * left behind by earlier ones. The working copies keep the version they were read
+ * at, which is what the final optimistic-lock update checks against. Split wallets
+ * are not written through their wallets row; their net change is collected separately
+ * and applied to their shards.
+ * <p>
+ * In hold settlement mode a transfer only stages a hold: the working copy of the sender
+ * reserves the amount, so later items see it as spent, and the total per sender is placed
+ * on its wallets row at flush.
+ */
+public class LedgerBatch {
+
+    private final Function<String, Optional<Wallet>> walletLoader;
+
+    private final Map<String, Wallet> wallets = new HashMap<>();
+    private final Set<String> touchedWalletIds = new LinkedHashSet<>();
+    private final Map<String, BigDecimal> shardedWalletDeltas = new LinkedHashMap<>();
+    private final List<TransactionRequest> transactionRequests = new ArrayList<>();
+    private final List<JournalEntry> journalEntries = new ArrayList<>();
+    private final List<OutboxEvent> outboxEvents = new ArrayList<>();
+    private final Map<String, BigDecimal> heldWalletDeltas = new TreeMap<>();
+    private final List<Hold> holds = new ArrayList<>();
+
+    public LedgerBatch(Function<String, Optional<Wallet>> walletLoader) {
+        this.walletLoader = walletLoader;
+    }
+
+    public Optional<Wallet> findWallet(String walletId) {
+        Wallet cached = wallets.get(walletId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<Wallet> loaded = walletLoader.apply(walletId);
+        loaded.ifPresent(wallet -> wallets.put(walletId, wallet));
+        return loaded;
+    }
+
+    public void stageTransfer(String senderId, String receiverId, BigDecimal amount,
+                              TransactionRequest request, List<JournalEntry> legs, OutboxEvent event) {
+        adjustBalance(senderId, amount.negate());
+        adjustBalance(receiverId, amount);
+
+        transactionRequests.add(request);
+        journalEntries.addAll(legs);
+        outboxEvents.add(event);
+    }
+
+    public void stageHold(Hold hold) {
+        Wallet w = findWallet(hold.fromWalletId())
+                .orElseThrow(() -> new IllegalStateException("Wallet " + hold.fromWalletId() + " was not loaded into the batch"));
+
+        wallets.put(w.id(), new Wallet(w.id(), w.userId(), w.balance(), w.currency(), w.status(), w.version(),
+                w.createdAt(), w.updatedAt(), w.shardCount(), w.heldBalance().add(hold.amount())));
+        heldWalletDeltas.merge(w.id(), hold.amount(), BigDecimal::add);
+        holds.add(hold);
+    }
+
+    public boolean isEmpty() {
+        return transactionRequests.isEmpty() && holds.isEmpty();
+    }
+
+    // Working copies carry the new balance and the version they were originally read at
+    public List<Wallet> getUpdatedWallets() {
+        return touchedWalletIds.stream().map(wallets::get).filter(wallet -> !wallet.isSharded()).toList();
+    }
+
+    // Net change per split wallet, positive is a credit
+    public Map<String, BigDecimal> getShardedWalletDeltas() {
+        return shardedWalletDeltas;
+    }
+
+    // Amount to reserve per sender, in wallet ID order
+    public Map<String, BigDecimal> getHeldWalletDeltas() {
+        return heldWalletDeltas;
+    }
+
+    public List<Hold> getHolds() {
+        return holds;
+    }
+
+    public List<TransactionRequest> getTransactionRequests() {
+        return transactionRequests;
+    }
+
+    public List<JournalEntry> getJournalEntries() {
+        return journalEntries;
+    }
+
+    public List<OutboxEvent> getOutboxEvents() {
+        return outboxEvents;
+    }
+
+    private void adjustBalance(String walletId, BigDecimal delta) {
+        Wallet w = findWallet(walletId)
+                .orElseThrow(() -> new IllegalStateException("Wallet " + walletId + " was not loaded into the batch"));
+
+        wallets.put(walletId, new Wallet(w.id(), w.userId(), w.balance().add(delta), w.currency(), w.status(),
+                w.version(), w.createdAt(), w.updatedAt(), w.shardCount(), w.heldBalance()));
+        touchedWalletIds.add(walletId);
+        if (w.isSharded()) {
+            shardedWalletDeltas.merge(walletId, delta, BigDecimal::add);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.wallet.core.handler;
+
+import com.wallet.common.exception.WalletBusinessException;
+import com.wallet.common.exception.WalletConcurrencyException;
+import com.wallet.core.entity.Wallet;
+import com.wallet.core.factory.WalletConcurrencyStrategyFactory;
+import com.wallet.core.mapper.WalletMapper;
+import com.wallet.core.service.WalletShardService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LedgerBatchWriter {
+
+    // Keeps every multi-row statement well below the 65535 bind-parameter limit of the Postgres protocol
+    static final int ROWS_PER_STATEMENT = 500;
+
+    private final WalletMapper walletMapper;
+    private final WalletConcurrencyStrategyFactory walletConcurrencyStrategyFactory;
+    private final WalletShardService walletShardService;
+
+    /**
+     * Starts a batch over the given wallets. They are all read up front through the active
+     * concurrency strategy, so locks (if any) are taken once, in wallet ID order, and held
+     * until the batch transaction ends.
+     */
+    public LedgerBatch open(Collection<String> walletIds) {
+        Map<String, Wallet> wallets = walletConcurrencyStrategyFactory.getActiveStrategy().loadForUpdate(walletIds);
+        return new LedgerBatch(walletId -> Optional.ofNullable(wallets.get(walletId)));
+    }
+
+    /**
+     * Writes everything staged in the batch using multi-row statements. Must be called
+     * inside the same transaction that validated the batch.
+     */
+    public void flush(LedgerBatch batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        // 1. One optimistic-lock update per chunk of wallets, all-or-nothing
+        for (List<Wallet> chunk : chunks(batch.getUpdatedWallets())) {
+            int updated = walletMapper.updateWalletBalances(chunk);
+            if (updated != chunk.size()) {
+                throw new WalletConcurrencyException("Concurrency error: Wallet state changed during batch transfer.");
+            }
+        }
+
+        // 1.1. Split wallets get their net change applied to their shards. Their shards are not locked
+        // by the batch, so a split sender's debit re-checks its funds less pending holds; if they were
+        // spent meanwhile, the retry re-validates the batch from fresh reads.
+        batch.getShardedWalletDeltas().forEach((walletId, delta) -> {
+            Wallet wallet = batch.findWallet(walletId).orElseThrow();
+            if (delta.signum() > 0) {
+                walletShardService.credit(wallet, delta);
+            } else if (delta.signum() < 0) {
+                debitShards(wallet, delta.negate());
+            }
+        });
+
+        // 1.2. Hold settlement mode: reserve each sender's total with the same guarded update a single
+        // transfer uses. It fails if the funds were spent since the batch read them (a split wallet's
+        // shards are not locked by the batch), and the retry then re-validates from fresh reads.
+        batch.getHeldWalletDeltas().forEach((walletId, amount) -> {
+            if (batch.findWallet(walletId).orElseThrow().isSharded()) {
+                walletShardService.lockForHold(walletId);
+            }
+            if (walletMapper.placeHold(walletId, amount).isEmpty()) {
+                throw new WalletConcurrencyException("Concurrency error: Wallet state changed during batch transfer.");
+            }
+        });
+        forEachChunk(batch.getHolds(), walletMapper::insertHolds);
+
+        // 2. Transaction requests first, the journal references them
+        forEachChunk(batch.getTransactionRequests(), walletMapper::insertTransactionRequests);
+        forEachChunk(batch.getJournalEntries(), walletMapper::insertJournalEntries);
+        forEachChunk(batch.getOutboxEvents(), walletMapper::insertOutboxEvents);
+
+        log.info("Flushed ledger batch: {} wallets, {} transactions, {} journal entries, {} holds",
+                batch.getUpdatedWallets().size(), batch.getTransactionRequests().size(), batch.getJournalEntries().size(),
+                batch.getHolds().size());
+    }
+
+    private void debitShards(Wallet wallet, BigDecimal amount) {
+        try {
+            walletShardService.debit(wallet, amount);
+        } catch (WalletConcurrencyException e) {
+            throw e;
+        } catch (WalletBusinessException e) {
+            throw new WalletConcurrencyException("Concurrency error: Wallet state changed during batch transfer.");
+        }
+    }
+
+    private static <T> void forEachChunk(List<T> rows, Consumer<List<T>> writer) {
+        chunks(rows).forEach(writer);
+    }
+
+    private static <T> List<List<T>> chunks(List<T> rows) {
+        int count = (rows.size() + ROWS_PER_STATEMENT - 1) / ROWS_PER_STATEMENT;
+        return IntStream.range(0, count)
+                .mapToObj(i -> rows.subList(i * ROWS_PER_STATEMENT, Math.min(rows.size(), (i + 1) * ROWS_PER_STATEMENT)))
+                .toList();
+    }
+}
@@ -4,20 +4,28 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.wallet.common.dto.TransferEventDTO;
 import com.wallet.common.exception.WalletBusinessException;
+import com.wallet.common.enums.SettlementMode;
 import com.wallet.common.enums.TransactionType;
 import com.wallet.common.enums.TransactionStatus;
 import com.wallet.core.entity.JournalEntry;
 import com.wallet.core.entity.OutboxEvent;
 import com.wallet.core.entity.TransactionRequest;
 import com.wallet.core.entity.Wallet;
+import com.wallet.core.factory.BalanceUpdateStrategyFactory;
 import com.wallet.core.mapper.WalletMapper;
+import com.wallet.core.service.HoldService;
+import com.wallet.core.service.HoldSettler;
+import com.wallet.core.service.WalletShardService;
+import com.wallet.core.strategy.BalanceUpdateStrategy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Slf4j
 @Component
@@ -27,38 +35,126 @@ public class LedgerUpdateHandler implements TransactionHandler {
 
     private final WalletMapper walletMapper;
     private final ObjectMapper objectMapper;
+    private final BalanceUpdateStrategyFactory balanceUpdateStrategyFactory;
+    private final WalletShardService walletShardService;
+    private final HoldService holdService;
+    private final HoldSettler holdSettler;
+
+    @Value("${app.transfer.settlement.mode:IMMEDIATE}")
+    private SettlementMode settlementMode;
 
     @Override
     public void process(TransactionContext context) {
         log.info("Step 3: Updating ledger and Outbox for transaction: {}", context.getTransactionId());
 
+        // Batch and group-commit transfers stage their writes, in the same settlement mode as single ones
+        if (context.getLedgerBatch() != null) {
+            if (settlementMode == SettlementMode.HOLD) {
+                stageHold(context);
+            } else {
+                stageInBatch(context);
+            }
+            return;
+        }
+
+        if (settlementMode == SettlementMode.HOLD) {
+            placeHold(context);
+            return;
+        }
+
+        Wallet sender = context.getSenderWallet();
+        Wallet receiver = context.getReceiverWallet();
+        BigDecimal amount = context.getRequest().amount();
+
+        // 1 & 2. Balance updates through the configured strategy (optimistic or atomic), split wallets
+        // through their shards. Rows are always locked in wallet ID order so A->B and B->A cannot deadlock.
+        BalanceUpdateStrategy strategy = balanceUpdateStrategyFactory.getActiveStrategy();
+        if (sender.id().compareTo(receiver.id()) < 0) {
+            context.setSenderNewBalance(debit(strategy, sender, amount));
+            credit(strategy, receiver, amount);
+        } else {
+            credit(strategy, receiver, amount);
+            context.setSenderNewBalance(debit(strategy, sender, amount));
+        }
+
+        // 3 & 4. Transaction request (FK parent), both journal legs and the outbox event, one round trip
+        OutboxEvent outboxEvent = buildOutboxEvent(context, sender, receiver, amount);
+        walletMapper.insertLedgerRecords(buildTransactionRequest(context, amount),
+                buildLegs(context, sender, receiver, amount), outboxEvent);
+        log.info("Outbox event created for {}", context.getTransactionId());
+    }
+
+    private BigDecimal debit(BalanceUpdateStrategy strategy, Wallet sender, BigDecimal amount) {
+        return sender.isSharded() ? walletShardService.debit(sender, amount) : strategy.debit(sender, amount);
+    }
+
+    private void credit(BalanceUpdateStrategy strategy, Wallet receiver, BigDecimal amount) {
+        if (receiver.isSharded()) {
+            walletShardService.credit(receiver, amount);
+        } else {
+            strategy.credit(receiver, amount);
+        }
+    }
+
+    // Hold mode: only the sender row is written now, HoldSettler moves the money and writes the ledger later
+    private void placeHold(TransactionContext context) {
+        context.setSenderNewBalance(holdService.place(context.getTransactionId(), context.getRequestId(),
+                context.getSenderWallet(), context.getReceiverWallet().id(), context.getRequest().amount()));
+        context.setOnHold(true);
+
+        // Tracked before commit; if the transfer rolls back there is no pending hold left to release
+        holdSettler.trackExpiry(context.getTransactionId());
+        log.info("Hold placed for {}, settlement pending", context.getTransactionId());
+    }
+
+    // Batch mode with hold settlement: the hold is placed and written later by LedgerBatchWriter
+    private void stageHold(TransactionContext context) {
+        Wallet sender = context.getSenderWallet();
+        BigDecimal amount = context.getRequest().amount();
+
+        context.getLedgerBatch().stageHold(holdService.newHold(context.getTransactionId(), context.getRequestId(),
+                context.getBatchIndex(), sender.id(), context.getReceiverWallet().id(), amount));
+        context.setSenderNewBalance(sender.availableBalance().subtract(amount));
+        context.setOnHold(true);
+
+        // Same as a single hold: if the batch rolls back there is no pending hold left to release
+        holdSettler.trackExpiry(context.getTransactionId());
+    }
+
+    // Batch mode: the same records are built, but they are written later by LedgerBatchWriter
+    private void stageInBatch(TransactionContext context) {
         Wallet sender = context.getSenderWallet();
         Wallet receiver = context.getReceiverWallet();
         BigDecimal amount = context.getRequest().amount();
 
-        // 1 & 2. Optimistic Locking Updates
-        int senderUpdated = walletMapper.updateWalletBalance(sender.id(), sender.balance().subtract(amount), sender.version());
-        if (senderUpdated == 0) throw new WalletBusinessException("Concurrency error: Sender wallet state changed.");
+        // Build the outbox event first so a serialization failure leaves nothing staged for this item
+        OutboxEvent outboxEvent = buildOutboxEvent(context, sender, receiver, amount);
+
+        context.getLedgerBatch().stageTransfer(sender.id(), receiver.id(), amount,
+                buildTransactionRequest(context, amount), buildLegs(context, sender, receiver, amount), outboxEvent);
+    }
 
-        int receiverUpdated = walletMapper.updateWalletBalance(receiver.id(), receiver.balance().add(amount), receiver.version());
-        if (receiverUpdated == 0) throw new WalletBusinessException("Concurrency error: Receiver wallet state changed.");
+    // Immutable double-entry legs: DEBIT the sender, CREDIT the receiver
+    private List<JournalEntry> buildLegs(TransactionContext context, Wallet sender, Wallet receiver, BigDecimal amount) {
+        return List.of(
+                new JournalEntry(null, context.getTransactionId(), sender.id(), "DEBIT", amount, LocalDateTime.now()),
+                new JournalEntry(null, context.getTransactionId(), receiver.id(), "CREDIT", amount, LocalDateTime.now())
+        );
+    }
 
-        // ---> THE FIX: Insert the TransactionRequest to satisfy the Foreign Key constraint! <---
-        TransactionRequest txnRequest = new TransactionRequest(
+    private TransactionRequest buildTransactionRequest(TransactionContext context, BigDecimal amount) {
+        return new TransactionRequest(
                 context.getTransactionId(),
                 context.getRequestId(),
                 TransactionType.TRANSFER.name(),
                 TransactionStatus.SUCCESS.name(),
                 amount,
-                LocalDateTime.now()
+                LocalDateTime.now(),
+                context.getBatchIndex()
         );
-        walletMapper.insertTransactionRequest(txnRequest);
-
-        // 3. Insert Immutable Journal Entries
-        walletMapper.insertJournalEntry(new JournalEntry(null, context.getTransactionId(), sender.id(), "DEBIT", amount, LocalDateTime.now()));
-        walletMapper.insertJournalEntry(new JournalEntry(null, context.getTransactionId(), receiver.id(), "CREDIT", amount, LocalDateTime.now()));
+    }
 
-        // 4. THE OUTBOX PATTERN
+    private OutboxEvent buildOutboxEvent(TransactionContext context, Wallet sender, Wallet receiver, BigDecimal amount) {
         try {
             TransferEventDTO eventDto = new TransferEventDTO(
                     context.getTransactionId(),
@@ -69,10 +165,7 @@ public class LedgerUpdateHandler implements TransactionHandler {
             );
             String jsonPayload = objectMapper.writeValueAsString(eventDto);
 
-            OutboxEvent outboxEvent = new OutboxEvent(null, "transfer-events", jsonPayload, "PENDING", LocalDateTime.now());
-            walletMapper.insertOutboxEvent(outboxEvent);
-
-            log.info("Outbox event created for {}", context.getTransactionId());
+            return new OutboxEvent(null, "transfer-events", jsonPayload, "PENDING", LocalDateTime.now());
 
         } catch (JsonProcessingException e) {
             log.error("Failed to serialize outbox event", e);
@@ -1,5 +1,6 @@
 package com.wallet.core.handler;
 
+import com.wallet.common.exception.WalletBusinessException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.annotation.Order;
@@ -23,7 +24,7 @@ public class LimitCheckHandler implements TransactionHandler {
 
         if (amount.compareTo(maxTransferLimit) > 0) {
             log.warn("Transfer amount {} exceeds maximum limit {}", amount, maxTransferLimit);
-            throw new IllegalStateException("Transfer amount exceeds the maximum allowed limit");
+            throw new WalletBusinessException("Transfer amount exceeds the maximum allowed limit");
         }
 
         // You could add logic here to check the DB for total transfers in the last 24 hours.
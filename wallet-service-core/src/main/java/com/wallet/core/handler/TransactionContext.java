@@ -5,6 +5,9 @@ import com.wallet.core.entity.Wallet;
 import lombok.Builder;
 import lombok.Data;
 
+import java.math.BigDecimal;
+import java.util.Map;
+
 @Data
 @Builder
 public class TransactionContext {
@@ -12,7 +15,22 @@ public class TransactionContext {
     private String transactionId;
     private String clientId;
     private TransferRequestDTO request;
+
+    // Position in a batch transfer, which shares the batch's request ID; null for a single transfer
+    private Integer batchIndex;
     private Wallet senderWallet;
     private Wallet receiverWallet;
     private String senderUsername;
+
+    // Sender balance as written by the ledger update, the wallet read during validation may be stale
+    private BigDecimal senderNewBalance;
+
+    // Set when the ledger update only placed a hold (hold settlement mode), the money moves when it settles
+    private boolean onHold;
+
+    // Set only for batch transfers: wallet reads and ledger writes go through the batch instead of the DB
+    private LedgerBatch ledgerBatch;
+
+    // Caller's MDC, set only when the chain runs on another thread (group commit) so its logs keep the request ID
+    private Map<String, String> logContext;
 }
\ No newline at end of file
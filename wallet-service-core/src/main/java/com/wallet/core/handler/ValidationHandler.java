@@ -3,13 +3,17 @@ package com.wallet.core.handler;
 import com.wallet.common.dto.TransferRequestDTO;
 import com.wallet.common.exception.WalletBusinessException;
 import com.wallet.core.entity.Wallet;
-import com.wallet.core.mapper.WalletMapper;
+import com.wallet.core.factory.WalletConcurrencyStrategyFactory;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Slf4j
 @Component
@@ -17,7 +21,7 @@ import java.math.BigDecimal;
 @RequiredArgsConstructor
 public class ValidationHandler implements TransactionHandler {
 
-    private final WalletMapper walletMapper; // Changed to MyBatis Mapper
+    private final WalletConcurrencyStrategyFactory walletConcurrencyStrategyFactory;
 
     @Override
     public void process(TransactionContext context) {
@@ -32,21 +36,39 @@ public class ValidationHandler implements TransactionHandler {
             throw new WalletBusinessException("Cannot transfer funds to the same wallet");
         }
 
-        Wallet sender = walletMapper.findWalletById(request.fromWalletId())
+        // Both wallets are read (and locked, depending on the concurrency mode) in one go
+        Map<String, Wallet> wallets = loadWallets(context, request);
+
+        Wallet sender = Optional.ofNullable(wallets.get(request.fromWalletId()))
                 .orElseThrow(() -> new WalletBusinessException("Sender wallet not found"));
 
         if (!sender.userId().equals(context.getClientId())) {
             throw new WalletBusinessException("Unauthorized: You cannot transfer funds from a wallet you do not own.");
         }
 
-        Wallet receiver = walletMapper.findWalletById(request.toWalletId())
+        Wallet receiver = Optional.ofNullable(wallets.get(request.toWalletId()))
                 .orElseThrow(() -> new WalletBusinessException("Receiver wallet not found"));
 
-        if (sender.balance().compareTo(request.amount()) < 0) {
+        // Funds reserved by pending holds cannot be spent twice
+        if (sender.availableBalance().compareTo(request.amount()) < 0) {
             throw new WalletBusinessException("Insufficient funds");
         }
 
         context.setSenderWallet(sender);
         context.setReceiverWallet(receiver);
     }
+
+    // Batch transfers validate against the working balances left by earlier items in the batch
+    private Map<String, Wallet> loadWallets(TransactionContext context, TransferRequestDTO request) {
+        LedgerBatch batch = context.getLedgerBatch();
+        if (batch == null) {
+            return walletConcurrencyStrategyFactory.getActiveStrategy()
+                    .loadForUpdate(List.of(request.fromWalletId(), request.toWalletId()));
+        }
+
+        Map<String, Wallet> wallets = new HashMap<>();
+        batch.findWallet(request.fromWalletId()).ifPresent(w -> wallets.put(w.id(), w));
+        batch.findWallet(request.toWalletId()).ifPresent(w -> wallets.put(w.id(), w));
+        return wallets;
+    }
 }
\ No newline at end of file
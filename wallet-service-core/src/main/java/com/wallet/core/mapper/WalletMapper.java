@@ -1,9 +1,20 @@
 package com.wallet.core.mapper;
 
+import com.wallet.core.entity.BalanceCheckpoint;
+import com.wallet.core.entity.Hold;
 import com.wallet.core.entity.Wallet;
+import com.wallet.core.entity.WalletBalanceMovement;
+import com.wallet.core.entity.WalletBalanceShard;
 import com.wallet.core.entity.TransactionRequest;
+import com.wallet.common.enums.JournalEntryType;
 import com.wallet.core.entity.JournalEntry;
+import com.wallet.core.entity.JournalEntryCursor;
+import com.wallet.core.entity.JournalPartition;
 import com.wallet.core.entity.OutboxEvent;
+import com.wallet.core.entity.ReconciliationDiscrepancy;
+import com.wallet.core.entity.TransferLegCheck;
+import com.wallet.core.entity.WalletBalanceCheck;
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
@@ -18,6 +29,13 @@ public interface WalletMapper {
     Optional<Wallet> findWalletByUserId(@Param("userId") String userId);
     Optional<Wallet> findWalletById(@Param("id") String id);
 
+    // One round trip for every wallet a transfer or batch touches. Missing IDs are simply not returned.
+    java.util.List<Wallet> findWalletsByIds(@Param("ids") java.util.Collection<String> ids);
+
+    // Locking reads used by the pessimistic and advisory concurrency strategies
+    java.util.List<Wallet> findWalletsByIdsForUpdate(@Param("ids") java.util.Collection<String> ids);
+    int acquireWalletAdvisoryLock(@Param("walletId") String walletId);
+
     // The Critical update method with optimistic locking
 // The Critical Optimistic Locking Update
     int updateWalletBalance(
@@ -26,16 +44,117 @@ public interface WalletMapper {
             @Param("oldVersion") Integer oldVersion
     );
 
+    // Atomic variants: the new balance is computed in SQL and returned, empty means the guard rejected it
+    // (debit: insufficient funds, credit: wallet missing)
+    Optional<BigDecimal> debitWalletBalance(@Param("walletId") String walletId, @Param("amount") BigDecimal amount);
+    Optional<BigDecimal> creditWalletBalance(@Param("walletId") String walletId, @Param("amount") BigDecimal amount);
+
+    // Batch variant: each wallet carries its new balance and the version it was read at.
+    // Returns the number of wallets updated, anything short of wallets.size() is a conflict.
+    int updateWalletBalances(@Param("wallets") java.util.List<Wallet> wallets);
+
+    // Split wallets: shard rows carry the balance, the wallets row only the shard count
+    int markWalletSharded(@Param("walletId") String walletId, @Param("shardCount") int shardCount,
+                          @Param("oldVersion") Integer oldVersion);
+    void insertBalanceShards(@Param("walletId") String walletId, @Param("balances") java.util.List<BigDecimal> balances);
+    int creditBalanceShard(@Param("walletId") String walletId, @Param("shardNo") int shardNo,
+                           @Param("amount") BigDecimal amount);
+    Optional<Integer> debitAnyBalanceShard(@Param("walletId") String walletId, @Param("amount") BigDecimal amount);
+    java.util.List<WalletBalanceShard> findBalanceShardsForUpdate(@Param("walletId") String walletId);
+    void updateBalanceShard(@Param("walletId") String walletId, @Param("shardNo") int shardNo,
+                            @Param("balance") BigDecimal balance);
+    java.util.List<String> findShardedWalletIds();
+
+    // Hold settlement mode: placeHold reserves funds on the sender and returns its new available balance,
+    // empty means the available balance could not cover the amount
+    Optional<BigDecimal> placeHold(@Param("walletId") String walletId, @Param("amount") BigDecimal amount);
+    void insertHold(Hold hold);
+    void insertHolds(@Param("holds") java.util.List<Hold> holds);
+    java.util.List<Hold> findPendingHoldsForUpdate(@Param("limit") int limit);
+    java.util.List<String> findExpiredHoldIds(@Param("limit") int limit);
+    void markHoldsSettled(@Param("ids") java.util.Collection<String> ids);
+    java.util.List<Hold> releaseHolds(@Param("ids") java.util.Collection<String> ids);
+    int applyBalanceMovements(@Param("movements") java.util.List<WalletBalanceMovement> movements);
+
     // 2. Idempotency Queries
     void insertTransactionRequest(TransactionRequest request);
     Optional<TransactionRequest> findTransactionByRequestId(@Param("requestId") String request);
+    // Whether a transfer, top-up, hold or any item of a batch was already written under this request ID
+    boolean existsRequest(@Param("requestId") String requestId);
+    void insertTransactionRequests(@Param("requests") java.util.List<TransactionRequest> requests);
 
     // 3. Ledger Queries
     void insertJournalEntry(JournalEntry entry);
-    java.util.List<JournalEntry> findJournalEntriesByWalletId(@Param("walletId") String walletId);
+    void insertJournalEntries(@Param("entries") java.util.List<JournalEntry> entries);
+    // One history page, newest first, continuing after the cursor. Every bound is optional; a from bound
+    // lets Postgres skip the partitions before it.
+    java.util.List<JournalEntry> findJournalEntriesByWalletId(@Param("walletId") String walletId,
+                                                              @Param("from") java.time.LocalDateTime from,
+                                                              @Param("to") java.time.LocalDateTime to,
+                                                              @Param("type") JournalEntryType type,
+                                                              @Param("before") JournalEntryCursor before,
+                                                              @Param("limit") int limit);
+    // Every entry in [from, to), oldest first, fetched from the server in batches as the cursor is read.
+    // Only streams inside a transaction; outside one the driver loads the whole result at once.
+    Cursor<JournalEntry> streamJournalEntriesByWalletId(@Param("walletId") String walletId,
+                                                        @Param("from") java.time.LocalDateTime from,
+                                                        @Param("to") java.time.LocalDateTime to);
+    // Credits minus debits created in [from, to); a null from starts at the beginning of the ledger
+    BigDecimal sumJournalMovements(@Param("walletId") String walletId,
+                                   @Param("from") java.time.LocalDateTime from,
+                                   @Param("to") java.time.LocalDateTime to);
+
+    // Balance checkpoints
+    Optional<BalanceCheckpoint> findLatestBalanceCheckpoint(@Param("walletId") String walletId,
+                                                            @Param("at") java.time.LocalDateTime at);
+    // Newest midnight the checkpoint job has processed, even if no wallet moved that day
+    java.time.LocalDateTime findLastBalanceCheckpointRun();
+    void insertBalanceCheckpointRun(@Param("asOf") java.time.LocalDateTime asOf);
+    // Every journal entry created before this instant has committed (or rolled back)
+    java.time.LocalDateTime findCommitHorizon();
+    // Checkpoints at asOf for the wallets with entries since the previous boundary, or for every wallet when
+    // since is null. Each continues from that wallet's previous checkpoint.
+    int insertBalanceCheckpoints(@Param("since") java.time.LocalDateTime since,
+                                 @Param("asOf") java.time.LocalDateTime asOf);
+
+    // Reconciliation
+    // Every chunkSize-th wallet ID, the boundaries that split the wallets into chunks of that size
+    java.util.List<String> findWalletIdChunkBoundaries(@Param("chunkSize") int chunkSize);
+    // Wallets in [fromId, toId), either bound open when null; with since, only those that changed after it
+    Cursor<WalletBalanceCheck> streamWalletBalanceChecks(@Param("fromId") String fromId,
+                                                         @Param("toId") String toId,
+                                                         @Param("since") java.time.LocalDateTime since);
+    java.time.LocalDateTime findFirstTransferTime();
+    // TRANSFER requests created in [from, to) with their legs
+    Cursor<TransferLegCheck> streamTransferLegChecks(@Param("from") java.time.LocalDateTime from,
+                                                     @Param("to") java.time.LocalDateTime to);
+    // Id of the new RUNNING run; fails with a duplicate key while another run is RUNNING
+    long startReconciliationRun(@Param("mode") String mode,
+                                @Param("since") java.time.LocalDateTime since,
+                                @Param("watermark") java.time.LocalDateTime watermark);
+    int abandonReconciliationRuns(@Param("startedBefore") java.time.LocalDateTime startedBefore);
+    void finishReconciliationRun(@Param("id") long id,
+                                 @Param("status") String status,
+                                 @Param("walletsChecked") long walletsChecked,
+                                 @Param("transfersChecked") long transfersChecked,
+                                 @Param("discrepancies") long discrepancies);
+    java.time.LocalDateTime findLastReconciliationWatermark();
+    void insertReconciliationDiscrepancies(@Param("runId") long runId,
+                                           @Param("discrepancies") java.util.List<ReconciliationDiscrepancy> discrepancies);
+
+    // Transaction request, journal legs and outbox event of one transfer in a single statement
+    void insertLedgerRecords(@Param("request") TransactionRequest request,
+                             @Param("entries") java.util.List<JournalEntry> entries,
+                             @Param("event") OutboxEvent event);
 
     // 4. Outbox Queries
     void insertOutboxEvent(OutboxEvent event);
+    void insertOutboxEvents(@Param("events") java.util.List<OutboxEvent> events);
     java.util.List<OutboxEvent> findPendingOutboxEvents();
     void updateOutboxEventStatus(@Param("id") Long id, @Param("status") String status);
+
+    // 5. Ledger Partitions (journal_entries is range-partitioned by month on created_at)
+    java.util.List<JournalPartition> findJournalPartitions();
+    void createJournalPartition(@Param("name") String name, @Param("from") String from, @Param("to") String to);
+    void detachJournalPartition(@Param("name") String name);
 }
@@ -0,0 +1,191 @@
+package com.wallet.core.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Applies the versioned scripts in {@code db/migration} ({@code V<version>__<description>.sql})
+ * once each, in version order, when the application starts.
+ * <p>
+ * Applied versions are recorded in {@code schema_migrations} with a checksum of the script.
+ * Each script runs in its own transaction together with its record, so a failing script
+ * leaves nothing behind and is retried on the next start. A script that was edited after
+ * it was applied stops the startup: schema changes go into a new version instead.
+ * <p>
+ * Instances starting together serialize on a Postgres advisory lock, so each script runs once.
+ */
+@Slf4j
+@Component
+public class SchemaMigrator implements InitializingBean {
+
+    static final String LOCATION = "classpath:db/migration/*.sql";
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+    // Arbitrary, only has to differ from the other advisory lock keys this database sees
+    private static final long MIGRATION_LOCK = 0x5743_4D49_4752L;
+
+    private final DataSource dataSource;
+    private final boolean enabled;
+
+    public SchemaMigrator(DataSource dataSource,
+                          @Value("${app.schema.migrate:true}") boolean enabled) {
+        this.dataSource = dataSource;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws SQLException {
+        if (!enabled) {
+            log.info("Schema migrations are disabled (app.schema.migrate=false)");
+            return;
+        }
+        migrate();
+    }
+
+    // Returns the migrations this call applied
+    public List<Migration> migrate() throws SQLException {
+        List<Migration> migrations = discover(scripts());
+
+        try (Connection connection = dataSource.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SELECT pg_advisory_lock(" + MIGRATION_LOCK + ")");
+            }
+            try {
+                return applyPending(connection, migrations);
+            } finally {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SELECT pg_advisory_unlock(" + MIGRATION_LOCK + ")");
+                }
+            }
+        }
+    }
+
+    private List<Migration> applyPending(Connection connection, List<Migration> migrations) throws SQLException {
+        // 1. The history table is the one thing that cannot come from a migration
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    CREATE TABLE IF NOT EXISTS schema_migrations (
+                        version INT PRIMARY KEY,
+                        description VARCHAR(200) NOT NULL,
+                        checksum BIGINT NOT NULL,
+                        applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+                    )""");
+        }
+
+        // 2. What is applied already, and was it changed since
+        Map<Integer, Long> applied = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT version, checksum FROM schema_migrations")) {
+            while (rows.next()) {
+                applied.put(rows.getInt("version"), rows.getLong("checksum"));
+            }
+        }
+        for (Migration migration : migrations) {
+            Long checksum = applied.get(migration.version());
+            if (checksum != null && checksum != migration.checksum()) {
+                throw new IllegalStateException("Migration " + migration.script().getFilename()
+                        + " was changed after it was applied. Add a new version instead.");
+            }
+        }
+
+        // 3. Run the rest in order, each in one transaction with its history row
+        List<Migration> pending = migrations.stream().filter(m -> !applied.containsKey(m.version())).toList();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            for (Migration migration : pending) {
+                long start = System.nanoTime();
+                try {
+                    ScriptUtils.executeSqlScript(connection, new EncodedResource(migration.script(), StandardCharsets.UTF_8));
+                    try (PreparedStatement insert = connection.prepareStatement(
+                            "INSERT INTO schema_migrations (version, description, checksum) VALUES (?, ?, ?)")) {
+                        insert.setInt(1, migration.version());
+                        insert.setString(2, migration.description());
+                        insert.setLong(3, migration.checksum());
+                        insert.executeUpdate();
+                    }
+                    connection.commit();
+                } catch (RuntimeException | SQLException e) {
+                    connection.rollback();
+                    throw new IllegalStateException("Migration " + migration.script().getFilename() + " failed", e);
+                }
+                log.info("Applied schema migration V{} ({}) in {} ms", migration.version(), migration.description(),
+                        (System.nanoTime() - start) / 1_000_000);
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+
+        log.info("Schema is at V{}, {} migration(s) applied now",
+                migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).version(), pending.size());
+        return pending;
+    }
+
+    private static Resource[] scripts() {
+        try {
+            return new PathMatchingResourcePatternResolver().getResources(LOCATION);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list " + LOCATION, e);
+        }
+    }
+
+    // Scripts sorted by version. Misnamed scripts and duplicate versions are rejected rather than skipped.
+    static List<Migration> discover(Resource[] scripts) {
+        List<Migration> migrations = new ArrayList<>();
+        for (Resource script : scripts) {
+            Matcher name = SCRIPT_NAME.matcher(script.getFilename());
+            if (!name.matches()) {
+                throw new IllegalStateException("Migration script " + script.getFilename()
+                        + " does not match V<version>__<description>.sql");
+            }
+            migrations.add(new Migration(Integer.parseInt(name.group(1)), name.group(2).replace('_', ' '),
+                    checksum(script), script));
+        }
+        migrations.sort(Comparator.comparingInt(Migration::version));
+
+        for (int i = 1; i < migrations.size(); i++) {
+            if (migrations.get(i).version() == migrations.get(i - 1).version()) {
+                throw new IllegalStateException("Two migration scripts have version " + migrations.get(i).version());
+            }
+        }
+        return migrations;
+    }
+
+    private static long checksum(Resource script) {
+        try (InputStream in = script.getInputStream()) {
+            CRC32 crc = new CRC32();
+            crc.update(in.readAllBytes());
+            return crc.getValue();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + script.getFilename(), e);
+        }
+    }
+
+    public record Migration(int version, String description, long checksum, Resource script) {
+    }
+}
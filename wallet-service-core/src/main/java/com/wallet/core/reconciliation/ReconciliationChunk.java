@@ -0,0 +1,15 @@
+package com.wallet.core.reconciliation;
+
+import java.time.LocalDateTime;
+
+// The unit of work a reconciliation run is split into, each checked in its own snapshot
+sealed interface ReconciliationChunk {
+
+    // Wallets with IDs in [fromId, toId), a null bound is open
+    record WalletRange(String fromId, String toId) implements ReconciliationChunk {
+    }
+
+    // TRANSFER requests created in [from, to)
+    record TransferWindow(LocalDateTime from, LocalDateTime to) implements ReconciliationChunk {
+    }
+}
@@ -0,0 +1,19 @@
+package com.wallet.core.reconciliation;
+
+import com.wallet.common.enums.ReconciliationMode;
+import com.wallet.core.entity.ReconciliationDiscrepancy;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Outcome of one run, also kept in reconciliation_runs and reconciliation_discrepancies
+public record ReconciliationReport(
+        long runId,
+        ReconciliationMode mode,
+        LocalDateTime since, // null for a full run
+        LocalDateTime watermark,
+        long walletsChecked,
+        long transfersChecked,
+        List<ReconciliationDiscrepancy> discrepancies
+) {
+}
@@ -0,0 +1,262 @@
+package com.wallet.core.reconciliation;
+
+import com.wallet.common.enums.DiscrepancyType;
+import com.wallet.common.enums.ReconciliationMode;
+import com.wallet.common.enums.ReconciliationStatus;
+import com.wallet.core.concurrency.Throttle;
+import com.wallet.core.entity.ReconciliationDiscrepancy;
+import com.wallet.core.entity.TransferLegCheck;
+import com.wallet.core.entity.WalletBalanceCheck;
+import com.wallet.core.mapper.WalletMapper;
+import com.wallet.core.reconciliation.ReconciliationChunk.TransferWindow;
+import com.wallet.core.reconciliation.ReconciliationChunk.WalletRange;
+import com.wallet.core.reconciliation.ReconciliationTask.Result;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies the ledger against itself:
+ * <ul>
+ *   <li>every wallet's balance (row plus shards) equals its credits minus its debits, read as
+ *       its newest balance checkpoint plus the journal entries after it,</li>
+ *   <li>every TRANSFER has DEBIT and CREDIT legs that both add up to its amount.</li>
+ * </ul>
+ * Wallets are split into ID ranges of {@code app.reconciliation.chunk-size} and transfers
+ * into windows of {@code transfer-window}. The chunks are checked in parallel on a fork/join
+ * pool of {@code parallelism} workers, each in its own read-only, repeatable-read snapshot,
+ * and each row is streamed from a cursor instead of being loaded as a list.
+ * <p>
+ * Runs stay out of the way of transfers: the pool never grows past {@code parallelism}, so
+ * a run holds at most that many connections, and all workers together read at most
+ * {@code max-rows-per-second} rows.
+ * <p>
+ * An incremental run only checks the wallets and transfers that changed since the watermark
+ * of the last completed run. It starts {@code overlap} earlier, to include transfers that
+ * were still committing when that run took its snapshots. Each run and what it found is
+ * recorded in {@code reconciliation_runs} and {@code reconciliation_discrepancies}. Only one
+ * run happens at a time across all instances.
+ */
+@Slf4j
+@Service
+public class ReconciliationService {
+
+    // Rows read between two throttle reservations
+    private static final int THROTTLE_BATCH = 100;
+    private static final int INSERT_BATCH = 500;
+
+    private final WalletMapper walletMapper;
+    private final TransactionTemplate snapshot;
+    private final MeterRegistry meterRegistry;
+    private final int parallelism;
+    private final int chunkSize;
+    private final Duration transferWindow;
+    private final Duration overlap;
+    private final double maxRowsPerSecond;
+    private final Duration maxDuration;
+
+    public ReconciliationService(WalletMapper walletMapper,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.reconciliation.parallelism:2}") int parallelism,
+                                 @Value("${app.reconciliation.chunk-size:1000}") int chunkSize,
+                                 @Value("${app.reconciliation.transfer-window:1d}") Duration transferWindow,
+                                 @Value("${app.reconciliation.overlap:5m}") Duration overlap,
+                                 @Value("${app.reconciliation.max-rows-per-second:5000}") double maxRowsPerSecond,
+                                 @Value("${app.reconciliation.max-duration:6h}") Duration maxDuration) {
+        this.walletMapper = walletMapper;
+        this.snapshot = new TransactionTemplate(transactionManager);
+        this.snapshot.setReadOnly(true);
+        this.snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.meterRegistry = meterRegistry;
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+        this.transferWindow = transferWindow;
+        this.overlap = overlap;
+        this.maxRowsPerSecond = maxRowsPerSecond;
+        this.maxDuration = maxDuration;
+    }
+
+    @Scheduled(fixedDelayString = "${app.reconciliation.interval-ms:3600000}",
+            initialDelayString = "${app.reconciliation.interval-ms:3600000}")
+    public void reconcileIncrementally() {
+        reconcileQuietly(ReconciliationMode.INCREMENTAL);
+    }
+
+    @Scheduled(cron = "${app.reconciliation.full-cron:0 0 3 * * SUN}")
+    public void reconcileFully() {
+        reconcileQuietly(ReconciliationMode.FULL);
+    }
+
+    /**
+     * Runs a reconciliation and returns its report, or empty when another run is in
+     * progress. An incremental run without a previous completed run becomes a full one.
+     */
+    public Optional<ReconciliationReport> reconcile(ReconciliationMode requested) {
+        // 1. Continue from the last completed run, or check everything
+        LocalDateTime watermark = LocalDateTime.now();
+        LocalDateTime lastWatermark = requested == ReconciliationMode.INCREMENTAL
+                ? walletMapper.findLastReconciliationWatermark() : null;
+        ReconciliationMode mode = lastWatermark != null ? ReconciliationMode.INCREMENTAL : ReconciliationMode.FULL;
+        LocalDateTime since = lastWatermark != null ? lastWatermark.minus(overlap) : null;
+
+        // 2. Claim the run; a run left RUNNING by a dead instance no longer blocks it
+        walletMapper.abandonReconciliationRuns(watermark.minus(maxDuration));
+        long runId;
+        try {
+            runId = walletMapper.startReconciliationRun(mode.name(), since, watermark);
+        } catch (DuplicateKeyException e) {
+            log.info("Skipping {} reconciliation, another run is in progress", mode);
+            return Optional.empty();
+        }
+
+        try {
+            // 3. Check every chunk in parallel, at a throttled pace
+            List<ReconciliationChunk> chunks = plan(since, watermark);
+            log.info("Reconciliation run {} ({}) started with {} chunks", runId, mode, chunks.size());
+            Throttle throttle = new Throttle(maxRowsPerSecond);
+            Result result;
+            try (ForkJoinPool pool = newPool()) {
+                result = pool.invoke(new ReconciliationTask(chunks, chunk -> check(chunk, since, throttle)));
+            }
+
+            // 4. Record what was found
+            List<ReconciliationDiscrepancy> discrepancies = result.discrepancies();
+            for (int i = 0; i < discrepancies.size(); i += INSERT_BATCH) {
+                walletMapper.insertReconciliationDiscrepancies(runId,
+                        discrepancies.subList(i, Math.min(i + INSERT_BATCH, discrepancies.size())));
+            }
+            walletMapper.finishReconciliationRun(runId, ReconciliationStatus.COMPLETED.name(),
+                    result.walletsChecked(), result.transfersChecked(), discrepancies.size());
+            discrepancies.forEach(discrepancy -> meterRegistry.counter("wallet.reconciliation.discrepancies",
+                    "type", discrepancy.type()).increment());
+
+            if (discrepancies.isEmpty()) {
+                log.info("Reconciliation run {} found the ledger consistent: {} wallets, {} transfers checked",
+                        runId, result.walletsChecked(), result.transfersChecked());
+            } else {
+                log.error("Reconciliation run {} found {} discrepancies in {} wallets and {} transfers",
+                        runId, discrepancies.size(), result.walletsChecked(), result.transfersChecked());
+            }
+            return Optional.of(new ReconciliationReport(runId, mode, since, watermark, result.walletsChecked(),
+                    result.transfersChecked(), discrepancies));
+        } catch (RuntimeException e) {
+            walletMapper.finishReconciliationRun(runId, ReconciliationStatus.FAILED.name(), 0, 0, 0);
+            throw e;
+        }
+    }
+
+    private void reconcileQuietly(ReconciliationMode mode) {
+        try {
+            reconcile(mode);
+        } catch (RuntimeException e) {
+            log.warn("{} reconciliation failed, retrying on the next run: {}", mode, e.getMessage());
+        }
+    }
+
+    private List<ReconciliationChunk> plan(LocalDateTime since, LocalDateTime watermark) {
+        List<ReconciliationChunk> chunks = new ArrayList<>();
+
+        // Wallets by ID range
+        String fromId = null;
+        for (String boundary : walletMapper.findWalletIdChunkBoundaries(chunkSize)) {
+            chunks.add(new WalletRange(fromId, boundary));
+            fromId = boundary;
+        }
+        chunks.add(new WalletRange(fromId, null));
+
+        // Transfers by creation time
+        LocalDateTime from = since != null ? since : walletMapper.findFirstTransferTime();
+        while (from != null && from.isBefore(watermark)) {
+            LocalDateTime to = from.plus(transferWindow);
+            to = to.isBefore(watermark) ? to : watermark;
+            chunks.add(new TransferWindow(from, to));
+            from = to;
+        }
+        return chunks;
+    }
+
+    // No spare threads beyond the parallelism, not even while a worker waits on a join
+    private ForkJoinPool newPool() {
+        return new ForkJoinPool(parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, false,
+                0, parallelism, 1, pool -> true, 60, TimeUnit.SECONDS);
+    }
+
+    private Result check(ReconciliationChunk chunk, LocalDateTime since, Throttle throttle) {
+        return snapshot.execute(status -> switch (chunk) {
+            case WalletRange range -> checkWallets(range, since, throttle);
+            case TransferWindow window -> checkTransfers(window, throttle);
+        });
+    }
+
+    private Result checkWallets(WalletRange range, LocalDateTime since, Throttle throttle) {
+        List<ReconciliationDiscrepancy> found = new ArrayList<>();
+        long checked = 0;
+
+        try (Cursor<WalletBalanceCheck> wallets =
+                     walletMapper.streamWalletBalanceChecks(range.fromId(), range.toId(), since)) {
+            for (WalletBalanceCheck wallet : wallets) {
+                if (wallet.walletBalance().compareTo(wallet.ledgerBalance()) != 0) {
+                    found.add(new ReconciliationDiscrepancy(DiscrepancyType.BALANCE_MISMATCH.name(),
+                            wallet.walletId(), null, wallet.ledgerBalance(), wallet.walletBalance(), null));
+                }
+                pace(throttle, ++checked);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Result(checked, 0, found);
+    }
+
+    private Result checkTransfers(TransferWindow window, Throttle throttle) {
+        List<ReconciliationDiscrepancy> found = new ArrayList<>();
+        long checked = 0;
+
+        try (Cursor<TransferLegCheck> transfers = walletMapper.streamTransferLegChecks(window.from(), window.to())) {
+            for (TransferLegCheck transfer : transfers) {
+                boolean balanced = transfer.debitLegs() > 0 && transfer.creditLegs() > 0
+                        && transfer.debits().compareTo(transfer.amount()) == 0
+                        && transfer.credits().compareTo(transfer.amount()) == 0;
+                if (!balanced) {
+                    found.add(new ReconciliationDiscrepancy(DiscrepancyType.UNBALANCED_TRANSFER.name(),
+                            null, transfer.transactionId(), transfer.amount(), transfer.debits(),
+                            "DEBIT " + transfer.debits() + " in " + transfer.debitLegs() + " legs, CREDIT "
+                                    + transfer.credits() + " in " + transfer.creditLegs() + " legs"));
+                }
+                pace(throttle, ++checked);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Result(0, checked, found);
+    }
+
+    private static void pace(Throttle throttle, long rows) {
+        if (rows % THROTTLE_BATCH != 0) {
+            return;
+        }
+        try {
+            throttle.acquire(THROTTLE_BATCH);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reconciliation interrupted", e);
+        }
+    }
+}
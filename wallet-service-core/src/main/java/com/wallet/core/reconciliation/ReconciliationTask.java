@@ -0,0 +1,51 @@
+package com.wallet.core.reconciliation;
+
+import com.wallet.core.entity.ReconciliationDiscrepancy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+/**
+ * Checks a list of chunks by halving it until one chunk is left. The fork/join pool spreads
+ * the halves over its workers, and a worker that runs out of chunks steals from the others.
+ */
+class ReconciliationTask extends RecursiveTask<ReconciliationTask.Result> {
+
+    private final List<ReconciliationChunk> chunks;
+    private final Function<ReconciliationChunk, Result> check;
+
+    ReconciliationTask(List<ReconciliationChunk> chunks, Function<ReconciliationChunk, Result> check) {
+        this.chunks = chunks;
+        this.check = check;
+    }
+
+    @Override
+    protected Result compute() {
+        if (chunks.isEmpty()) {
+            return Result.EMPTY;
+        }
+        if (chunks.size() == 1) {
+            return check.apply(chunks.get(0));
+        }
+
+        int middle = chunks.size() / 2;
+        ReconciliationTask first = new ReconciliationTask(chunks.subList(0, middle), check);
+        ReconciliationTask second = new ReconciliationTask(chunks.subList(middle, chunks.size()), check);
+        first.fork();
+        Result secondResult = second.compute();
+        return first.join().plus(secondResult);
+    }
+
+    record Result(long walletsChecked, long transfersChecked, List<ReconciliationDiscrepancy> discrepancies) {
+
+        static final Result EMPTY = new Result(0, 0, List.of());
+
+        Result plus(Result other) {
+            List<ReconciliationDiscrepancy> all = new ArrayList<>(discrepancies);
+            all.addAll(other.discrepancies);
+            return new Result(walletsChecked + other.walletsChecked, transfersChecked + other.transfersChecked, all);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.wallet.core.service;
+
+import com.wallet.core.entity.BalanceCheckpoint;
+import com.wallet.core.mapper.WalletMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Keeps an end-of-day ledger balance per wallet in {@code balance_checkpoints} and answers
+ * "what was the balance at T" from it.
+ * <p>
+ * Each midnight gets a checkpoint for every wallet with journal entries that day. The
+ * checkpoint continues from the wallet's previous one, so the ledger is only ever read a day
+ * at a time. The first run covers every wallet in one pass. Every processed midnight is
+ * recorded in {@code balance_checkpoint_runs}, so a day without entries still moves the job on.
+ * Missed days are caught up on the next run, and two instances writing the same checkpoint
+ * are harmless.
+ * <p>
+ * An entry's {@code created_at} is the start of the transaction that wrote it, which can be
+ * well before it commits. A day is therefore only checkpointed once every transaction that
+ * started before its midnight has finished (see {@code findCommitHorizon}), and at least
+ * {@code app.ledger.checkpoints.settle-delay} after it. A checkpoint can never miss an entry
+ * that commits late; a long-open transaction only holds the job back until it ends.
+ * <p>
+ * A balance at any instant is the checkpoint before it plus the entries since, which is at
+ * most a day of one wallet's entries while the job keeps up. Checkpoints also keep old
+ * balances correct once {@code retention-months} has detached the months they came from;
+ * {@link LedgerPartitionManager} only detaches a month after a run has passed its end.
+ */
+@Slf4j
+@Service
+public class BalanceCheckpointService {
+
+    private final WalletMapper walletMapper;
+    private final Duration settleDelay;
+
+    public BalanceCheckpointService(WalletMapper walletMapper,
+                                    @Value("${app.ledger.checkpoints.settle-delay:5m}") Duration settleDelay) {
+        this.walletMapper = walletMapper;
+        this.settleDelay = settleDelay;
+    }
+
+    // Ledger balance including every entry created before at
+    public BigDecimal balanceAt(String walletId, LocalDateTime at) {
+        // 1. The nearest checkpoint at or before the instant
+        BalanceCheckpoint checkpoint = walletMapper.findLatestBalanceCheckpoint(walletId, at).orElse(null);
+
+        // 2. Replay only the entries after it
+        LocalDateTime replayFrom = checkpoint != null ? checkpoint.asOf() : null;
+        BigDecimal replayed = walletMapper.sumJournalMovements(walletId, replayFrom, at);
+
+        return checkpoint != null ? checkpoint.balance().add(replayed) : replayed;
+    }
+
+    @Scheduled(fixedDelayString = "${app.ledger.checkpoints.check-interval-ms:600000}")
+    public void writeCheckpoints() {
+        try {
+            checkpoint(LocalDateTime.now());
+        } catch (RuntimeException e) {
+            log.warn("Balance checkpointing failed, retrying on the next run: {}", e.getMessage());
+        }
+    }
+
+    void checkpoint(LocalDateTime now) {
+        // The newest midnight whose day can no longer receive entries: past the settle delay, and
+        // before the start of every transaction still open
+        LocalDateTime horizon = walletMapper.findCommitHorizon();
+        LocalDateTime settled = now.minus(settleDelay);
+        LocalDateTime due = (horizon.isBefore(settled) ? horizon : settled).toLocalDate().atStartOfDay();
+        LocalDateTime last = walletMapper.findLastBalanceCheckpointRun();
+
+        // 1. First run: every wallet, from the whole ledger
+        if (last == null) {
+            int written = walletMapper.insertBalanceCheckpoints(null, due);
+            walletMapper.insertBalanceCheckpointRun(due);
+            log.info("Wrote initial balance checkpoints at {} for {} wallets", due, written);
+            return;
+        }
+
+        // 2. Then each day since the last processed midnight, for the wallets that moved that day. The
+        // run is recorded after its checkpoints, so a crash in between only repeats the day.
+        for (LocalDateTime asOf = last.plusDays(1); !asOf.isAfter(due); asOf = asOf.plusDays(1)) {
+            int written = walletMapper.insertBalanceCheckpoints(asOf.minusDays(1), asOf);
+            walletMapper.insertBalanceCheckpointRun(asOf);
+            log.info("Wrote balance checkpoints at {} for {} wallets", asOf, written);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.wallet.core.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wallet.common.dto.TransferEventDTO;
+import com.wallet.common.enums.HoldStatus;
+import com.wallet.common.enums.TransactionStatus;
+import com.wallet.common.enums.TransactionType;
+import com.wallet.common.exception.WalletBusinessException;
+import com.wallet.core.entity.Hold;
+import com.wallet.core.entity.JournalEntry;
+import com.wallet.core.entity.OutboxEvent;
+import com.wallet.core.entity.TransactionRequest;
+import com.wallet.core.entity.Wallet;
+import com.wallet.core.entity.WalletBalanceMovement;
+import com.wallet.core.mapper.WalletMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Two-phase transfers for the {@code HOLD} settlement mode.
+ * <p>
+ * Phase one runs inside the transfer: {@link #place} moves the amount into the sender's
+ * held balance with one guarded UPDATE and records the hold. The receiver row, the
+ * journal and the outbox are not touched, so the transfer commits after writing one
+ * wallet row. Phase two runs in the background: {@link #settle} takes a batch of pending
+ * holds and applies them with one relative UPDATE over every wallet involved, so a hot
+ * receiver is written once per batch instead of once per payment. Holds that did not
+ * settle before they expired are handed back to the sender by {@link #release}.
+ * <p>
+ * Batch and group-commit transfers follow the same mode: their holds are staged in the
+ * {@code LedgerBatch} and placed when it flushes, so the settings apply to every transfer.
+ */
+@Slf4j
+@Service
+public class HoldService {
+
+    private final WalletMapper walletMapper;
+    private final WalletShardService walletShardService;
+    private final ObjectMapper objectMapper;
+    private final Duration holdTtl;
+
+    private final Counter settled;
+    private final Counter released;
+    private final Timer settlementLag;
+
+    public HoldService(WalletMapper walletMapper,
+                       WalletShardService walletShardService,
+                       ObjectMapper objectMapper,
+                       @Value("${app.transfer.settlement.hold-ttl:60s}") Duration holdTtl,
+                       MeterRegistry meterRegistry) {
+        this.walletMapper = walletMapper;
+        this.walletShardService = walletShardService;
+        this.objectMapper = objectMapper;
+        this.holdTtl = holdTtl;
+
+        this.settled = Counter.builder("wallet.holds").tag("outcome", "settled")
+                .description("Holds moved to the receiver").register(meterRegistry);
+        this.released = Counter.builder("wallet.holds").tag("outcome", "released")
+                .description("Holds that expired and were given back to the sender").register(meterRegistry);
+        this.settlementLag = Timer.builder("wallet.hold.settlement.lag")
+                .description("Time from placing a hold to settling it")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    public Duration getHoldTtl() {
+        return holdTtl;
+    }
+
+    /**
+     * Reserves the amount on the sender and records the hold under the transaction ID.
+     * Returns the sender's new available balance. Must run inside the transfer transaction.
+     */
+    public BigDecimal place(String transactionId, String requestId, Wallet sender, String toWalletId,
+                            BigDecimal amount) {
+        if (sender.isSharded()) {
+            walletShardService.lockForHold(sender.id());
+        }
+        BigDecimal available = walletMapper.placeHold(sender.id(), amount)
+                .orElseThrow(() -> new WalletBusinessException("Insufficient funds"));
+
+        walletMapper.insertHold(newHold(transactionId, requestId, null, sender.id(), toWalletId, amount));
+        return available;
+    }
+
+    /**
+     * Builds a pending hold that expires after the hold TTL. Batch and group-commit transfers
+     * stage these and have {@code LedgerBatchWriter} reserve the funds and write them at flush.
+     */
+    public Hold newHold(String transactionId, String requestId, Integer batchIndex, String fromWalletId,
+                        String toWalletId, BigDecimal amount) {
+        LocalDateTime now = LocalDateTime.now();
+        return new Hold(transactionId, requestId, fromWalletId, toWalletId, amount,
+                HoldStatus.PENDING.name(), now.plus(holdTtl), now, null, batchIndex);
+    }
+
+    /**
+     * Settles up to {@code limit} pending holds in one transaction and returns how many it settled.
+     */
+    @Transactional
+    public int settle(int limit) {
+        // 1. Claim the oldest pending holds, skipping any another settler is working on
+        List<Hold> holds = walletMapper.findPendingHoldsForUpdate(limit);
+        if (holds.isEmpty()) {
+            return 0;
+        }
+
+        // 2. Net movement per wallet, in wallet ID order
+        Map<String, BigDecimal> balanceDeltas = new TreeMap<>();
+        Map<String, BigDecimal> heldReleases = new TreeMap<>();
+        for (Hold hold : holds) {
+            balanceDeltas.merge(hold.fromWalletId(), hold.amount().negate(), BigDecimal::add);
+            balanceDeltas.merge(hold.toWalletId(), hold.amount(), BigDecimal::add);
+            heldReleases.merge(hold.fromWalletId(), hold.amount(), BigDecimal::add);
+        }
+
+        // 3. Lock every wallet in ID order, then move the money: one relative UPDATE for the wallet rows,
+        // split wallets through their shards (their row only gives back the held amount)
+        Map<String, Wallet> wallets = walletMapper.findWalletsByIdsForUpdate(balanceDeltas.keySet()).stream()
+                .collect(Collectors.toMap(Wallet::id, Function.identity()));
+
+        List<WalletBalanceMovement> movements = new ArrayList<>(balanceDeltas.size());
+        Map<String, BigDecimal> shardDeltas = new LinkedHashMap<>();
+        balanceDeltas.forEach((walletId, delta) -> {
+            Wallet wallet = wallets.get(walletId);
+            if (wallet == null) {
+                throw new IllegalStateException("Wallet " + walletId + " of a pending hold no longer exists");
+            }
+            if (wallet.isSharded()) {
+                shardDeltas.put(walletId, delta);
+                delta = BigDecimal.ZERO;
+            }
+            movements.add(new WalletBalanceMovement(walletId, delta, heldReleases.getOrDefault(walletId, BigDecimal.ZERO)));
+        });
+        walletMapper.applyBalanceMovements(movements);
+
+        // 3.1. Shards move after the held amounts are given back, so a split sender's debit is only
+        // checked against the holds that stay pending
+        shardDeltas.forEach((walletId, delta) -> {
+            if (delta.signum() > 0) {
+                walletShardService.credit(wallets.get(walletId), delta);
+            } else if (delta.signum() < 0) {
+                walletShardService.debit(wallets.get(walletId), delta.negate());
+            }
+        });
+
+        // 4. The ledger records the immediate mode would have written, for the whole batch at once
+        List<TransactionRequest> requests = new ArrayList<>(holds.size());
+        List<JournalEntry> legs = new ArrayList<>(holds.size() * 2);
+        List<OutboxEvent> events = new ArrayList<>(holds.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (Hold hold : holds) {
+            requests.add(new TransactionRequest(hold.id(), hold.requestId(), TransactionType.TRANSFER.name(),
+                    TransactionStatus.SUCCESS.name(), hold.amount(), now, hold.batchIndex()));
+            legs.add(new JournalEntry(null, hold.id(), hold.fromWalletId(), "DEBIT", hold.amount(), now));
+            legs.add(new JournalEntry(null, hold.id(), hold.toWalletId(), "CREDIT", hold.amount(), now));
+            events.add(buildOutboxEvent(hold, TransactionStatus.SUCCESS));
+        }
+        walletMapper.insertTransactionRequests(requests);
+        walletMapper.insertJournalEntries(legs);
+        walletMapper.insertOutboxEvents(events);
+
+        // 5. Close the holds
+        walletMapper.markHoldsSettled(holds.stream().map(Hold::id).toList());
+
+        settled.increment(holds.size());
+        holds.forEach(hold -> settlementLag.record(Duration.between(hold.createdAt(), now)));
+        log.info("Settled {} holds across {} wallets", holds.size(), balanceDeltas.size());
+        return holds.size();
+    }
+
+    /**
+     * Gives the held amount of the given holds back to their senders. Holds that are no
+     * longer pending (settled meanwhile, or released by another instance) are skipped.
+     */
+    @Transactional
+    public int release(List<String> holdIds) {
+        if (holdIds.isEmpty()) {
+            return 0;
+        }
+
+        // 1. Close the holds that are still pending
+        List<Hold> holds = walletMapper.releaseHolds(holdIds);
+        if (holds.isEmpty()) {
+            return 0;
+        }
+
+        // 2. Give the funds back, one relative UPDATE in wallet ID order
+        Map<String, BigDecimal> heldReleases = new TreeMap<>();
+        holds.forEach(hold -> heldReleases.merge(hold.fromWalletId(), hold.amount(), BigDecimal::add));
+        walletMapper.applyBalanceMovements(heldReleases.entrySet().stream()
+                .map(e -> new WalletBalanceMovement(e.getKey(), BigDecimal.ZERO, e.getValue()))
+                .toList());
+
+        // 3. Tell downstream consumers the transfer did not go through
+        walletMapper.insertOutboxEvents(holds.stream().map(hold -> buildOutboxEvent(hold, TransactionStatus.FAILED)).toList());
+
+        released.increment(holds.size());
+        log.warn("Released {} expired holds", holds.size());
+        return holds.size();
+    }
+
+    /**
+     * Releases holds the database already sees as expired. Catches holds whose in-memory
+     * expiry was lost, e.g. because the instance that placed them restarted.
+     */
+    @Transactional
+    public int releaseOverdue(int limit) {
+        return release(walletMapper.findExpiredHoldIds(limit));
+    }
+
+    private OutboxEvent buildOutboxEvent(Hold hold, TransactionStatus status) {
+        try {
+            String payload = objectMapper.writeValueAsString(new TransferEventDTO(
+                    hold.id(), hold.fromWalletId(), hold.toWalletId(), hold.amount(), status.name()));
+            return new OutboxEvent(null, "transfer-events", payload, "PENDING", LocalDateTime.now());
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize outbox event", e);
+            throw new WalletBusinessException("Internal Error: Failed to format outbox event");
+        }
+    }
+}
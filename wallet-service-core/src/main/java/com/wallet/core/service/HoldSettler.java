@@ -0,0 +1,77 @@
+package com.wallet.core.service;
+
+import com.wallet.core.concurrency.TimerWheel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Background side of the hold settlement mode. Settles pending holds in batches and
+ * releases the ones that expire first.
+ * <p>
+ * Expiry is driven by a {@link TimerWheel}: every hold placed on this instance is put on
+ * the wheel, and each tick releases exactly the holds that fell due, without scanning
+ * the holds table. A slow database scan backs the wheel up for holds it never saw.
+ */
+@Slf4j
+@Service
+public class HoldSettler {
+
+    private final HoldService holdService;
+    private final int batchSize;
+    private final TimerWheel<String> expiryWheel;
+
+    public HoldSettler(HoldService holdService,
+                       @Value("${app.transfer.settlement.batch-size:500}") int batchSize,
+                       @Value("${app.transfer.settlement.expiry-tick-ms:100}") long expiryTickMs,
+                       @Value("${app.transfer.settlement.expiry-wheel-size:1024}") int expiryWheelSize) {
+        this.holdService = holdService;
+        this.batchSize = batchSize;
+        this.expiryWheel = new TimerWheel<>(Duration.ofMillis(expiryTickMs), expiryWheelSize);
+    }
+
+    // Called by the transfer that placed the hold
+    public void trackExpiry(String holdId) {
+        expiryWheel.schedule(holdId, holdService.getHoldTtl());
+    }
+
+    @Scheduled(fixedDelayString = "${app.transfer.settlement.interval-ms:200}")
+    public void settlePending() {
+        try {
+            // Keep going while full batches come back, so a backlog drains without waiting for the next run
+            while (holdService.settle(batchSize) == batchSize) {
+                log.debug("Settled a full batch of holds, continuing");
+            }
+        } catch (RuntimeException e) {
+            log.warn("Hold settlement failed, retrying on the next run: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.transfer.settlement.expiry-tick-ms:100}")
+    public void releaseExpired() {
+        List<String> due = expiryWheel.advance();
+        if (due.isEmpty()) {
+            return;
+        }
+
+        try {
+            holdService.release(due);
+        } catch (RuntimeException e) {
+            // The database scan picks these up later
+            log.warn("Could not release {} expired holds: {}", due.size(), e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.transfer.settlement.expiry-scan-interval-ms:300000}")
+    public void releaseOverdue() {
+        try {
+            holdService.releaseOverdue(batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Overdue hold scan failed: {}", e.getMessage());
+        }
+    }
+}
@@ -1,38 +1,138 @@
 package com.wallet.core.service;
 
-import lombok.RequiredArgsConstructor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wallet.common.enums.IdempotencyState;
+import com.wallet.common.exception.DuplicateRequestInFlightException;
+import com.wallet.common.exception.WalletBusinessException;
+import com.wallet.core.factory.IdempotencyStoreFactory;
+import com.wallet.core.strategy.IdempotencyKey;
+import com.wallet.core.strategy.TieredIdempotencyStore;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import com.wallet.common.exception.WalletBusinessException;
 
 import java.time.Duration;
-
+import java.util.Optional;
+/**
+ * Stores the response of every {@code @Idempotent} request under its {@code X-Request-ID}
+ * so a retried request gets the original response back instead of being executed again.
+ * <p>
+ * Each key moves through {@link IdempotencyState}:
+ * <ul>
+ *   <li>{@code IN_PROGRESS} while the first request runs, on a short lease so a request
+ *       that dies mid-flight does not block its ID for a day,</li>
+ *   <li>{@code COMPLETED} with the serialized response, kept for the endpoint's TTL,</li>
+ *   <li>{@code FAILED_RETRYABLE} when the request was rejected without writing anything;
+ *       the next request with the same ID simply runs again.</li>
+ * </ul>
+ * The two transient states are stored as their name, a completed key as the response
+ * JSON. A duplicate that finds the key {@code IN_PROGRESS} waits for the response for up
+ * to {@code app.idempotency.in-flight-wait}, then gives up with a 409.
+ * <p>
+ * Where keys live is up to {@link IdempotencyStoreFactory} ({@code app.idempotency.store.*}).
+ * When only the database fallback can answer, a duplicate is known to have run but its
+ * response is not, so it is rejected instead of replayed.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class IdempotencyService {
 
-    private final StringRedisTemplate redisTemplate;
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(25);
+
+    private final TieredIdempotencyStore store;
+    private final ObjectMapper objectMapper;
+    private final Duration inFlightWait;
+    private final Duration lease;
+    private final Duration retryWindow;
+
+    public IdempotencyService(IdempotencyStoreFactory storeFactory,
+                              ObjectMapper objectMapper,
+                              @Value("${app.idempotency.in-flight-wait:2s}") Duration inFlightWait,
+                              @Value("${app.idempotency.lease:30s}") Duration lease,
+                              @Value("${app.idempotency.retry-window:1h}") Duration retryWindow) {
+        this.store = storeFactory.getActiveStore();
+        this.objectMapper = objectMapper;
+        this.inFlightWait = inFlightWait;
+        this.lease = lease;
+        this.retryWindow = retryWindow;
+    }
 
-    public void checkAndLock(String requestId) {
+    /**
+     * Takes the key for a new request (or a retry of a failed one) and returns empty, or
+     * returns the stored response of the request that already completed under this ID.
+     */
+    public Optional<StoredResponse> acquireOrReplay(String clientId, String requestId) {
         if (requestId == null || requestId.isBlank()) {
             throw new IllegalArgumentException("X-Request-ID header is missing");
         }
 
-        String redisKey = "IDEMPOTENCY:" + requestId;
+        IdempotencyKey key = IdempotencyKey.of(clientId, requestId);
+        long deadline = System.nanoTime() + inFlightWait.toNanos();
+
+        while (true) {
+            // 1. First request with this ID, or a retry after a retryable failure: take it on a lease
+            String current = store.acquire(key, lease);
+            if (current == null) {
+                log.info("Request ID {} is IN_PROGRESS for up to {}", requestId, lease);
+                return Optional.empty();
+            }
+
+            // 2. Ran before, but only the database knows it: there is no response to hand back
+            if (IdempotencyState.COMPLETED.name().equals(current)) {
+                throw new WalletBusinessException("Transaction already processed with Request ID: " + requestId);
+            }
+
+            // 3. Already completed: hand back the original response
+            if (!IdempotencyState.IN_PROGRESS.name().equals(current)) {
+                log.info("Duplicate request {} answered with the stored response", requestId);
+                return Optional.of(read(current));
+            }
+
+            // 4. Still running: wait for it, unless we have waited long enough
+            if (System.nanoTime() >= deadline) {
+                log.warn("Duplicate request {} still in flight after {}", requestId, inFlightWait);
+                throw new DuplicateRequestInFlightException(
+                        "Request with ID " + requestId + " is still being processed. Please retry shortly.");
+            }
+            sleep();
+        }
+    }
+
+    // IN_PROGRESS -> COMPLETED, the response is kept for the endpoint's TTL
+    public void complete(String clientId, String requestId, StoredResponse response, Duration ttl) {
+        try {
+            store.complete(IdempotencyKey.of(clientId, requestId), objectMapper.writeValueAsString(response), ttl);
+        } catch (JsonProcessingException e) {
+            // The request itself succeeded; duplicates will see it as in flight until the lease runs out
+            log.error("Failed to store the response of request {}", requestId, e);
+        }
+    }
+
+    // IN_PROGRESS -> FAILED_RETRYABLE: nothing was written, so the same ID may run again
+    public void releaseForRetry(String clientId, String requestId) {
+        store.releaseForRetry(IdempotencyKey.of(clientId, requestId), retryWindow);
+        log.info("Request ID {} is FAILED_RETRYABLE, a retry with the same ID will run again", requestId);
+    }
 
-        // Attempts to save the key with a 24-hour expiration.
-        // Returns true if the key was saved, false if it already existed.
-        Boolean isNewRequest = redisTemplate.opsForValue()
-                .setIfAbsent(redisKey, "LOCKED", Duration.ofHours(24));
+    private StoredResponse read(String stored) {
+        try {
+            return objectMapper.readValue(stored, StoredResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable idempotency record", e);
+        }
+    }
 
-        if (Boolean.FALSE.equals(isNewRequest)) {
-            log.warn("Duplicate request detected and blocked by Redis: {}", requestId);
-            throw new WalletBusinessException("Transaction already processed with Request ID: " + requestId);
-            // Note: We will map this to a proper Custom Exception in Phase B!
+    private static void sleep() {
+        try {
+            Thread.sleep(POLL_INTERVAL);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DuplicateRequestInFlightException("Interrupted while waiting for the original request");
         }
+    }
 
-        log.info("Request ID {} locked in Redis for 24 hours", requestId);
+    // HTTP status and JSON body of a completed request
+    public record StoredResponse(int status, String body) {
     }
-}
\ No newline at end of file
+}
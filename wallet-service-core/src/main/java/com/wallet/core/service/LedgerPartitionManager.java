@@ -0,0 +1,102 @@
+package com.wallet.core.service;
+
+import com.wallet.core.entity.JournalPartition;
+import com.wallet.core.mapper.WalletMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Keeps {@code journal_entries} partitioned by month. Partitions are created
+ * {@code app.ledger.partitions.months-ahead} months before they are needed, so an insert
+ * never finds its month missing. With {@code retention-months} set, whole months older
+ * than that are detached from the ledger. Their rows stay in a standalone table, named
+ * like the partition, until they are archived. A month is only detached once a balance
+ * checkpoint run has passed its end, so balances never have to be summed from rows that
+ * are gone.
+ * <p>
+ * Runs at startup and then on an interval. If two instances race to create the same
+ * month, one of them loses and gets it on its next run.
+ */
+@Slf4j
+@Service
+public class LedgerPartitionManager {
+
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'journal_entries_y'yyyy'm'MM");
+    private static final DateTimeFormatter BOUND = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final WalletMapper walletMapper;
+    private final int monthsAhead;
+    private final int retentionMonths;
+
+    public LedgerPartitionManager(WalletMapper walletMapper,
+                                  @Value("${app.ledger.partitions.months-ahead:3}") int monthsAhead,
+                                  @Value("${app.ledger.partitions.retention-months:0}") int retentionMonths) {
+        this.walletMapper = walletMapper;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @Scheduled(fixedDelayString = "${app.ledger.partitions.check-interval-ms:3600000}")
+    public void maintainPartitions() {
+        try {
+            maintain(LocalDate.now());
+        } catch (RuntimeException e) {
+            log.warn("Ledger partition maintenance failed, retrying on the next run: {}", e.getMessage());
+        }
+    }
+
+    void maintain(LocalDate today) {
+        List<JournalPartition> partitions = walletMapper.findJournalPartitions();
+        YearMonth currentMonth = YearMonth.from(today);
+
+        // 1. Create every month from the end of the newest partition up to the horizon
+        LocalDateTime horizon = currentMonth.plusMonths(monthsAhead + 1L).atDay(1).atStartOfDay();
+        LocalDateTime from = partitions.stream()
+                .map(JournalPartition::toExclusive)
+                .filter(Objects::nonNull)
+                .max(Comparator.naturalOrder())
+                .orElse(currentMonth.atDay(1).atStartOfDay());
+        while (from.isBefore(horizon)) {
+            LocalDateTime to = YearMonth.from(from).plusMonths(1).atDay(1).atStartOfDay();
+            String name = PARTITION_NAME.format(from);
+            walletMapper.createJournalPartition(name, BOUND.format(from), BOUND.format(to));
+            log.info("Created ledger partition {} for [{}, {})", name, from, to);
+            from = to;
+        }
+
+        // 2. Detach the months that are past retention
+        if (retentionMonths <= 0) {
+            return;
+        }
+        LocalDateTime cutoff = currentMonth.minusMonths(retentionMonths).atDay(1).atStartOfDay();
+        List<JournalPartition> expired = partitions.stream()
+                .filter(partition -> !partition.toExclusive().isAfter(cutoff))
+                .toList();
+        if (expired.isEmpty()) {
+            return;
+        }
+
+        // Checkpoints continue from the previous one, so a month may only go once a run has covered it
+        LocalDateTime checkpointed = walletMapper.findLastBalanceCheckpointRun();
+        for (JournalPartition partition : expired) {
+            if (checkpointed == null || partition.toExclusive().isAfter(checkpointed)) {
+                log.info("Keeping ledger partition {} past retention until balances are checkpointed up to {}",
+                        partition.name(), partition.toExclusive());
+            } else {
+                walletMapper.detachJournalPartition(partition.name());
+                log.info("Detached ledger partition {}, rows before {} are ready to archive", partition.name(),
+                        partition.toExclusive());
+            }
+        }
+    }
+}
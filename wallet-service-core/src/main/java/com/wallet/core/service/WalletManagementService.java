@@ -2,18 +2,25 @@ package com.wallet.core.service;
 
 import com.wallet.common.dto.*;
 import com.wallet.common.exception.WalletBusinessException;
+import com.wallet.common.exception.WalletConcurrencyException;
+import com.wallet.core.annotation.RetryOnConflict;
 import com.wallet.core.entity.JournalEntry;
+import com.wallet.core.entity.JournalEntryCursor;
 import com.wallet.core.entity.TransactionRequest;
 import com.wallet.core.entity.Wallet;
+import com.wallet.core.factory.WalletConcurrencyStrategyFactory;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import com.wallet.core.mapper.WalletMapper;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Slf4j
@@ -23,6 +30,16 @@ import java.util.UUID;
 public class WalletManagementService {
 
     private final WalletMapper walletMapper;
+    private final WalletConcurrencyStrategyFactory walletConcurrencyStrategyFactory;
+    private final WalletShardService walletShardService;
+    private final BalanceCheckpointService balanceCheckpointService;
+
+    // Most wallets fill a history page from the last couple of monthly ledger partitions
+    @Value("${app.ledger.history.recent-window:62d}")
+    private Duration historyRecentWindow = Duration.ofDays(62);
+
+    @Value("${app.ledger.history.max-page-size:200}")
+    private int historyMaxPageSize = 200;
 
     @Transactional
     public InitializeWalletResponseDTO initializeWallet(InitializeWalletRequestDTO request, String clientId) {
@@ -64,12 +81,14 @@ public class WalletManagementService {
         );
     }
 
+    @RetryOnConflict
     @Transactional
     public TopUpResponseDTO topUpWallet(String requestId, TopUpRequestDTO request, String clientId) {
         log.info("Processing Top-Up of {} for Wallet ID: {}", request.amount(), request.walletId());
 
-        // 1. Fetch the Wallet
-        Wallet wallet = walletMapper.findWalletById(request.walletId())
+        // 1. Fetch the Wallet (locked, depending on the concurrency mode)
+        Wallet wallet = Optional.ofNullable(walletConcurrencyStrategyFactory.getActiveStrategy()
+                        .loadForUpdate(List.of(request.walletId())).get(request.walletId()))
                 .orElseThrow(() -> new WalletBusinessException("Wallet not found: " + request.walletId()));
 
         if (!wallet.userId().equals(clientId)) {
@@ -83,17 +102,17 @@ public class WalletManagementService {
         // 2. Generate an official Transaction ID
         String transactionId = "TXN-TOPUP-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
 
-        // 3. Update Balance (Optimistic Locking)
+        // 3. Update Balance (Optimistic Locking, or a shard credit for a split wallet)
         BigDecimal newBalance = wallet.balance().add(request.amount());
-        int rowsUpdated = walletMapper.updateWalletBalance(wallet.id(), newBalance, wallet.version());
-
-        if (rowsUpdated == 0) {
-            throw new WalletBusinessException("Concurrency error: Wallet state changed during top-up. Please retry.");
+        if (wallet.isSharded()) {
+            walletShardService.credit(wallet, request.amount());
+        } else if (walletMapper.updateWalletBalance(wallet.id(), newBalance, wallet.version()) == 0) {
+            throw new WalletConcurrencyException("Concurrency error: Wallet state changed during top-up. Please retry.");
         }
 
         // 4. Save the Idempotency Request Record
         TransactionRequest txnRequest = new TransactionRequest(
-                transactionId, requestId, "TOPUP", "SUCCESS", request.amount(), LocalDateTime.now()
+                transactionId, requestId, "TOPUP", "SUCCESS", request.amount(), LocalDateTime.now(), null
         );
         walletMapper.insertTransactionRequest(txnRequest);
 
@@ -106,10 +125,11 @@ public class WalletManagementService {
         log.info("Top-Up successful. New balance for {} is {}", wallet.id(), newBalance);
 
         // 6. Return the SA Document specified response
-        return new TopUpResponseDTO(transactionId, newBalance, wallet.currency());
+        return new TopUpResponseDTO(transactionId, newBalance.subtract(wallet.heldBalance()), wallet.currency());
     }
 
-    public WalletHistoryResponseDTO getWalletHistory(String walletId, String clientId) {
+    @Transactional(readOnly = true)
+    public WalletHistoryResponseDTO getWalletHistory(String walletId, String clientId, WalletHistoryRequestDTO page) {
         log.info("Fetching history for Wallet ID: {}", walletId);
 
         // 1. Fetch the Wallet to get the current balance
@@ -120,10 +140,35 @@ public class WalletManagementService {
             throw new WalletBusinessException("Unauthorized: You do not have permission to view this history.");
         }
 
-        // 2. Fetch the last 50 ledger entries
-        List<JournalEntry> entries = walletMapper.findJournalEntriesByWalletId(walletId);
+        // 2. Check the page request
+        if (page.size() < 1 || page.size() > historyMaxPageSize) {
+            throw new WalletBusinessException("Page size must be between 1 and " + historyMaxPageSize);
+        }
+        if (page.from() != null && page.to() != null && !page.from().isBefore(page.to())) {
+            throw new WalletBusinessException("History range is empty: from must be before to");
+        }
+        JournalEntryCursor before = page.cursor() != null ? JournalEntryCursor.decode(page.cursor()) : null;
+
+        // 3. Fetch one entry more than the page, to know whether another page follows. The partitions
+        // just before the page's start usually hold all of it; only a quiet wallet makes the second
+        // read, which looks through every partition in range.
+        LocalDateTime start = before != null ? before.createdAt() : page.to() != null ? page.to() : LocalDateTime.now();
+        LocalDateTime recentFrom = start.minus(historyRecentWindow);
+        boolean narrowed = page.from() == null || recentFrom.isAfter(page.from());
+
+        List<JournalEntry> entries = walletMapper.findJournalEntriesByWalletId(walletId,
+                narrowed ? recentFrom : page.from(), page.to(), page.type(), before, page.size() + 1);
+        if (narrowed && entries.size() <= page.size()) {
+            entries = walletMapper.findJournalEntriesByWalletId(walletId,
+                    page.from(), page.to(), page.type(), before, page.size() + 1);
+        }
+
+        boolean hasMore = entries.size() > page.size();
+        if (hasMore) {
+            entries = entries.subList(0, page.size());
+        }
 
-        // 3. Map the DB Entities to DTOs
+        // 4. Map the DB Entities to DTOs
         List<TransactionHistoryDTO> transactionHistory = entries.stream()
                 .map(entry -> TransactionHistoryDTO.create(
                         entry.transactionId(),
@@ -132,15 +177,38 @@ public class WalletManagementService {
                         entry.createdAt()
                 )).toList();
 
-        // 4. Return the combined response
+        // 5. Return the combined response, with the balance the owner can still spend
         return new WalletHistoryResponseDTO(
                 wallet.id(),
-                wallet.balance(),
+                wallet.availableBalance(),
                 wallet.currency(),
-                transactionHistory
+                transactionHistory,
+                hasMore ? JournalEntryCursor.after(entries.get(entries.size() - 1)).encode() : null
         );
     }
 
+    @Transactional(readOnly = true)
+    public WalletBalanceResponseDTO getBalanceAt(String walletId, String clientId, LocalDateTime at) {
+        log.info("Fetching balance of Wallet ID {} at {}", walletId, at);
+
+        // 1. Only the owner may see past balances
+        Wallet wallet = walletMapper.findWalletById(walletId)
+                .orElseThrow(() -> new WalletBusinessException("Wallet not found: " + walletId));
+
+        if (!wallet.userId().equals(clientId)) {
+            throw new WalletBusinessException("Unauthorized: You do not have permission to view this balance.");
+        }
+
+        if (at.isAfter(LocalDateTime.now())) {
+            throw new WalletBusinessException("Balance date must not be in the future");
+        }
+
+        // 2. Nearest checkpoint plus the entries after it
+        return new WalletBalanceResponseDTO(wallet.id(), balanceCheckpointService.balanceAt(walletId, at),
+                wallet.currency(), at);
+    }
+
+    @Transactional(readOnly = true)
     public String getWalletIdByUserId(String userId) {
         log.info("Fetching Wallet ID for User ID: {}", userId);
         return walletMapper.findWalletByUserId(userId)
@@ -0,0 +1,55 @@
+package com.wallet.core.service;
+
+import com.wallet.core.mapper.WalletMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Background upkeep for split wallets: splits the wallets listed in
+ * {@code app.ledger.shards.wallet-ids} that are not split yet, then rebalances the
+ * shards of every split wallet. Each wallet is handled in its own short transaction.
+ */
+@Slf4j
+@Service
+public class WalletShardRebalancer {
+
+    private final WalletShardService walletShardService;
+    private final WalletMapper walletMapper;
+    private final List<String> hotWalletIds;
+    private final int shardCount;
+
+    public WalletShardRebalancer(WalletShardService walletShardService,
+                                 WalletMapper walletMapper,
+                                 @Value("${app.ledger.shards.wallet-ids:}") List<String> hotWalletIds,
+                                 @Value("${app.ledger.shards.count:8}") int shardCount) {
+        this.walletShardService = walletShardService;
+        this.walletMapper = walletMapper;
+        this.hotWalletIds = hotWalletIds;
+        this.shardCount = shardCount;
+    }
+
+    @Scheduled(fixedDelayString = "${app.ledger.shards.rebalance-interval-ms:60000}")
+    public void rebalanceShards() {
+        // 1. Split newly configured hot wallets
+        for (String walletId : hotWalletIds) {
+            try {
+                walletShardService.split(walletId, shardCount);
+            } catch (RuntimeException e) {
+                log.warn("Could not split wallet {}: {}", walletId, e.getMessage());
+            }
+        }
+
+        // 2. Even out the shards of every split wallet
+        for (String walletId : walletMapper.findShardedWalletIds()) {
+            try {
+                walletShardService.rebalance(walletId);
+            } catch (RuntimeException e) {
+                log.warn("Could not rebalance wallet {}: {}", walletId, e.getMessage());
+            }
+        }
+    }
+}
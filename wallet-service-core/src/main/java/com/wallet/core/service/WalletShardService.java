@@ -0,0 +1,154 @@
+package com.wallet.core.service;
+
+import com.wallet.common.exception.WalletBusinessException;
+import com.wallet.common.exception.WalletConcurrencyException;
+import com.wallet.core.entity.Wallet;
+import com.wallet.core.entity.WalletBalanceShard;
+import com.wallet.core.mapper.WalletMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Balance updates for split wallets.
+ * <p>
+ * A split wallet keeps its balance in N shard rows instead of its {@code wallets} row, so
+ * concurrent payments into a hot merchant wallet land on different rows and do not queue
+ * behind one row lock. Credits go to a random shard. Debits take any one shard that can
+ * cover the amount, skipping shards other writers hold, and only fall back to locking
+ * every shard of the wallet when no single shard is big enough. The visible balance is
+ * computed on read, see {@code walletColumns} in WalletMapper.xml.
+ * <p>
+ * Pending holds are kept on the wallets row ({@code held_balance}) and must stay covered.
+ * One shard alone cannot tell whether the rest of the wallet still covers them, so the
+ * fast path only runs while nothing is held; otherwise the debit locks every shard and
+ * checks the whole visible balance minus what is held. Locks are always taken wallets row
+ * first, then shards, see {@link #lockForHold}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WalletShardService {
+
+    private static final int SCALE = 4;
+
+    private final WalletMapper walletMapper;
+
+    /**
+     * Moves the wallet's balance into {@code shardCount} shard rows. The wallets row is
+     * left at zero and, from then on, only read.
+     */
+    @Transactional
+    public void split(String walletId, int shardCount) {
+        Wallet wallet = walletMapper.findWalletById(walletId)
+                .orElseThrow(() -> new WalletBusinessException("Wallet not found: " + walletId));
+
+        if (wallet.isSharded()) {
+            return;
+        }
+        if (walletMapper.markWalletSharded(walletId, shardCount, wallet.version()) == 0) {
+            throw new WalletConcurrencyException("Concurrency error: Wallet state changed while splitting it.");
+        }
+        walletMapper.insertBalanceShards(walletId, evenSplit(wallet.balance(), shardCount));
+
+        log.info("Split wallet {} into {} balance shards", walletId, shardCount);
+    }
+
+    public void credit(Wallet receiver, BigDecimal amount) {
+        int shardNo = ThreadLocalRandom.current().nextInt(receiver.shardCount());
+        walletMapper.creditBalanceShard(receiver.id(), shardNo, amount);
+    }
+
+    /**
+     * Debits the wallet and returns its new visible balance. Throws if all shards
+     * together, less what pending holds reserve, cannot cover the amount.
+     */
+    public BigDecimal debit(Wallet sender, BigDecimal amount) {
+        // 1. Fast path: one shard that has enough on its own, only while no hold is pending
+        if (walletMapper.debitAnyBalanceShard(sender.id(), amount).isEmpty()) {
+
+            // 2. Slow path: lock every shard and drain them, largest first
+            drain(sender.id(), amount);
+        }
+
+        return walletMapper.findWalletById(sender.id())
+                .map(Wallet::balance)
+                .orElseThrow(() -> new WalletBusinessException("Wallet not found: " + sender.id()));
+    }
+
+    /**
+     * Locks a split wallet's row and then every one of its shards, before a hold is placed on
+     * it. The hold's guarded UPDATE then sums shards that no debit can change until it commits.
+     */
+    public void lockForHold(String walletId) {
+        walletMapper.findWalletsByIdsForUpdate(List.of(walletId));
+        walletMapper.findBalanceShardsForUpdate(walletId);
+    }
+
+    /**
+     * Evens out the shards of one wallet so the fast debit path keeps working after
+     * credits have piled up on some shards and debits have drained others. Does nothing
+     * while every shard still holds at least half of its fair share.
+     */
+    @Transactional
+    public void rebalance(String walletId) {
+        List<WalletBalanceShard> shards = walletMapper.findBalanceShardsForUpdate(walletId);
+        if (shards.isEmpty()) {
+            return;
+        }
+
+        BigDecimal total = shards.stream().map(WalletBalanceShard::balance).reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal halfFairShare = total.divide(BigDecimal.valueOf(2L * shards.size()), SCALE, RoundingMode.DOWN);
+        if (shards.stream().allMatch(shard -> shard.balance().compareTo(halfFairShare) >= 0)) {
+            return;
+        }
+
+        List<BigDecimal> balances = evenSplit(total, shards.size());
+        for (WalletBalanceShard shard : shards) {
+            walletMapper.updateBalanceShard(walletId, shard.shardNo(), balances.get(shard.shardNo()));
+        }
+        log.info("Rebalanced {} shards of wallet {}", shards.size(), walletId);
+    }
+
+    private void drain(String walletId, BigDecimal amount) {
+        List<WalletBalanceShard> shards = new ArrayList<>(walletMapper.findBalanceShardsForUpdate(walletId));
+
+        // Read after the shards are locked, so the total is exact and holds placed meanwhile are seen
+        BigDecimal available = walletMapper.findWalletById(walletId)
+                .map(Wallet::availableBalance)
+                .orElseThrow(() -> new WalletBusinessException("Wallet not found: " + walletId));
+        if (available.compareTo(amount) < 0) {
+            throw new WalletBusinessException("Insufficient funds");
+        }
+
+        shards.sort(Comparator.comparing(WalletBalanceShard::balance).reversed());
+        BigDecimal remaining = amount;
+        for (WalletBalanceShard shard : shards) {
+            if (remaining.signum() == 0) {
+                break;
+            }
+            BigDecimal taken = shard.balance().min(remaining);
+            walletMapper.updateBalanceShard(walletId, shard.shardNo(), shard.balance().subtract(taken));
+            remaining = remaining.subtract(taken);
+        }
+    }
+
+    // Equal parts rounded down to the ledger scale, the remainder goes to shard 0
+    static List<BigDecimal> evenSplit(BigDecimal total, int parts) {
+        BigDecimal part = total.divide(BigDecimal.valueOf(parts), SCALE, RoundingMode.DOWN);
+        List<BigDecimal> balances = new ArrayList<>(parts);
+        balances.add(total.subtract(part.multiply(BigDecimal.valueOf(parts - 1L))));
+        for (int i = 1; i < parts; i++) {
+            balances.add(part);
+        }
+        return balances;
+    }
+}
@@ -0,0 +1,135 @@
+package com.wallet.core.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wallet.common.dto.TransactionHistoryDTO;
+import com.wallet.common.enums.StatementFormat;
+import com.wallet.common.exception.WalletBusinessException;
+import com.wallet.core.entity.JournalEntry;
+import com.wallet.core.entity.Wallet;
+import com.wallet.core.mapper.WalletMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * Full account statements, written straight from the ledger to the response.
+ * <p>
+ * Entries are read through a MyBatis {@link Cursor} that fetches them from Postgres a batch
+ * at a time, and each one is written out as soon as it is read. Memory use does not grow
+ * with the statement, and the client starts receiving it before the last entry is read.
+ * The cursor needs an open transaction for the whole read, so it runs in a read-only one
+ * on the thread that writes the response.
+ * <p>
+ * Every statement opens with an {@code OPENING_BALANCE} line, the ledger balance at
+ * {@code from} taken from the balance checkpoints.
+ */
+@Slf4j
+@Service
+public class WalletStatementService {
+
+    static final String CSV_HEADER = "transactionId,type,amount,timestamp\n";
+    static final String OPENING_BALANCE = "OPENING_BALANCE";
+
+    // Push what is buffered to the client once per fetched batch, not only when the buffer fills
+    private static final int FLUSH_EVERY = 1000;
+
+    private final WalletMapper walletMapper;
+    private final BalanceCheckpointService balanceCheckpointService;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+
+    public WalletStatementService(WalletMapper walletMapper,
+                                  BalanceCheckpointService balanceCheckpointService,
+                                  PlatformTransactionManager transactionManager,
+                                  ObjectMapper objectMapper) {
+        this.walletMapper = walletMapper;
+        this.balanceCheckpointService = balanceCheckpointService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Checks the request now, so a bad one still gets a 400, and returns the body that
+     * streams the statement once the response is committed.
+     */
+    public StreamingResponseBody exportStatement(String walletId, String clientId, LocalDateTime from,
+                                                 LocalDateTime to, StatementFormat format) {
+        log.info("Exporting {} statement for Wallet ID: {}", format, walletId);
+
+        // 1. Only the owner may read the statement
+        Wallet wallet = walletMapper.findWalletById(walletId)
+                .orElseThrow(() -> new WalletBusinessException("Wallet not found: " + walletId));
+
+        if (!wallet.userId().equals(clientId)) {
+            throw new WalletBusinessException("Unauthorized: You do not have permission to view this statement.");
+        }
+
+        // 2. The range bounds which monthly partitions are read
+        if (!from.isBefore(to)) {
+            throw new WalletBusinessException("Statement range is empty: from must be before to");
+        }
+
+        // 3. Read and write the entries on the response thread
+        return out -> readOnlyTransaction.executeWithoutResult(status -> {
+            BigDecimal opening = balanceCheckpointService.balanceAt(walletId, from);
+            try (Cursor<JournalEntry> entries = walletMapper.streamJournalEntriesByWalletId(walletId, from, to)) {
+                long written = write(TransactionHistoryDTO.create(null, OPENING_BALANCE, opening, from),
+                        entries, format, out);
+                log.info("Statement for Wallet ID {} written with {} entries", walletId, written);
+            } catch (IOException e) {
+                // Usually the client went away; the open cursor is closed above either way
+                throw new UncheckedIOException("Statement export for " + walletId + " aborted", e);
+            }
+        });
+    }
+
+    private long write(TransactionHistoryDTO opening, Cursor<JournalEntry> entries, StatementFormat format,
+                       OutputStream response) throws IOException {
+        OutputStream out = new BufferedOutputStream(response);
+        long written = 0;
+
+        if (format == StatementFormat.CSV) {
+            out.write(CSV_HEADER.getBytes(StandardCharsets.UTF_8));
+        }
+        writeLine(opening, format, out);
+        out.flush();
+
+        for (JournalEntry entry : entries) {
+            writeLine(TransactionHistoryDTO.create(entry.transactionId(), entry.type(), entry.amount(), entry.createdAt()),
+                    format, out);
+
+            if (++written % FLUSH_EVERY == 0) {
+                out.flush();
+            }
+        }
+
+        out.flush();
+        return written;
+    }
+
+    private void writeLine(TransactionHistoryDTO line, StatementFormat format, OutputStream out) throws IOException {
+        switch (format) {
+            case CSV -> out.write(toCsv(line).getBytes(StandardCharsets.UTF_8));
+            case NDJSON -> out.write(objectMapper.writeValueAsBytes(line));
+        }
+        out.write('\n');
+    }
+
+    // Transaction IDs and entry types never contain commas or quotes, so no field needs quoting
+    private static String toCsv(TransactionHistoryDTO line) {
+        String transactionId = line.transactionId() != null ? line.transactionId() : "";
+        return transactionId + ',' + line.type() + ',' + line.amount().toPlainString() + ',' + line.timestamp();
+    }
+}
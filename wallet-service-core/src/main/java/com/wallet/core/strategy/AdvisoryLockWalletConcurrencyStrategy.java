@@ -0,0 +1,44 @@
+package com.wallet.core.strategy;
+
+import com.wallet.common.enums.WalletConcurrencyMode;
+import com.wallet.core.entity.Wallet;
+import com.wallet.core.mapper.WalletMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Serializes writers on a transaction-scoped Postgres advisory lock keyed on the wallet ID
+ * instead of the row itself, so plain readers (history, balance) never queue behind a
+ * transfer. Locks are taken lowest wallet ID first and released at commit or rollback.
+ * Two wallet IDs hashing to the same key only means they share a lock.
+ */
+@Component
+@RequiredArgsConstructor
+public class AdvisoryLockWalletConcurrencyStrategy implements WalletConcurrencyStrategy {
+
+    private final WalletMapper walletMapper;
+
+    @Override
+    public WalletConcurrencyMode getSupportedMode() {
+        return WalletConcurrencyMode.ADVISORY;
+    }
+
+    @Override
+    public Map<String, Wallet> loadForUpdate(Collection<String> walletIds) {
+        List<String> ordered = walletIds.stream().distinct().sorted().toList();
+        ordered.forEach(walletMapper::acquireWalletAdvisoryLock);
+
+        if (ordered.isEmpty()) {
+            return Map.of();
+        }
+        // Read only after every lock is held, so the balances cannot move underneath us
+        return walletMapper.findWalletsByIds(ordered).stream()
+                .collect(Collectors.toMap(Wallet::id, Function.identity()));
+    }
+}
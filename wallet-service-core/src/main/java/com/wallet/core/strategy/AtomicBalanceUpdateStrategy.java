@@ -0,0 +1,44 @@
+package com.wallet.core.strategy;
+
+import com.wallet.common.enums.BalanceUpdateMode;
+import com.wallet.common.exception.WalletBusinessException;
+import com.wallet.core.entity.Wallet;
+import com.wallet.core.mapper.WalletMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * Lets Postgres apply the amount relative to the balance it currently holds
+ * ({@code balance = balance - amount}) and return the result. The row lock taken by
+ * the UPDATE serializes writers on the same wallet, so concurrent credits to one
+ * receiver queue behind each other instead of failing. The debit is guarded in the
+ * WHERE clause, which is the authoritative overdraft check in this mode; the balance
+ * read during validation is only used to fail fast.
+ * <p>
+ * The version is still bumped so that writers using the optimistic mode notice the change.
+ */
+@Component
+@RequiredArgsConstructor
+public class AtomicBalanceUpdateStrategy implements BalanceUpdateStrategy {
+
+    private final WalletMapper walletMapper;
+
+    @Override
+    public BalanceUpdateMode getSupportedMode() {
+        return BalanceUpdateMode.ATOMIC;
+    }
+
+    @Override
+    public BigDecimal debit(Wallet sender, BigDecimal amount) {
+        return walletMapper.debitWalletBalance(sender.id(), amount)
+                .orElseThrow(() -> new WalletBusinessException("Insufficient funds"));
+    }
+
+    @Override
+    public BigDecimal credit(Wallet receiver, BigDecimal amount) {
+        return walletMapper.creditWalletBalance(receiver.id(), amount)
+                .orElseThrow(() -> new WalletBusinessException("Receiver wallet not found"));
+    }
+}
@@ -0,0 +1,17 @@
+package com.wallet.core.strategy;
+
+import com.wallet.common.enums.BalanceUpdateMode;
+import com.wallet.core.entity.Wallet;
+
+import java.math.BigDecimal;
+
+public interface BalanceUpdateStrategy {
+    // Identifies which strategy this is
+    BalanceUpdateMode getSupportedMode();
+
+    // Takes the amount out of the sender wallet and returns its new balance
+    BigDecimal debit(Wallet sender, BigDecimal amount);
+
+    // Adds the amount to the receiver wallet and returns its new balance
+    BigDecimal credit(Wallet receiver, BigDecimal amount);
+}
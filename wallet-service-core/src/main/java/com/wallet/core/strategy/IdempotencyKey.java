@@ -0,0 +1,28 @@
+package com.wallet.core.strategy;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * An {@code X-Request-ID} as the idempotency stores see it. The cache tiers key on
+ * {@code hash}, a SHA-256 of the client ID and request ID, so keys have a fixed size however
+ * long the client's IDs are and one client can never replay another client's response. The
+ * database tier needs the raw request ID, which is what the ledger rows carry.
+ */
+public record IdempotencyKey(String clientId, String requestId, String hash) {
+
+    private static final String KEY_PREFIX = "IDEMPOTENCY:";
+
+    public static IdempotencyKey of(String clientId, String requestId) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest((clientId + ":" + requestId).getBytes(StandardCharsets.UTF_8));
+            return new IdempotencyKey(clientId, requestId,
+                    KEY_PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(digest));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
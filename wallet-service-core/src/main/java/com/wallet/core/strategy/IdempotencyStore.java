@@ -0,0 +1,27 @@
+package com.wallet.core.strategy;
+
+import com.wallet.common.enums.IdempotencyBackend;
+
+import java.time.Duration;
+
+/**
+ * One place idempotency keys can live. Values are an {@link com.wallet.common.enums.IdempotencyState}
+ * name for the transient states, or the stored response JSON once a request completed.
+ */
+public interface IdempotencyStore {
+    // Identifies which backend this is
+    IdempotencyBackend getSupportedBackend();
+
+    // Sets the key IN_PROGRESS for the lease if it is free or FAILED_RETRYABLE and returns null,
+    // otherwise returns what the key holds
+    String acquire(IdempotencyKey key, Duration lease);
+
+    // Replaces the lease with the response JSON, kept for the TTL
+    void complete(IdempotencyKey key, String response, Duration ttl);
+
+    // Marks the key FAILED_RETRYABLE, so the next request with it runs again
+    void releaseForRetry(IdempotencyKey key, Duration retryWindow);
+
+    // Undoes an acquire when a later tier turns out to know the key already
+    void forget(IdempotencyKey key);
+}
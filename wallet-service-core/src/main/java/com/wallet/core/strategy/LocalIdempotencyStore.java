@@ -0,0 +1,102 @@
+package com.wallet.core.strategy;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.wallet.common.enums.IdempotencyBackend;
+import com.wallet.common.enums.IdempotencyState;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Keys this instance has seen recently. In front of Redis it answers retries of a request
+ * that ran here, and duplicates racing a request still running here, without a network hop.
+ * On its own it is only correct with a single instance.
+ * <p>
+ * Entries live for their own TTL, capped at {@code app.idempotency.store.local.max-ttl} so
+ * memory stays bounded and another instance's later writes are picked up from Redis.
+ */
+@Component
+public class LocalIdempotencyStore implements IdempotencyStore {
+
+    private final Cache<String, Entry> entries;
+    private final Duration maxTtl;
+
+    public LocalIdempotencyStore(@Value("${app.idempotency.store.local.max-size:100000}") long maxSize,
+                                 @Value("${app.idempotency.store.local.max-ttl:5m}") Duration maxTtl,
+                                 MeterRegistry meterRegistry) {
+        this.maxTtl = maxTtl;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new EntryExpiry())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, "idempotency.local");
+    }
+
+    @Override
+    public IdempotencyBackend getSupportedBackend() {
+        return IdempotencyBackend.LOCAL;
+    }
+
+    @Override
+    public String acquire(IdempotencyKey key, Duration lease) {
+        String[] current = new String[1];
+        entries.asMap().compute(key.hash(), (hash, existing) -> {
+            if (existing == null || IdempotencyState.FAILED_RETRYABLE.name().equals(existing.value())) {
+                return entry(IdempotencyState.IN_PROGRESS.name(), lease);
+            }
+            current[0] = existing.value();
+            return existing;
+        });
+        return current[0];
+    }
+
+    @Override
+    public void complete(IdempotencyKey key, String response, Duration ttl) {
+        entries.put(key.hash(), entry(response, ttl));
+    }
+
+    @Override
+    public void releaseForRetry(IdempotencyKey key, Duration retryWindow) {
+        entries.put(key.hash(), entry(IdempotencyState.FAILED_RETRYABLE.name(), retryWindow));
+    }
+
+    @Override
+    public void forget(IdempotencyKey key) {
+        entries.invalidate(key.hash());
+    }
+
+    private Entry entry(String value, Duration ttl) {
+        long ttlNanos = (ttl.compareTo(maxTtl) < 0 ? ttl : maxTtl).toNanos();
+        return new Entry(value, System.nanoTime() + ttlNanos);
+    }
+
+    // expiresAt is on the System.nanoTime() clock, the same one Caffeine's default ticker reads
+    private record Entry(String value, long expiresAt) {
+    }
+
+    // The deadline travels with the entry, so a compute that keeps an entry does not extend it
+    private static final class EntryExpiry implements Expiry<String, Entry> {
+
+        @Override
+        public long expireAfterCreate(String key, Entry entry, long currentTime) {
+            return entry.expiresAt() - currentTime;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+            return entry.expiresAt() - currentTime;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.wallet.core.strategy;
+
+import com.wallet.common.enums.BalanceUpdateMode;
+import com.wallet.common.exception.WalletConcurrencyException;
+import com.wallet.core.entity.Wallet;
+import com.wallet.core.mapper.WalletMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * Computes the new balance from the wallet read during validation and writes it back
+ * only if nobody else has touched the row since (version check). Any concurrent write
+ * to the same wallet, including a credit, makes this transfer fail.
+ */
+@Component
+@RequiredArgsConstructor
+public class OptimisticBalanceUpdateStrategy implements BalanceUpdateStrategy {
+
+    private final WalletMapper walletMapper;
+
+    @Override
+    public BalanceUpdateMode getSupportedMode() {
+        return BalanceUpdateMode.OPTIMISTIC;
+    }
+
+    @Override
+    public BigDecimal debit(Wallet sender, BigDecimal amount) {
+        BigDecimal newBalance = sender.balance().subtract(amount);
+        int updated = walletMapper.updateWalletBalance(sender.id(), newBalance, sender.version());
+        if (updated == 0) throw new WalletConcurrencyException("Concurrency error: Sender wallet state changed.");
+        return newBalance;
+    }
+
+    @Override
+    public BigDecimal credit(Wallet receiver, BigDecimal amount) {
+        BigDecimal newBalance = receiver.balance().add(amount);
+        int updated = walletMapper.updateWalletBalance(receiver.id(), newBalance, receiver.version());
+        if (updated == 0) throw new WalletConcurrencyException("Concurrency error: Receiver wallet state changed.");
+        return newBalance;
+    }
+}
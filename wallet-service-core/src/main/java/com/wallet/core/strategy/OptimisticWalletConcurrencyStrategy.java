@@ -0,0 +1,37 @@
+package com.wallet.core.strategy;
+
+import com.wallet.common.enums.WalletConcurrencyMode;
+import com.wallet.core.entity.Wallet;
+import com.wallet.core.mapper.WalletMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * No locks at read time. Whoever writes second loses the version check in
+ * {@code updateWalletBalance} and the transfer is aborted.
+ */
+@Component
+@RequiredArgsConstructor
+public class OptimisticWalletConcurrencyStrategy implements WalletConcurrencyStrategy {
+
+    private final WalletMapper walletMapper;
+
+    @Override
+    public WalletConcurrencyMode getSupportedMode() {
+        return WalletConcurrencyMode.OPTIMISTIC;
+    }
+
+    @Override
+    public Map<String, Wallet> loadForUpdate(Collection<String> walletIds) {
+        if (walletIds.isEmpty()) {
+            return Map.of();
+        }
+        return walletMapper.findWalletsByIds(walletIds).stream()
+                .collect(Collectors.toMap(Wallet::id, Function.identity()));
+    }
+}
@@ -0,0 +1,40 @@
+package com.wallet.core.strategy;
+
+import com.wallet.common.enums.WalletConcurrencyMode;
+import com.wallet.core.entity.Wallet;
+import com.wallet.core.mapper.WalletMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Locks the wallet rows with one {@code SELECT ... ORDER BY id FOR UPDATE} before anything
+ * is validated, so concurrent writers wait instead of failing at the version check. Rows
+ * are always locked lowest wallet ID first, which keeps two transfers between the same
+ * wallets in opposite directions from deadlocking.
+ */
+@Component
+@RequiredArgsConstructor
+public class PessimisticWalletConcurrencyStrategy implements WalletConcurrencyStrategy {
+
+    private final WalletMapper walletMapper;
+
+    @Override
+    public WalletConcurrencyMode getSupportedMode() {
+        return WalletConcurrencyMode.PESSIMISTIC;
+    }
+
+    @Override
+    public Map<String, Wallet> loadForUpdate(Collection<String> walletIds) {
+        if (walletIds.isEmpty()) {
+            return Map.of();
+        }
+        // One statement, rows locked in ORDER BY id
+        return walletMapper.findWalletsByIdsForUpdate(walletIds).stream()
+                .collect(Collectors.toMap(Wallet::id, Function.identity()));
+    }
+}
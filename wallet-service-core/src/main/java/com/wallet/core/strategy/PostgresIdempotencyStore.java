@@ -0,0 +1,49 @@
+package com.wallet.core.strategy;
+
+import com.wallet.common.enums.IdempotencyBackend;
+import com.wallet.common.enums.IdempotencyState;
+import com.wallet.core.mapper.WalletMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * The durable fallback: every money movement already writes its request ID into
+ * {@code transaction_requests} or {@code holds}, unique per request (or per batch item,
+ * with its {@code batch_index}), so the database can always tell whether a request ran,
+ * even with Redis down. Any committed item of a batch counts, whichever items were rejected. It cannot tell
+ * what the response was, so a known key comes back as a bare {@code COMPLETED}, and it has
+ * no leases: two copies racing past this check are stopped by the unique constraint when
+ * the second one inserts.
+ */
+@Component
+@RequiredArgsConstructor
+public class PostgresIdempotencyStore implements IdempotencyStore {
+
+    private final WalletMapper walletMapper;
+
+    @Override
+    public IdempotencyBackend getSupportedBackend() {
+        return IdempotencyBackend.POSTGRES;
+    }
+
+    @Override
+    public String acquire(IdempotencyKey key, Duration lease) {
+        return walletMapper.existsRequest(key.requestId()) ? IdempotencyState.COMPLETED.name() : null;
+    }
+
+    // The request's own ledger rows are the record, nothing else to write
+    @Override
+    public void complete(IdempotencyKey key, String response, Duration ttl) {
+    }
+
+    // A rejected request rolled back its rows, so its ID is already free here
+    @Override
+    public void releaseForRetry(IdempotencyKey key, Duration retryWindow) {
+    }
+
+    @Override
+    public void forget(IdempotencyKey key) {
+    }
+}
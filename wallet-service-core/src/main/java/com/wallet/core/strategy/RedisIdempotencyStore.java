@@ -0,0 +1,54 @@
+package com.wallet.core.strategy;
+
+import com.wallet.common.enums.IdempotencyBackend;
+import com.wallet.common.enums.IdempotencyState;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+public class RedisIdempotencyStore implements IdempotencyStore {
+
+    // Takes the key when it is free or only holds a retryable failure; otherwise returns what it holds
+    private static final RedisScript<String> ACQUIRE = RedisScript.of("""
+            local current = redis.call('GET', KEYS[1])
+            if (not current) or current == ARGV[1] then
+                redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3])
+                return nil
+            end
+            return current
+            """, String.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Override
+    public IdempotencyBackend getSupportedBackend() {
+        return IdempotencyBackend.REDIS;
+    }
+
+    @Override
+    public String acquire(IdempotencyKey key, Duration lease) {
+        return redisTemplate.execute(ACQUIRE, List.of(key.hash()), IdempotencyState.FAILED_RETRYABLE.name(),
+                IdempotencyState.IN_PROGRESS.name(), String.valueOf(lease.toMillis()));
+    }
+
+    @Override
+    public void complete(IdempotencyKey key, String response, Duration ttl) {
+        redisTemplate.opsForValue().set(key.hash(), response, ttl);
+    }
+
+    @Override
+    public void releaseForRetry(IdempotencyKey key, Duration retryWindow) {
+        redisTemplate.opsForValue().set(key.hash(), IdempotencyState.FAILED_RETRYABLE.name(), retryWindow);
+    }
+
+    @Override
+    public void forget(IdempotencyKey key) {
+        redisTemplate.delete(key.hash());
+    }
+}
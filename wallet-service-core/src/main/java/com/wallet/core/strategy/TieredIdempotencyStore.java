@@ -0,0 +1,144 @@
+package com.wallet.core.strategy;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * The configured idempotency tiers, asked in order. The first tier that already knows a key
+ * answers for it, so a {@code LOCAL} tier in front of {@code REDIS} serves recent keys
+ * without a round trip. A new key is taken in every tier; writes go to every tier.
+ * <p>
+ * A tier that fails (Redis down, or slower than its command timeout) is replaced by the
+ * fallback tier for that call. Without a fallback, acquire fails and the request is
+ * refused. Completing or releasing a key never fails the request, since its outcome is
+ * already decided by then.
+ * <p>
+ * Publishes {@code idempotency.store.latency} per tier and operation, and
+ * {@code idempotency.store.fallbacks} per failing tier.
+ */
+@Slf4j
+public class TieredIdempotencyStore {
+
+    private final List<IdempotencyStore> tiers;
+    private final IdempotencyStore fallback;
+    private final Map<String, Timer> timers = new HashMap<>();
+    private final Map<IdempotencyStore, Counter> fallbacks = new HashMap<>();
+
+    public TieredIdempotencyStore(List<IdempotencyStore> tiers, IdempotencyStore fallback, MeterRegistry meterRegistry) {
+        this.tiers = List.copyOf(tiers);
+        this.fallback = fallback;
+
+        List<IdempotencyStore> all = new ArrayList<>(tiers);
+        if (fallback != null) {
+            all.add(fallback);
+        }
+        for (IdempotencyStore store : all) {
+            for (String operation : List.of("acquire", "complete", "release")) {
+                timers.put(timerKey(store, operation), Timer.builder("idempotency.store.latency")
+                        .tag("tier", tierName(store))
+                        .tag("operation", operation)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+            }
+            fallbacks.put(store, Counter.builder("idempotency.store.fallbacks")
+                    .tag("tier", tierName(store))
+                    .register(meterRegistry));
+        }
+    }
+
+    // null when the key was taken in every tier, otherwise what the first tier that knows it holds
+    public String acquire(IdempotencyKey key, Duration lease) {
+        List<IdempotencyStore> taken = new ArrayList<>(tiers.size());
+        for (IdempotencyStore tier : tiers) {
+            String current;
+            try {
+                current = timed(tier, "acquire", () -> tier.acquire(key, lease));
+            } catch (RuntimeException e) {
+                if (fallback == null) {
+                    taken.forEach(earlier -> earlier.forget(key));
+                    throw e;
+                }
+                fellBack(tier, e);
+                current = timed(fallback, "acquire", () -> fallback.acquire(key, lease));
+                if (current != null) {
+                    taken.forEach(earlier -> earlier.forget(key));
+                }
+                return current;
+            }
+
+            if (current != null) {
+                // An earlier tier took a key this one already had
+                taken.forEach(earlier -> earlier.forget(key));
+                return current;
+            }
+            taken.add(tier);
+        }
+        return null;
+    }
+
+    public void complete(IdempotencyKey key, String response, Duration ttl) {
+        forEachTier("complete", tier -> tier.complete(key, response, ttl));
+    }
+
+    public void releaseForRetry(IdempotencyKey key, Duration retryWindow) {
+        forEachTier("release", tier -> tier.releaseForRetry(key, retryWindow));
+    }
+
+    private void forEachTier(String operation, Consumer<IdempotencyStore> write) {
+        for (IdempotencyStore tier : tiers) {
+            try {
+                timed(tier, operation, () -> {
+                    write.accept(tier);
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                if (fallback == null) {
+                    log.error("Idempotency tier {} failed to {} a key", tierName(tier), operation, e);
+                    continue;
+                }
+                fellBack(tier, e);
+                try {
+                    timed(fallback, operation, () -> {
+                        write.accept(fallback);
+                        return null;
+                    });
+                } catch (RuntimeException fallbackFailure) {
+                    log.error("Idempotency fallback {} failed to {} a key", tierName(fallback), operation, fallbackFailure);
+                }
+            }
+        }
+    }
+
+    private <T> T timed(IdempotencyStore store, String operation, Supplier<T> call) {
+        Timer.Sample sample = Timer.start();
+        try {
+            return call.get();
+        } finally {
+            sample.stop(timers.get(timerKey(store, operation)));
+        }
+    }
+
+    private void fellBack(IdempotencyStore tier, RuntimeException e) {
+        fallbacks.get(tier).increment();
+        log.warn("Idempotency tier {} unavailable, using {}: {}", tierName(tier), tierName(fallback), e.getMessage());
+    }
+
+    private static String timerKey(IdempotencyStore store, String operation) {
+        return store.getSupportedBackend() + ":" + operation;
+    }
+
+    private static String tierName(IdempotencyStore store) {
+        return store.getSupportedBackend().name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,16 @@
+package com.wallet.core.strategy;
+
+import com.wallet.common.enums.WalletConcurrencyMode;
+import com.wallet.core.entity.Wallet;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface WalletConcurrencyStrategy {
+    // Identifies which strategy this is
+    WalletConcurrencyMode getSupportedMode();
+
+    // Reads the wallets a mutation is about to change, holding whatever lock the mode needs
+    // until the surrounding transaction ends. Wallets that do not exist are absent from the map.
+    Map<String, Wallet> loadForUpdate(Collection<String> walletIds);
+}
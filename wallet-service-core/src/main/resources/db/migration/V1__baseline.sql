@@ -0,0 +1,72 @@
+-- Baseline: the schema as schema.sql used to create it on every boot. Everything is IF NOT EXISTS,
+-- so databases created that way are adopted as they are.
+
+-- 1. The Wallet Table (Holds the current balance)
+CREATE TABLE IF NOT EXISTS wallets (
+                                       id VARCHAR(36) PRIMARY KEY,
+    user_id VARCHAR(36) NOT NULL UNIQUE,
+    balance DECIMAL(19, 4) NOT NULL DEFAULT 0.0000,
+    currency VARCHAR(3) NOT NULL DEFAULT 'MYR',
+    status VARCHAR(20) NOT NULL DEFAULT 'ACTIVE',
+    version INT NOT NULL DEFAULT 0, -- Used for Optimistic Locking
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    shard_count INT NOT NULL DEFAULT 0, -- 0 = balance lives in this row, N = spread over N wallet_balance_shards rows
+    held_balance DECIMAL(19, 4) NOT NULL DEFAULT 0.0000 -- Reserved by pending holds, available = balance - held_balance
+    );
+
+ALTER TABLE wallets ADD COLUMN IF NOT EXISTS shard_count INT NOT NULL DEFAULT 0;
+ALTER TABLE wallets ADD COLUMN IF NOT EXISTS held_balance DECIMAL(19, 4) NOT NULL DEFAULT 0.0000;
+
+-- 2. Transaction Requests (For Idempotency - Prevents double charging)
+CREATE TABLE IF NOT EXISTS transaction_requests (
+                                                    id VARCHAR(36) PRIMARY KEY,
+    request_id VARCHAR(100) NOT NULL UNIQUE,
+    type VARCHAR(20) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    amount DECIMAL(19, 4) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    );
+
+-- 3. The Immutable Ledger (Double-Entry Bookkeeping)
+CREATE TABLE IF NOT EXISTS journal_entries (
+    id BIGSERIAL PRIMARY KEY,
+    transaction_id VARCHAR(36) NOT NULL REFERENCES transaction_requests(id),
+    wallet_id VARCHAR(36) NOT NULL REFERENCES wallets(id),
+    type VARCHAR(10) NOT NULL, -- CREDIT or DEBIT
+    amount DECIMAL(19, 4) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    );
+
+-- 4. Transactional Outbox (Safely queues Kafka events)
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id BIGSERIAL PRIMARY KEY,
+    topic VARCHAR(100) NOT NULL,
+    payload TEXT NOT NULL, -- We will store the JSON string here
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    );
+
+-- 5. Balance Shards (Split wallets: the visible balance is wallets.balance plus the sum of its shards)
+CREATE TABLE IF NOT EXISTS wallet_balance_shards (
+    wallet_id VARCHAR(36) NOT NULL REFERENCES wallets(id),
+    shard_no INT NOT NULL,
+    balance DECIMAL(19, 4) NOT NULL DEFAULT 0.0000 CHECK (balance >= 0),
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (wallet_id, shard_no)
+    );
+
+-- 6. Holds (Hold settlement mode: reserved on the sender by the transfer, moved to the receiver by the settler)
+CREATE TABLE IF NOT EXISTS holds (
+    id VARCHAR(36) PRIMARY KEY, -- The transaction ID the hold settles into
+    request_id VARCHAR(100) NOT NULL UNIQUE,
+    from_wallet_id VARCHAR(36) NOT NULL REFERENCES wallets(id),
+    to_wallet_id VARCHAR(36) NOT NULL REFERENCES wallets(id),
+    amount DECIMAL(19, 4) NOT NULL CHECK (amount > 0),
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING', -- PENDING, SETTLED or RELEASED
+    expires_at TIMESTAMP NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    settled_at TIMESTAMP
+    );
+
+CREATE INDEX IF NOT EXISTS idx_holds_pending ON holds (created_at) WHERE status = 'PENDING';
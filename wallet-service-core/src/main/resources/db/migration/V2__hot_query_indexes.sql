@@ -0,0 +1,13 @@
+-- Indexes for the queries that run on every request or every relay tick. Without them both
+-- degrade into sequential scans as the ledger grows.
+
+-- Wallet history (findJournalEntriesByWalletId): newest 50 legs of one wallet, read straight
+-- off the index with no sort
+CREATE INDEX IF NOT EXISTS idx_journal_entries_wallet_created ON journal_entries (wallet_id, created_at DESC);
+
+-- Legs of one transaction, and the foreign key to transaction_requests
+CREATE INDEX IF NOT EXISTS idx_journal_entries_transaction ON journal_entries (transaction_id);
+
+-- Outbox relay (findPendingOutboxEvents): only the few PENDING rows are indexed, published
+-- rows drop out of it
+CREATE INDEX IF NOT EXISTS idx_outbox_events_pending ON outbox_events (created_at) WHERE status = 'PENDING';
@@ -0,0 +1,42 @@
+-- journal_entries becomes range-partitioned by month on created_at. Recent history reads, index
+-- maintenance and vacuum then only touch the partitions that hold recent rows.
+--
+-- The existing table is not copied: it is attached as the first partition, covering everything
+-- up to the end of the current month. LedgerPartitionManager creates the months after it.
+
+-- 1. Free the names the partitioned table takes over. Index names are schema-wide.
+ALTER TABLE journal_entries RENAME TO journal_entries_legacy;
+ALTER INDEX idx_journal_entries_wallet_created RENAME TO journal_entries_legacy_wallet_created_idx;
+ALTER INDEX idx_journal_entries_transaction RENAME TO journal_entries_legacy_transaction_idx;
+
+-- 2. The partition key must be part of the primary key and may not be null
+ALTER TABLE journal_entries_legacy DROP CONSTRAINT journal_entries_pkey;
+UPDATE journal_entries_legacy SET created_at = CURRENT_TIMESTAMP WHERE created_at IS NULL;
+ALTER TABLE journal_entries_legacy ALTER COLUMN created_at SET NOT NULL;
+
+-- The foreign keys are declared once on the parent below, keeping these would check every row twice
+ALTER TABLE journal_entries_legacy DROP CONSTRAINT IF EXISTS journal_entries_transaction_id_fkey;
+ALTER TABLE journal_entries_legacy DROP CONSTRAINT IF EXISTS journal_entries_wallet_id_fkey;
+
+-- 3. The partitioned ledger, numbered from the same sequence
+ALTER TABLE journal_entries_legacy ALTER COLUMN id DROP DEFAULT;
+
+CREATE TABLE journal_entries (
+    id BIGINT NOT NULL DEFAULT nextval('journal_entries_id_seq'),
+    transaction_id VARCHAR(36) NOT NULL REFERENCES transaction_requests(id),
+    wallet_id VARCHAR(36) NOT NULL REFERENCES wallets(id),
+    type VARCHAR(10) NOT NULL, -- CREDIT or DEBIT
+    amount DECIMAL(19, 4) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, created_at)
+    ) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE journal_entries_id_seq OWNED BY journal_entries.id;
+
+-- Declared on the parent, created on every partition (the legacy ones are adopted as they are)
+CREATE INDEX idx_journal_entries_wallet_created ON journal_entries (wallet_id, created_at DESC);
+CREATE INDEX idx_journal_entries_transaction ON journal_entries (transaction_id);
+
+-- 4. Everything written so far, up to the end of this month
+ALTER TABLE journal_entries ATTACH PARTITION journal_entries_legacy
+    FOR VALUES FROM (MINVALUE) TO (date_trunc('month', LOCALTIMESTAMP) + INTERVAL '1 month');
@@ -0,0 +1,4 @@
+-- History pages are read in (created_at, id) order, so the id tiebreak comes straight off the index
+-- and a page that continues from a cursor starts with an index seek.
+CREATE INDEX IF NOT EXISTS idx_journal_entries_wallet_created_id ON journal_entries (wallet_id, created_at DESC, id DESC);
+DROP INDEX IF EXISTS idx_journal_entries_wallet_created;
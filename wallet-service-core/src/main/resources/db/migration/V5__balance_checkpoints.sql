@@ -0,0 +1,12 @@
+-- Ledger balance of a wallet at a day boundary, covering every journal entry created before as_of.
+-- A balance at any instant is the checkpoint before it plus the entries since, instead of the whole ledger.
+CREATE TABLE IF NOT EXISTS balance_checkpoints (
+    wallet_id VARCHAR(36) NOT NULL REFERENCES wallets(id),
+    as_of TIMESTAMP NOT NULL,
+    balance DECIMAL(19, 4) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (wallet_id, as_of)
+    );
+
+-- The checkpoint job resumes from the newest boundary it wrote
+CREATE INDEX IF NOT EXISTS idx_balance_checkpoints_as_of ON balance_checkpoints (as_of);
@@ -0,0 +1,33 @@
+-- Ledger reconciliation: one row per run, and what each run found
+CREATE TABLE IF NOT EXISTS reconciliation_runs (
+    id BIGSERIAL PRIMARY KEY,
+    mode VARCHAR(20) NOT NULL, -- FULL or INCREMENTAL
+    status VARCHAR(20) NOT NULL, -- RUNNING, COMPLETED, FAILED or ABANDONED
+    since TIMESTAMP, -- Changes before this were left to earlier runs, NULL for a full run
+    watermark TIMESTAMP NOT NULL, -- When the run started; the next incremental run continues from here
+    wallets_checked BIGINT NOT NULL DEFAULT 0,
+    transfers_checked BIGINT NOT NULL DEFAULT 0,
+    discrepancies BIGINT NOT NULL DEFAULT 0,
+    started_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    finished_at TIMESTAMP
+    );
+
+-- At most one run at a time across all instances
+CREATE UNIQUE INDEX IF NOT EXISTS idx_reconciliation_runs_running ON reconciliation_runs (status) WHERE status = 'RUNNING';
+
+CREATE TABLE IF NOT EXISTS reconciliation_discrepancies (
+    id BIGSERIAL PRIMARY KEY,
+    run_id BIGINT NOT NULL REFERENCES reconciliation_runs(id),
+    type VARCHAR(30) NOT NULL, -- BALANCE_MISMATCH or UNBALANCED_TRANSFER
+    wallet_id VARCHAR(36),
+    transaction_id VARCHAR(36),
+    expected DECIMAL(19, 4), -- Journal balance of the wallet, or the transfer's amount
+    actual DECIMAL(19, 4), -- wallets.balance plus shards, or the transfer's debits
+    detail VARCHAR(200),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    );
+
+CREATE INDEX IF NOT EXISTS idx_reconciliation_discrepancies_run ON reconciliation_discrepancies (run_id);
+
+-- Incremental runs find the transfers since their watermark without reading the whole table
+CREATE INDEX IF NOT EXISTS idx_transaction_requests_created ON transaction_requests (created_at);
@@ -0,0 +1,10 @@
+-- Batch items record the batch's own request ID plus their position in the batch, instead of
+-- a '<request id>#<index>' suffix that could overflow request_id. A single request keeps a
+-- NULL batch_index. Items written before this version keep their suffixed request_id.
+ALTER TABLE transaction_requests ADD COLUMN IF NOT EXISTS batch_index INT;
+
+ALTER TABLE transaction_requests DROP CONSTRAINT IF EXISTS transaction_requests_request_id_key;
+CREATE UNIQUE INDEX IF NOT EXISTS idx_transaction_requests_request
+    ON transaction_requests (request_id) WHERE batch_index IS NULL;
+CREATE UNIQUE INDEX IF NOT EXISTS idx_transaction_requests_batch_item
+    ON transaction_requests (request_id, batch_index) WHERE batch_index IS NOT NULL;
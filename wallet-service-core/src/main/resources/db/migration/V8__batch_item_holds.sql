@@ -0,0 +1,10 @@
+-- Batch and group-commit transfers place holds too in HOLD settlement mode. Every item of a
+-- batch shares the batch's request ID, so holds get the same batch_index as transaction_requests
+-- and the request ID is only unique per batch item. A single transfer keeps a NULL batch_index.
+ALTER TABLE holds ADD COLUMN IF NOT EXISTS batch_index INT;
+
+ALTER TABLE holds DROP CONSTRAINT IF EXISTS holds_request_id_key;
+CREATE UNIQUE INDEX IF NOT EXISTS idx_holds_request
+    ON holds (request_id) WHERE batch_index IS NULL;
+CREATE UNIQUE INDEX IF NOT EXISTS idx_holds_batch_item
+    ON holds (request_id, batch_index) WHERE batch_index IS NOT NULL;
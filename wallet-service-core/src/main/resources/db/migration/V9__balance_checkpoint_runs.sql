@@ -0,0 +1,14 @@
+-- The checkpoint job's own watermark: every midnight it has processed, whether or not any wallet
+-- moved that day. Resuming from the newest checkpoint row instead would never get past a day with
+-- no entries, nor past a first run over an empty wallets table.
+CREATE TABLE IF NOT EXISTS balance_checkpoint_runs (
+    as_of TIMESTAMP PRIMARY KEY,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    );
+
+INSERT INTO balance_checkpoint_runs (as_of)
+SELECT MAX(as_of) FROM balance_checkpoints HAVING MAX(as_of) IS NOT NULL
+ON CONFLICT DO NOTHING;
+
+-- Only the job's resume query used it
+DROP INDEX IF EXISTS idx_balance_checkpoints_as_of;
@@ -6,17 +6,30 @@ import com.wallet.common.grpc.UserRequest;
 import com.wallet.common.grpc.UserResponse;
 import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
+import com.wallet.core.concurrency.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class AuthGrpcFacadeImplTest {
@@ -24,9 +37,28 @@ class AuthGrpcFacadeImplTest {
     @Mock
     private AuthServiceGrpcApiGrpc.AuthServiceGrpcApiBlockingStub authBlockingStub;
 
-    @InjectMocks
+    private SimpleMeterRegistry meterRegistry;
+    private CircuitBreaker circuitBreaker;
+    private final ExecutorService lookupExecutor = Executors.newVirtualThreadPerTaskExecutor();
     private AuthGrpcFacadeImpl authGrpcFacade;
 
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        circuitBreaker = new CircuitBreaker("auth-service", 3, Duration.ofMinutes(1), meterRegistry);
+        authGrpcFacade = new AuthGrpcFacadeImpl(1000, Duration.ofMinutes(10), Duration.ofSeconds(30),
+                Duration.ofHours(24), Duration.ofMillis(500), circuitBreaker, lookupExecutor, meterRegistry);
+
+        // Inject the stub via ReflectionTestUtils, matching the @GrpcClient behavior
+        ReflectionTestUtils.setField(authGrpcFacade, "authBlockingStub", authBlockingStub);
+        when(authBlockingStub.withDeadlineAfter(anyLong(), any(TimeUnit.class))).thenReturn(authBlockingStub);
+    }
+
+    @AfterEach
+    void tearDown() {
+        lookupExecutor.close();
+    }
+
     @Test
     void fetchUsername_WhenGrpcCallSucceeds_ReturnsUsername() {
         // Arrange
@@ -37,9 +69,6 @@ class AuthGrpcFacadeImplTest {
                 .setUsername(expectedUsername)
                 .build();
 
-        // Inject the stub via ReflectionTestUtils, matching the @GrpcClient behavior
-        ReflectionTestUtils.setField(authGrpcFacade, "authBlockingStub", authBlockingStub);
-
         when(authBlockingStub.getUserById(any(UserRequest.class))).thenReturn(mockResponse);
 
         // Act
@@ -56,8 +85,6 @@ class AuthGrpcFacadeImplTest {
         StatusRuntimeException exception = new StatusRuntimeException(
                 Status.NOT_FOUND.withDescription("User mapping not found in IDP"));
 
-        ReflectionTestUtils.setField(authGrpcFacade, "authBlockingStub", authBlockingStub);
-
         when(authBlockingStub.getUserById(any(UserRequest.class))).thenThrow(exception);
 
         // Act & Assert
@@ -65,4 +92,144 @@ class AuthGrpcFacadeImplTest {
                 .isInstanceOf(WalletBusinessException.class)
                 .hasMessageContaining("Could not verify user identity");
     }
+
+    @Test
+    void fetchUsername_WhenCalledRepeatedly_MakesOneRpcAndRecordsHits() {
+        // Arrange
+        when(authBlockingStub.getUserById(any(UserRequest.class)))
+                .thenReturn(UserResponse.newBuilder().setUsername("john_doe").build());
+
+        // Act
+        for (int i = 0; i < 5; i++) {
+            assertThat(authGrpcFacade.fetchUsername("user-123")).isEqualTo("john_doe");
+        }
+
+        // Assert
+        verify(authBlockingStub, times(1)).getUserById(any(UserRequest.class));
+        assertThat(gets("hit")).isEqualTo(4);
+        assertThat(gets("miss")).isEqualTo(1);
+    }
+
+    @Test
+    void fetchUsername_WhenUserIsNotFound_CachesTheNegativeAnswer() {
+        // Arrange
+        when(authBlockingStub.getUserById(any(UserRequest.class)))
+                .thenThrow(new StatusRuntimeException(Status.NOT_FOUND.withDescription("User mapping not found in IDP")));
+
+        // Act & Assert
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> authGrpcFacade.fetchUsername("ghost"))
+                    .isInstanceOf(WalletBusinessException.class)
+                    .hasMessage("Could not verify user identity: User mapping not found in IDP");
+        }
+        verify(authBlockingStub, times(1)).getUserById(any(UserRequest.class));
+    }
+
+    @Test
+    void fetchUsername_WhenAuthServiceIsUnavailable_DoesNotCacheTheFailure() {
+        // Arrange
+        when(authBlockingStub.getUserById(any(UserRequest.class)))
+                .thenThrow(new StatusRuntimeException(Status.UNAVAILABLE.withDescription("io exception")))
+                .thenReturn(UserResponse.newBuilder().setUsername("john_doe").build());
+
+        // Act & Assert
+        assertThatThrownBy(() -> authGrpcFacade.fetchUsername("user-123"))
+                .isInstanceOf(WalletBusinessException.class)
+                .hasMessage("Could not verify user identity: io exception");
+        assertThat(authGrpcFacade.fetchUsername("user-123")).isEqualTo("john_doe");
+        verify(authBlockingStub, times(2)).getUserById(any(UserRequest.class));
+    }
+
+    @Test
+    void fetchUsername_WhenManyCallersMissAtOnce_MakesASingleRpc() throws Exception {
+        // Arrange: the first RPC blocks until every caller is waiting on the same user ID
+        CountDownLatch release = new CountDownLatch(1);
+        when(authBlockingStub.getUserById(any(UserRequest.class))).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return UserResponse.newBuilder().setUsername("john_doe").build();
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<String>> results = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < 8; i++) {
+            results.add(pool.submit(() -> authGrpcFacade.fetchUsername("user-123")));
+        }
+        Thread.sleep(100);
+        release.countDown();
+
+        // Assert
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("john_doe");
+        }
+        pool.shutdown();
+        verify(authBlockingStub, times(1)).getUserById(any(UserRequest.class));
+    }
+
+    @Test
+    void fetchUsername_SetsADeadlineOnEveryCall() {
+        // Arrange
+        when(authBlockingStub.getUserById(any(UserRequest.class)))
+                .thenReturn(UserResponse.newBuilder().setUsername("john_doe").build());
+
+        // Act
+        authGrpcFacade.fetchUsername("user-123");
+
+        // Assert
+        verify(authBlockingStub).withDeadlineAfter(500, TimeUnit.MILLISECONDS);
+        assertThat(meterRegistry.get("auth.grpc.latency").tag("status", "OK").timer().count()).isEqualTo(1);
+        // Every status has its timer from the start, the call only recorded into one
+        assertThat(meterRegistry.get("auth.grpc.latency").timers()).hasSize(Status.Code.values().length);
+    }
+
+    @Test
+    void fetchUsername_WhenBreakerIsOpen_ServesStaleUsernameWithoutCallingAuth() {
+        // Arrange: entries expire from the main cache at once, one good lookup, then the auth service starts timing out
+        authGrpcFacade = new AuthGrpcFacadeImpl(1000, Duration.ZERO, Duration.ZERO,
+                Duration.ofHours(24), Duration.ofMillis(500), circuitBreaker, lookupExecutor, meterRegistry);
+        ReflectionTestUtils.setField(authGrpcFacade, "authBlockingStub", authBlockingStub);
+        when(authBlockingStub.getUserById(any(UserRequest.class)))
+                .thenReturn(UserResponse.newBuilder().setUsername("john_doe").build())
+                .thenThrow(new StatusRuntimeException(Status.DEADLINE_EXCEEDED.withDescription("deadline exceeded")));
+        authGrpcFacade.fetchUsername("user-123");
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> authGrpcFacade.fetchUsername("user-" + System.nanoTime()))
+                    .isInstanceOf(WalletBusinessException.class);
+        }
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        clearInvocations(authBlockingStub);
+
+        // Act
+        String username = authGrpcFacade.fetchUsername("user-123");
+
+        // Assert
+        assertThat(username).isEqualTo("john_doe");
+        verify(authBlockingStub, never()).getUserById(any(UserRequest.class));
+        assertThat(meterRegistry.get("auth.username.fallback").tag("outcome", "stale").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("auth.username.fallback").tag("outcome", "miss").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    void fetchUsername_WhenBreakerIsOpenAndNothingIsCached_ThrowsException() {
+        // Arrange
+        when(authBlockingStub.getUserById(any(UserRequest.class)))
+                .thenThrow(new StatusRuntimeException(Status.UNAVAILABLE.withDescription("io exception")));
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> authGrpcFacade.fetchUsername("user-123"))
+                    .isInstanceOf(WalletBusinessException.class);
+        }
+
+        // Act & Assert
+        assertThatThrownBy(() -> authGrpcFacade.fetchUsername("user-123"))
+                .isInstanceOf(WalletBusinessException.class)
+                .hasMessage("Could not verify user identity: auth service circuit is open");
+        verify(authBlockingStub, times(3)).getUserById(any(UserRequest.class));
+    }
+
+    private double gets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", "auth.username").tag("result", result)
+                .functionCounter().count();
+    }
 }
@@ -0,0 +1,92 @@
+package com.wallet.core.aspect;
+
+import com.wallet.common.exception.WalletBusinessException;
+import com.wallet.common.exception.WalletConcurrencyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConflictRetryAspectTest {
+
+    @Mock
+    private ProceedingJoinPoint joinPoint;
+
+    @Mock
+    private Signature signature;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ConflictRetryAspect conflictRetryAspect;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        conflictRetryAspect = new ConflictRetryAspect(3, Duration.ofMillis(1), Duration.ofMillis(5), meterRegistry);
+        lenient().when(joinPoint.getSignature()).thenReturn(signature);
+        lenient().when(signature.toShortString()).thenReturn("HandlerChainExecutor.execute(..)");
+    }
+
+    @Test
+    void retryOnConflict_WhenConflictClearsOnRetry_ReturnsResultAndCountsRecovery() throws Throwable {
+        // Arrange
+        when(joinPoint.proceed())
+                .thenThrow(new WalletConcurrencyException("Concurrency error: Receiver wallet state changed."))
+                .thenThrow(new CannotAcquireLockException("deadlock detected"))
+                .thenReturn("OK");
+
+        // Act
+        Object result = conflictRetryAspect.retryOnConflict(joinPoint);
+
+        // Assert
+        assertThat(result).isEqualTo("OK");
+        verify(joinPoint, times(3)).proceed();
+        assertThat(count("wallet.conflict.retry.attempts")).isEqualTo(2);
+        assertThat(count("wallet.conflict.retry.recovered")).isEqualTo(1);
+        assertThat(count("wallet.conflict.retry.exhausted")).isZero();
+    }
+
+    @Test
+    void retryOnConflict_WhenConflictPersists_GivesUpAfterMaxAttempts() throws Throwable {
+        // Arrange
+        when(joinPoint.proceed()).thenThrow(new WalletConcurrencyException("Concurrency error: Sender wallet state changed."));
+
+        // Act & Assert
+        assertThatThrownBy(() -> conflictRetryAspect.retryOnConflict(joinPoint))
+                .isInstanceOf(WalletConcurrencyException.class)
+                .hasMessage("Concurrency error: Sender wallet state changed.");
+
+        verify(joinPoint, times(3)).proceed();
+        assertThat(count("wallet.conflict.retry.attempts")).isEqualTo(2);
+        assertThat(count("wallet.conflict.retry.exhausted")).isEqualTo(1);
+    }
+
+    @Test
+    void retryOnConflict_WhenBusinessRuleFails_DoesNotRetry() throws Throwable {
+        // Arrange
+        when(joinPoint.proceed()).thenThrow(new WalletBusinessException("Insufficient funds"));
+
+        // Act & Assert
+        assertThatThrownBy(() -> conflictRetryAspect.retryOnConflict(joinPoint))
+                .isInstanceOf(WalletBusinessException.class)
+                .hasMessage("Insufficient funds");
+
+        verify(joinPoint, times(1)).proceed();
+        assertThat(count("wallet.conflict.retry.attempts")).isZero();
+    }
+
+    private double count(String name) {
+        return meterRegistry.get(name).counter().count();
+    }
+}
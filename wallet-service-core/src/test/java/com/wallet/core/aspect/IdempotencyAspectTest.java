@@ -1,20 +1,41 @@
 package com.wallet.core.aspect;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wallet.common.dto.WalletResponseDTO;
+import com.wallet.common.dto.TransferRequestDTO;
 import com.wallet.common.exception.WalletBusinessException;
+import com.wallet.core.annotation.Idempotent;
+import com.wallet.core.controller.WalletController;
+import com.wallet.core.handler.LimitCheckHandler;
+import com.wallet.core.handler.TransactionContext;
 import com.wallet.core.service.IdempotencyService;
+import com.wallet.core.service.IdempotencyService.StoredResponse;
 import jakarta.servlet.http.HttpServletRequest;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -23,19 +44,28 @@ class IdempotencyAspectTest {
     @Mock
     private IdempotencyService idempotencyService;
 
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
     @Mock
     private HttpServletRequest request;
 
     @Mock
     private ServletRequestAttributes attributes;
 
-    @InjectMocks
+    @Mock
+    private ProceedingJoinPoint joinPoint;
+
     private IdempotencyAspect idempotencyAspect;
 
     private MockedStatic<RequestContextHolder> mockedRequestContextHolder;
 
+    private final Method transferFunds = method("transferFunds", TransferRequestDTO.class);
+    private final Method transferFundsInBatch =
+            method("transferFundsInBatch", com.wallet.common.dto.BatchTransferRequestDTO.class);
+
     @BeforeEach
     void setUp() {
+        idempotencyAspect = new IdempotencyAspect(idempotencyService, objectMapper, new StandardEnvironment());
         mockedRequestContextHolder = mockStatic(RequestContextHolder.class);
     }
 
@@ -45,33 +75,169 @@ class IdempotencyAspectTest {
     }
 
     @Test
-    void aroundAdvice_WhenRequestNotProcessed_ProceedsWithExecution() {
+    void aroundAdvice_WhenRequestNotProcessed_ProceedsAndStoresTheResponse() throws Throwable {
         // Arrange
         String requestId = "req-123";
-        mockedRequestContextHolder.when(RequestContextHolder::getRequestAttributes).thenReturn(attributes);
-        when(attributes.getRequest()).thenReturn(request);
-        when(request.getHeader("X-Request-ID")).thenReturn(requestId);
+        givenRequestId(requestId);
+        WalletResponseDTO body = new WalletResponseDTO("W-1", new BigDecimal("90.00"), "MYR", "COMPLETED");
+        givenEndpoint(transferFunds);
+        when(idempotencyService.acquireOrReplay("client-1", requestId)).thenReturn(Optional.empty());
+        when(joinPoint.proceed()).thenReturn(ResponseEntity.ok(body));
 
         // Act
-        // The aspect uses @Before rather than @Around, so we call the check directly.
-        idempotencyAspect.checkIdempotency();
+        Object result = idempotencyAspect.applyIdempotency(joinPoint, transferFunds.getAnnotation(Idempotent.class));
 
         // Assert
-        verify(idempotencyService).checkAndLock(requestId);
+        assertThat(result).isEqualTo(ResponseEntity.ok(body));
+        verify(idempotencyService).complete("client-1", requestId,
+                new StoredResponse(200, objectMapper.writeValueAsString(body)), Duration.ofHours(24));
     }
 
     @Test
-    void aroundAdvice_WhenHeaderMissing_ThrowsException() {
+    void aroundAdvice_UsesTheTtlConfiguredForTheEndpoint() throws Throwable {
+        // Arrange
+        givenRequestId("req-123");
+        givenEndpoint(transferFundsInBatch);
+        when(idempotencyService.acquireOrReplay("client-1", "req-123")).thenReturn(Optional.empty());
+        when(joinPoint.proceed()).thenReturn(ResponseEntity.ok().build());
+
+        // Act
+        idempotencyAspect.applyIdempotency(joinPoint, transferFundsInBatch.getAnnotation(Idempotent.class));
+
+        // Assert
+        verify(idempotencyService).complete(eq("client-1"), eq("req-123"), any(), eq(Duration.ofHours(6)));
+    }
+
+    @Test
+    void aroundAdvice_WhenEndpointRejectsTheRequest_ReleasesTheKeyForRetry() throws Throwable {
+        // Arrange
+        givenRequestId("req-123");
+        when(idempotencyService.acquireOrReplay("client-1", "req-123")).thenReturn(Optional.empty());
+        when(joinPoint.proceed()).thenThrow(new WalletBusinessException("Insufficient funds"));
+
+        // Act & Assert
+        assertThatThrownBy(() -> idempotencyAspect.applyIdempotency(joinPoint, transferFunds.getAnnotation(Idempotent.class)))
+                .isInstanceOf(WalletBusinessException.class);
+        verify(idempotencyService).releaseForRetry("client-1", "req-123");
+        verify(idempotencyService, never()).complete(any(), any(), any(), any());
+    }
+
+    @Test
+    void aroundAdvice_WhenTransferIsOverTheLimit_LetsTheSameRequestIdBeRetried() throws Throwable {
+        // Arrange
+        givenRequestId("req-123");
+        givenEndpoint(transferFunds);
+        LimitCheckHandler limitCheckHandler = new LimitCheckHandler();
+        ReflectionTestUtils.setField(limitCheckHandler, "maxTransferLimit", new BigDecimal("10000.00"));
+        WalletResponseDTO body = new WalletResponseDTO("W-1", new BigDecimal("90.00"), "MYR", "COMPLETED");
+        when(idempotencyService.acquireOrReplay("client-1", "req-123")).thenReturn(Optional.empty());
+        when(joinPoint.proceed())
+                .thenAnswer(invocation -> {
+                    limitCheckHandler.process(TransactionContext.builder().transactionId("TXN-1")
+                            .request(new TransferRequestDTO("W-1", "W-2", new BigDecimal("10000.01"), "Car")).build());
+                    return ResponseEntity.ok(body);
+                })
+                .thenReturn(ResponseEntity.ok(body));
+
+        // Act & Assert
+        // 1. The limit rejection frees the key
+        assertThatThrownBy(() -> idempotencyAspect.applyIdempotency(joinPoint, transferFunds.getAnnotation(Idempotent.class)))
+                .isInstanceOf(WalletBusinessException.class)
+                .hasMessage("Transfer amount exceeds the maximum allowed limit");
+        verify(idempotencyService).releaseForRetry("client-1", "req-123");
+
+        // 2. A corrected retry under the same ID runs and is stored
+        Object result = idempotencyAspect.applyIdempotency(joinPoint, transferFunds.getAnnotation(Idempotent.class));
+        assertThat(result).isEqualTo(ResponseEntity.ok(body));
+        verify(idempotencyService).complete(eq("client-1"), eq("req-123"), any(), eq(Duration.ofHours(24)));
+    }
+
+    @Test
+    void aroundAdvice_WhenOutcomeIsUnknown_LeavesTheKeyInProgress() throws Throwable {
+        // Arrange
+        givenRequestId("req-123");
+        when(idempotencyService.acquireOrReplay("client-1", "req-123")).thenReturn(Optional.empty());
+        when(joinPoint.proceed()).thenThrow(new IllegalStateException("Connection reset during commit"));
+
+        // Act & Assert
+        assertThatThrownBy(() -> idempotencyAspect.applyIdempotency(joinPoint, transferFunds.getAnnotation(Idempotent.class)))
+                .isInstanceOf(IllegalStateException.class);
+        verify(idempotencyService, never()).releaseForRetry(any(), any());
+        verify(idempotencyService, never()).complete(any(), any(), any(), any());
+    }
+
+    @Test
+    void aroundAdvice_WhenRequestAlreadyCompleted_ReplaysTheStoredResponseWithoutProceeding() throws Throwable {
+        // Arrange
+        String requestId = "req-123";
+        givenRequestId(requestId);
+        WalletResponseDTO body = new WalletResponseDTO("W-1", new BigDecimal("90.00"), "MYR", "COMPLETED");
+        String json = objectMapper.writeValueAsString(body);
+        when(idempotencyService.acquireOrReplay("client-1", requestId)).thenReturn(Optional.of(new StoredResponse(201, json)));
+        givenEndpoint(transferFunds);
+
+        // Act
+        ResponseEntity<?> result = (ResponseEntity<?>) idempotencyAspect.applyIdempotency(joinPoint,
+                transferFunds.getAnnotation(Idempotent.class));
+
+        // Assert
+        assertThat(result.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(result.getBody()).isEqualTo(body);
+        assertThat(result.getHeaders().getFirst("Idempotent-Replayed")).isEqualTo("true");
+        verify(joinPoint, never()).proceed();
+        verify(idempotencyService, never()).complete(any(), any(), any(), any());
+    }
+
+    @Test
+    void aroundAdvice_WhenHeaderMissing_ThrowsException() throws Throwable {
         // Arrange
         mockedRequestContextHolder.when(RequestContextHolder::getRequestAttributes).thenReturn(attributes);
         when(attributes.getRequest()).thenReturn(request);
         when(request.getHeader("X-Request-ID")).thenReturn(null);
 
         // Act & Assert
-        assertThatThrownBy(() -> idempotencyAspect.checkIdempotency())
+        assertThatThrownBy(() -> idempotencyAspect.applyIdempotency(joinPoint, transferFunds.getAnnotation(Idempotent.class)))
                 .isInstanceOf(WalletBusinessException.class)
                 .hasMessage("Missing required header: X-Request-ID");
 
         verifyNoInteractions(idempotencyService);
+        verify(joinPoint, never()).proceed();
+    }
+
+    @Test
+    void aroundAdvice_WhenHeaderIsLongerThanTheColumn_ThrowsException() throws Throwable {
+        // Arrange
+        mockedRequestContextHolder.when(RequestContextHolder::getRequestAttributes).thenReturn(attributes);
+        when(attributes.getRequest()).thenReturn(request);
+        when(request.getHeader("X-Request-ID")).thenReturn("R".repeat(101));
+
+        // Act & Assert
+        assertThatThrownBy(() -> idempotencyAspect.applyIdempotency(joinPoint, transferFunds.getAnnotation(Idempotent.class)))
+                .isInstanceOf(WalletBusinessException.class)
+                .hasMessage("X-Request-ID must be at most 100 characters");
+
+        verifyNoInteractions(idempotencyService);
+        verify(joinPoint, never()).proceed();
+    }
+
+    private void givenRequestId(String requestId) {
+        mockedRequestContextHolder.when(RequestContextHolder::getRequestAttributes).thenReturn(attributes);
+        when(attributes.getRequest()).thenReturn(request);
+        when(request.getHeader("X-Request-ID")).thenReturn(requestId);
+        when(request.getHeader("X-Client-Id")).thenReturn("client-1");
+    }
+
+    private void givenEndpoint(Method method) {
+        MethodSignature signature = mock(MethodSignature.class);
+        when(signature.getMethod()).thenReturn(method);
+        when(joinPoint.getSignature()).thenReturn(signature);
+    }
+
+    private static Method method(String name, Class<?> bodyType) {
+        try {
+            return WalletController.class.getMethod(name, String.class, String.class, bodyType);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
@@ -0,0 +1,104 @@
+package com.wallet.core.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong clock = new AtomicLong();
+    private final CircuitBreaker breaker =
+            new CircuitBreaker("auth-service", 3, Duration.ofSeconds(10), meterRegistry, clock::get);
+
+    @Test
+    void onFailure_WhenThresholdIsReached_OpensAndRejectsCalls() {
+        // Act
+        for (int i = 0; i < 3; i++) {
+            assertThat(breaker.tryAcquirePermission()).isTrue();
+            breaker.onFailure();
+        }
+
+        // Assert
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquirePermission()).isFalse();
+        assertThat(transitions("OPEN")).isEqualTo(1);
+    }
+
+    @Test
+    void onSuccess_ResetsTheConsecutiveFailureCount() {
+        // Act
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onFailure();
+
+        // Assert
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void tryAcquirePermission_AfterOpenDuration_LetsASingleProbeThrough() {
+        // Arrange
+        tripBreaker();
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        // Act
+        boolean probe = breaker.tryAcquirePermission();
+        boolean concurrentCall = breaker.tryAcquirePermission();
+
+        // Assert
+        assertThat(probe).isTrue();
+        assertThat(concurrentCall).isFalse();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(meterRegistry.get("circuit.breaker.state").tag("name", "auth-service").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void onSuccess_WhenProbeSucceeds_ClosesTheBreaker() {
+        // Arrange
+        tripBreaker();
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        breaker.tryAcquirePermission();
+
+        // Act
+        breaker.onSuccess();
+
+        // Assert
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        assertThat(transitions("CLOSED")).isEqualTo(1);
+    }
+
+    @Test
+    void onFailure_WhenProbeFails_ReopensForAnotherFullPeriod() {
+        // Arrange
+        tripBreaker();
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        breaker.tryAcquirePermission();
+
+        // Act
+        breaker.onFailure();
+        clock.addAndGet(Duration.ofSeconds(9).toNanos());
+
+        // Assert
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquirePermission()).isFalse();
+        assertThat(transitions("OPEN")).isEqualTo(2);
+    }
+
+    private void tripBreaker() {
+        for (int i = 0; i < 3; i++) {
+            breaker.onFailure();
+        }
+    }
+
+    private double transitions(String to) {
+        return meterRegistry.get("circuit.breaker.transitions").tag("to", to).counter().count();
+    }
+}
@@ -0,0 +1,48 @@
+package com.wallet.core.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ThrottleTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void reserve_SpreadsABurstOverTime() {
+        // Arrange: 100 permits per second, so 10ms each
+        Throttle throttle = new Throttle(100, clock::get);
+
+        // Act & Assert: the first batch starts now, the next ones queue behind it
+        assertThat(throttle.reserve(10)).isZero();
+        assertThat(throttle.reserve(10)).isEqualTo(Duration.ofMillis(100).toNanos());
+        assertThat(throttle.reserve(10)).isEqualTo(Duration.ofMillis(200).toNanos());
+    }
+
+    @Test
+    void reserve_AfterAQuietPeriod_DoesNotSaveUpABurst() {
+        // Arrange
+        Throttle throttle = new Throttle(100, clock::get);
+        throttle.reserve(10);
+
+        // Act
+        clock.addAndGet(Duration.ofSeconds(5).toNanos());
+
+        // Assert
+        assertThat(throttle.reserve(10)).isZero();
+        assertThat(throttle.reserve(10)).isEqualTo(Duration.ofMillis(100).toNanos());
+    }
+
+    @Test
+    void reserve_WithoutARate_NeverWaits() {
+        // Arrange
+        Throttle throttle = new Throttle(0, clock::get);
+
+        // Act & Assert
+        assertThat(throttle.reserve(1_000_000)).isZero();
+        assertThat(throttle.reserve(1_000_000)).isZero();
+    }
+}
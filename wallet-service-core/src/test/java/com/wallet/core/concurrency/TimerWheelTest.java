@@ -0,0 +1,63 @@
+package com.wallet.core.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimerWheelTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final TimerWheel<String> wheel = new TimerWheel<>(Duration.ofMillis(100), 8, clock::get);
+
+    @Test
+    void advance_ReturnsItemsOnlyOnceTheirDeadlineHasPassed() {
+        // Arrange
+        wheel.schedule("a", Duration.ofMillis(250));
+        wheel.schedule("b", Duration.ofMillis(500));
+
+        // Act & Assert
+        tick(200);
+        assertThat(wheel.advance()).isEmpty();
+
+        tick(100);
+        assertThat(wheel.advance()).containsExactly("a");
+
+        tick(200);
+        assertThat(wheel.advance()).containsExactly("b");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void advance_KeepsItemsDueInALaterTurnOfTheWheel() {
+        // Arrange: 8 buckets of 100ms, so 1.25s lands in the same bucket as 450ms
+        wheel.schedule("later", Duration.ofMillis(1250));
+        wheel.schedule("soon", Duration.ofMillis(450));
+
+        // Act & Assert
+        tick(500);
+        assertThat(wheel.advance()).containsExactly("soon");
+
+        tick(800);
+        assertThat(wheel.advance()).containsExactly("later");
+    }
+
+    @Test
+    void advance_AfterAMissedTurn_StillReturnsEverythingDue() {
+        // Arrange
+        wheel.schedule("a", Duration.ofMillis(100));
+        wheel.schedule("b", Duration.ofMillis(700));
+
+        // Act
+        tick(5_000);
+
+        // Assert
+        assertThat(wheel.advance()).containsExactlyInAnyOrder("a", "b");
+    }
+
+    private void tick(long millis) {
+        clock.addAndGet(Duration.ofMillis(millis).toNanos());
+    }
+}
@@ -0,0 +1,215 @@
+package com.wallet.core.concurrency;
+
+import com.wallet.common.dto.TransferRequestDTO;
+import com.wallet.common.exception.WalletBusinessException;
+import com.wallet.common.exception.WalletConcurrencyException;
+import com.wallet.core.handler.HandlerChainExecutor;
+import com.wallet.core.handler.TransactionContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.MDC;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransferGroupCommitterTest {
+
+    @Mock
+    private HandlerChainExecutor handlerChainExecutor;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor();
+    private WalletExecutionLanes lanes;
+    private TransferGroupCommitter committer;
+
+    @BeforeEach
+    void setUp() {
+        lanes = new WalletExecutionLanes(false, 4, Duration.ofSeconds(1), meterRegistry);
+        // One committer and a generous linger so every concurrent submit below lands in one group
+        committer = new TransferGroupCommitter(handlerChainExecutor, lanes, true, 10, Duration.ofMillis(200), 1,
+                Duration.ofSeconds(10), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        committer.stop();
+        callers.close();
+    }
+
+    @Test
+    void submit_WhenTransfersArriveTogether_CommitsThemAsOneGroup() throws Exception {
+        // Arrange
+        when(handlerChainExecutor.executeGroup(anyList())).thenReturn(Map.of());
+
+        // Act
+        List<CompletableFuture<Void>> results = submitAll(context("w1", "w2"), context("w3", "w4"), context("w5", "w6"));
+
+        // Assert
+        for (CompletableFuture<Void> result : results) {
+            result.get(5, TimeUnit.SECONDS);
+        }
+        verify(handlerChainExecutor, times(1)).executeGroup(argThat(contexts -> contexts.size() == 3));
+        assertThat(meterRegistry.get("wallet.group.commit.size").summary().totalAmount()).isEqualTo(3);
+    }
+
+    @Test
+    void submit_WhenOneTransferIsRejected_OnlyThatCallerSeesTheRejection() throws Exception {
+        // Arrange
+        TransactionContext rejected = context("w1", "w2");
+        TransactionContext accepted = context("w3", "w4");
+        when(handlerChainExecutor.executeGroup(anyList())).thenAnswer(invocation -> {
+            List<TransactionContext> contexts = invocation.getArgument(0);
+            return Map.of(contexts.indexOf(rejected), new WalletBusinessException("Insufficient funds"));
+        });
+
+        // Act
+        List<CompletableFuture<Void>> results = submitAll(rejected, accepted);
+
+        // Assert
+        assertThatThrownBy(() -> results.get(0).join())
+                .hasCauseInstanceOf(WalletBusinessException.class)
+                .hasRootCauseMessage("Insufficient funds");
+        results.get(1).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void submit_WhenTheGroupCannotCommit_ReRunsEachTransferOnItsOwn() throws Exception {
+        // Arrange
+        TransactionContext poison = context("w1", "w2");
+        TransactionContext healthy = context("w3", "w4");
+        when(handlerChainExecutor.executeGroup(anyList()))
+                .thenThrow(new WalletConcurrencyException("Concurrent update detected"));
+        doThrow(new WalletConcurrencyException("Concurrent update detected")).when(handlerChainExecutor).execute(poison);
+
+        // Act
+        List<CompletableFuture<Void>> results = submitAll(poison, healthy);
+
+        // Assert
+        assertThatThrownBy(() -> results.get(0).join()).hasCauseInstanceOf(WalletConcurrencyException.class);
+        results.get(1).get(5, TimeUnit.SECONDS);
+        verify(handlerChainExecutor).execute(healthy);
+        assertThat(healthy.getLedgerBatch()).isNull();
+        assertThat(meterRegistry.get("wallet.group.commit.fallbacks").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void submit_CarriesEachCallersLogContextToTheCommitter() throws Exception {
+        // Arrange
+        TransactionContext first = context("w1", "w2");
+        TransactionContext second = context("w3", "w4");
+        when(handlerChainExecutor.executeGroup(anyList()))
+                .thenThrow(new WalletConcurrencyException("Concurrent update detected"));
+        Map<String, String> loggedUnder = new ConcurrentHashMap<>();
+        doAnswer(invocation -> {
+            TransactionContext context = invocation.getArgument(0);
+            loggedUnder.put(context.getRequest().fromWalletId(), MDC.get("requestId"));
+            return null;
+        }).when(handlerChainExecutor).execute(any(TransactionContext.class));
+
+        // Act
+        List<CompletableFuture<Void>> results = List.of(
+                submitUnder("REQ-1", first), submitUnder("REQ-2", second));
+
+        // Assert
+        for (CompletableFuture<Void> result : results) {
+            result.get(5, TimeUnit.SECONDS);
+        }
+        // 1. The group run gets each caller's MDC with its context
+        assertThat(first.getLogContext()).containsEntry("requestId", "REQ-1");
+        assertThat(second.getLogContext()).containsEntry("requestId", "REQ-2");
+        // 2. A transfer re-run on its own logs under its caller's request ID
+        assertThat(loggedUnder).containsEntry("w1", "REQ-1").containsEntry("w3", "REQ-2");
+    }
+
+    @Test
+    void submit_WhenNoCommitterTakesTheTransferInTime_RejectsItAsRetryable() {
+        // Arrange: no committers, so the transfer can only sit in the queue
+        TransferGroupCommitter stalled = new TransferGroupCommitter(handlerChainExecutor, lanes, true, 10,
+                Duration.ofMillis(200), 0, Duration.ofMillis(50), meterRegistry);
+
+        // Act & Assert
+        assertThatThrownBy(() -> stalled.submit(context("w1", "w2")))
+                .isInstanceOf(WalletBusinessException.class)
+                .hasMessageContaining("Please retry");
+        verifyNoInteractions(handlerChainExecutor);
+    }
+
+    @Test
+    void submit_WhenTheGroupIsStillCommittingAtTheDeadline_ReportsTheOutcomeAsUnknown() {
+        // Arrange
+        TransferGroupCommitter slow = new TransferGroupCommitter(handlerChainExecutor, lanes, true, 10,
+                Duration.ZERO, 1, Duration.ofMillis(50), meterRegistry);
+        CompletableFuture<Void> release = new CompletableFuture<>();
+        when(handlerChainExecutor.executeGroup(anyList())).thenAnswer(invocation -> {
+            release.join();
+            return Map.of();
+        });
+
+        // Act & Assert: not retryable, the transfer may still commit
+        try {
+            assertThatThrownBy(() -> slow.submit(context("w1", "w2")))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("outcome is unknown");
+        } finally {
+            release.complete(null);
+            slow.stop();
+        }
+    }
+
+    @Test
+    void submit_AfterStop_RejectsAsRetryable() {
+        // Arrange
+        committer.stop();
+
+        // Act & Assert
+        assertThatThrownBy(() -> committer.submit(context("w1", "w2")))
+                .isInstanceOf(WalletBusinessException.class)
+                .hasMessageContaining("shutting down");
+        verifyNoInteractions(handlerChainExecutor);
+    }
+
+    private List<CompletableFuture<Void>> submitAll(TransactionContext... contexts) {
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        for (TransactionContext context : contexts) {
+            results.add(CompletableFuture.runAsync(() -> committer.submit(context), callers));
+        }
+        return results;
+    }
+
+    private CompletableFuture<Void> submitUnder(String requestId, TransactionContext context) {
+        return CompletableFuture.runAsync(() -> {
+            MDC.put("requestId", requestId);
+            try {
+                committer.submit(context);
+            } finally {
+                MDC.clear();
+            }
+        }, callers);
+    }
+
+    private static TransactionContext context(String from, String to) {
+        return TransactionContext.builder()
+                .request(new TransferRequestDTO(from, to, new BigDecimal("10.00"), "Group"))
+                .build();
+    }
+}
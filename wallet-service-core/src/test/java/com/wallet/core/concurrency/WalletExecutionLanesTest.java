@@ -0,0 +1,107 @@
+package com.wallet.core.concurrency;
+
+import com.wallet.common.exception.WalletBusinessException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WalletExecutionLanesTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void call_WhenDisabled_RunsWorkDirectly() {
+        // Arrange
+        WalletExecutionLanes lanes = new WalletExecutionLanes(false, 4, Duration.ofSeconds(1), meterRegistry);
+
+        // Act
+        String result = lanes.call(List.of("w1", "w2"), () -> "done");
+
+        // Assert
+        assertThat(result).isEqualTo("done");
+        assertThat(meterRegistry.get("wallet.lane.wait").timer().count()).isZero();
+    }
+
+    @Test
+    void call_WhenManyWritersShareAWallet_NeverRunsThemConcurrently() throws Exception {
+        // Arrange
+        WalletExecutionLanes lanes = new WalletExecutionLanes(true, 16, Duration.ofSeconds(10), meterRegistry);
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger maxInside = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+
+        // Act: every transfer credits the same merchant wallet from a different sender
+        for (int i = 0; i < 200; i++) {
+            String sender = "sender-" + i;
+            pool.submit(() -> lanes.execute(List.of(sender, "merchant"), () -> {
+                maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                Thread.onSpinWait();
+                inside.decrementAndGet();
+            }));
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        // Assert
+        assertThat(maxInside.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("wallet.lane.wait").timer().count()).isEqualTo(200);
+    }
+
+    @Test
+    void call_WhenTransfersCrossInOppositeDirections_DoesNotDeadlock() throws Exception {
+        // Arrange
+        WalletExecutionLanes lanes = new WalletExecutionLanes(true, 64, Duration.ofSeconds(10), meterRegistry);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+
+        // Act
+        Future<?> aToB = pool.submit(() -> {
+            for (int i = 0; i < 1000; i++) lanes.execute(List.of("wallet-a", "wallet-b"), () -> { });
+        });
+        Future<?> bToA = pool.submit(() -> {
+            for (int i = 0; i < 1000; i++) lanes.execute(List.of("wallet-b", "wallet-a"), () -> { });
+        });
+
+        // Assert
+        aToB.get(10, TimeUnit.SECONDS);
+        bToA.get(10, TimeUnit.SECONDS);
+        pool.shutdown();
+    }
+
+    @Test
+    void call_WhenLaneIsHeldLongerThanMaxWait_RejectsAsBusy() throws Exception {
+        // Arrange
+        WalletExecutionLanes lanes = new WalletExecutionLanes(true, 4, Duration.ofMillis(50), meterRegistry);
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> lanes.execute(List.of("hot-wallet"), () -> {
+            held.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        holder.start();
+        held.await();
+
+        // Act & Assert
+        assertThatThrownBy(() -> lanes.execute(List.of("hot-wallet"), () -> { }))
+                .isInstanceOf(WalletBusinessException.class)
+                .hasMessage("Wallet is busy. Please retry.");
+        assertThat(meterRegistry.get("wallet.lane.queue.depth").gauge().value()).isZero();
+
+        release.countDown();
+        holder.join();
+    }
+}
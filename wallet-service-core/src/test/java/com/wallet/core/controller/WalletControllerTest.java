@@ -3,34 +3,56 @@ package com.wallet.core.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.wallet.common.constants.WalletConstants;
 import com.wallet.common.dto.*;
+import com.wallet.common.enums.JournalEntryType;
+import com.wallet.common.enums.StatementFormat;
 import com.wallet.core.facade.TransactionFacade;
+import com.wallet.core.migration.SchemaMigrator;
+import com.wallet.core.reconciliation.ReconciliationService;
 import com.wallet.core.service.IdempotencyService;
+import com.wallet.core.service.IdempotencyService.StoredResponse;
 import com.wallet.core.service.QrService;
 import com.wallet.core.service.WalletManagementService;
+import com.wallet.core.service.WalletStatementService;
 import com.wallet.core.mapper.WalletMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.aop.AopAutoConfiguration;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.http.MediaType;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(WalletController.class)
 @AutoConfigureMockMvc(addFilters = false)
+@Import(SimpleMeterRegistry.class)
+@ImportAutoConfiguration(AopAutoConfiguration.class) // So @Idempotent goes through IdempotencyAspect
 class WalletControllerTest {
 
         @Autowired
@@ -49,6 +71,9 @@ class WalletControllerTest {
         @MockitoBean
         private QrService qrService;
 
+        @MockitoBean
+        private WalletStatementService walletStatementService;
+
         @MockitoBean
         private IdempotencyService idempotencyService;
 
@@ -62,6 +87,12 @@ class WalletControllerTest {
         @MockitoBean
         private StringRedisTemplate stringRedisTemplate;
 
+        @MockitoBean
+        private SchemaMigrator schemaMigrator;
+
+        @MockitoBean
+        private ReconciliationService reconciliationService;
+
         @Test
         void transferFunds_WhenValidPayload_Returns200Ok() throws Exception {
                 TransferRequestDTO request = new TransferRequestDTO(
@@ -104,21 +135,124 @@ class WalletControllerTest {
                                 .andExpect(status().isBadRequest());
         }
 
+        @Test
+        void transferFundsInBatch_WhenValidPayload_Returns200WithPerItemResults() throws Exception {
+                TransferRequestDTO transfer = new TransferRequestDTO(
+                                "SENDER-123",
+                                "RECEIVER-456",
+                                new BigDecimal("100.00"),
+                                "Payroll");
+                BatchTransferRequestDTO request = new BatchTransferRequestDTO(List.of(transfer, transfer));
+
+                BatchTransferResponseDTO response = new BatchTransferResponseDTO(2, 1, 1, List.of(
+                                BatchTransferItemResultDTO.completed(0, "TXN-1", transfer),
+                                BatchTransferItemResultDTO.failed(1, transfer, "Insufficient funds")));
+
+                when(transactionFacade.executeBatchTransfer(eq("req-123"), eq("client-123"), any(BatchTransferRequestDTO.class)))
+                                .thenReturn(response);
+
+                mockMvc.perform(post("/api/v1/wallets/transfer/batch")
+                                .header(WalletConstants.HEADER_REQUEST_ID, "req-123")
+                                .header(WalletConstants.HEADER_CLIENT_ID, "client-123")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(request)))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.successCount").value(1))
+                                .andExpect(jsonPath("$.results[1].status").value("FAILED"))
+                                .andExpect(jsonPath("$.results[1].errorMessage").value("Insufficient funds"));
+        }
+
+        @Test
+        void transferFundsInBatch_WhenBatchIsEmpty_Returns400BadRequest() throws Exception {
+                mockMvc.perform(post("/api/v1/wallets/transfer/batch")
+                                .header(WalletConstants.HEADER_REQUEST_ID, "req-123")
+                                .header(WalletConstants.HEADER_CLIENT_ID, "client-123")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(new BatchTransferRequestDTO(List.of()))))
+                                .andExpect(status().isBadRequest());
+        }
+
         @Test
         void getWalletHistory_WhenValidRequest_Returns200Ok() throws Exception {
                 WalletHistoryResponseDTO response = new WalletHistoryResponseDTO(
                                 "W1234",
                                 new BigDecimal("100.00"),
                                 "USD",
-                                List.of());
+                                List.of(),
+                                "next-page");
 
-                when(walletManagementService.getWalletHistory(eq("W1234"), eq("client-123")))
+                when(walletManagementService.getWalletHistory("W1234", "client-123",
+                                new WalletHistoryRequestDTO("abc", 20, LocalDateTime.of(2026, 1, 1, 0, 0), null,
+                                                JournalEntryType.CREDIT)))
                                 .thenReturn(response);
 
                 mockMvc.perform(get("/api/v1/wallets/W1234/history")
+                                .param("cursor", "abc")
+                                .param("size", "20")
+                                .param("from", "2026-01-01T00:00:00")
+                                .param("type", "CREDIT")
                                 .header(WalletConstants.HEADER_REQUEST_ID, "req-123")
                                 .header(WalletConstants.HEADER_CLIENT_ID, "client-123"))
-                                .andExpect(status().isOk());
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.nextCursor").value("next-page"));
+        }
+
+        @Test
+        void getWalletHistory_WhenTypeIsUnknown_Returns400BadRequest() throws Exception {
+                mockMvc.perform(get("/api/v1/wallets/W1234/history")
+                                .param("type", "REFUND")
+                                .header(WalletConstants.HEADER_REQUEST_ID, "req-123")
+                                .header(WalletConstants.HEADER_CLIENT_ID, "client-123"))
+                                .andExpect(status().isBadRequest())
+                                .andExpect(jsonPath("$.errorMessage").value("Invalid value for parameter: type"));
+        }
+
+        @Test
+        void getBalanceAt_WhenValidRequest_Returns200Ok() throws Exception {
+                LocalDateTime at = LocalDateTime.of(2026, 1, 15, 12, 0);
+                when(walletManagementService.getBalanceAt("W1234", "client-123", at))
+                                .thenReturn(new WalletBalanceResponseDTO("W1234", new BigDecimal("75.25"), "MYR", at));
+
+                mockMvc.perform(get("/api/v1/wallets/W1234/balance")
+                                .param("at", "2026-01-15T12:00:00")
+                                .header(WalletConstants.HEADER_REQUEST_ID, "req-123")
+                                .header(WalletConstants.HEADER_CLIENT_ID, "client-123"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.balance").value(75.25));
+        }
+
+        @Test
+        void exportStatement_WhenValidRequest_StreamsTheBodyAsAnAttachment() throws Exception {
+                StreamingResponseBody body = out -> out.write("transactionId,type,amount,timestamp\n".getBytes());
+                when(walletStatementService.exportStatement("W1234", "client-123", LocalDateTime.of(2026, 1, 1, 0, 0),
+                                LocalDateTime.of(2026, 2, 1, 0, 0), StatementFormat.CSV))
+                                .thenReturn(body);
+
+                MvcResult result = mockMvc.perform(get("/api/v1/wallets/W1234/statement")
+                                .param("from", "2026-01-01T00:00:00")
+                                .param("to", "2026-02-01T00:00:00")
+                                .header(WalletConstants.HEADER_REQUEST_ID, "req-123")
+                                .header(WalletConstants.HEADER_CLIENT_ID, "client-123"))
+                                .andExpect(request().asyncStarted())
+                                .andReturn();
+
+                mockMvc.perform(asyncDispatch(result))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
+                                .andExpect(header().string("Content-Disposition",
+                                                "attachment; filename=\"statement-W1234.csv\""))
+                                .andExpect(content().string("transactionId,type,amount,timestamp\n"));
+        }
+
+        @Test
+        void exportStatement_WhenRangeIsMissing_Returns400BadRequest() throws Exception {
+                mockMvc.perform(get("/api/v1/wallets/W1234/statement")
+                                .param("from", "2026-01-01T00:00:00")
+                                .param("format", "NDJSON")
+                                .header(WalletConstants.HEADER_REQUEST_ID, "req-123")
+                                .header(WalletConstants.HEADER_CLIENT_ID, "client-123"))
+                                .andExpect(status().isBadRequest())
+                                .andExpect(jsonPath("$.errorMessage").value("Missing required parameter: to"));
         }
 
         @Test
@@ -150,4 +284,33 @@ class WalletControllerTest {
                                 .content(requestJson))
                                 .andExpect(status().isOk());
         }
+
+        @Test
+        void transferFunds_WhenRequestIdAlreadyCompleted_ReplaysTheStoredResponse() throws Exception {
+                TransferRequestDTO request = new TransferRequestDTO(
+                                "SENDER-123",
+                                "RECEIVER-456",
+                                new BigDecimal("100.00"),
+                                "Test transfer");
+                WalletResponseDTO original = new WalletResponseDTO(
+                                "SENDER-123",
+                                new BigDecimal("900.00"),
+                                "USD",
+                                "COMPLETED");
+
+                when(idempotencyService.acquireOrReplay("client-123", "req-123"))
+                                .thenReturn(Optional.of(new StoredResponse(200, objectMapper.writeValueAsString(original))));
+
+                mockMvc.perform(post("/api/v1/wallets/transfer")
+                                .header(WalletConstants.HEADER_REQUEST_ID, "req-123")
+                                .header(WalletConstants.HEADER_CLIENT_ID, "client-123")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(request)))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string(WalletConstants.HEADER_IDEMPOTENT_REPLAYED, "true"))
+                                .andExpect(jsonPath("$.currentBalance").value(900.00))
+                                .andExpect(jsonPath("$.status").value("COMPLETED"));
+
+                verify(transactionFacade, never()).executeTransfer(any(), any(), any());
+        }
 }
@@ -0,0 +1,138 @@
+package com.wallet.core.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replica1;
+
+    @Mock
+    private DataSource replica2;
+
+    @Mock
+    private Connection primaryConnection;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ReadReplicas replicas;
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        dataSources.put("replica-1", replica1);
+        dataSources.put("replica-2", replica2);
+        replicas = new ReadReplicas(dataSources, Duration.ofSeconds(5), meterRegistry);
+        routingDataSource = new ReplicaRoutingDataSource(primary, replicas, meterRegistry);
+        routingDataSource.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void getConnection_OutsideAReadOnlyTransaction_UsesThePrimary() throws Exception {
+        // Arrange
+        givenLag(replica1, 0L);
+        givenLag(replica2, 0L);
+        replicas.checkLag();
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        // Act & Assert
+        assertThat(routingDataSource.getConnection()).isSameAs(primaryConnection);
+    }
+
+    @Test
+    void getConnection_InAReadOnlyTransaction_TakesTurnsBetweenCaughtUpReplicas() throws Exception {
+        // Arrange
+        Connection first = givenLag(replica1, 0L);
+        Connection second = givenLag(replica2, 1200L);
+        replicas.checkLag();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // Act & Assert
+        assertThat(routingDataSource.getConnection()).isSameAs(first);
+        assertThat(routingDataSource.getConnection()).isSameAs(second);
+        assertThat(routingDataSource.getConnection()).isSameAs(first);
+        verifyNoInteractions(primary);
+        assertThat(meterRegistry.get("wallet.datasource.replica.lag").tag("replica", "replica-2").gauge().value())
+                .isEqualTo(1200);
+    }
+
+    @Test
+    void getConnection_WhenReplicasAreOverTheStalenessBudgetOrDown_FallsBackToThePrimary() throws Exception {
+        // Arrange: one replica 8s behind, the other unreachable
+        givenLag(replica1, 8000L);
+        when(replica2.getConnection()).thenThrow(new SQLException("Connection refused"));
+        replicas.checkLag();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        // Act & Assert
+        assertThat(routingDataSource.getConnection()).isSameAs(primaryConnection);
+        assertThat(replicas.next()).isEmpty();
+        assertThat(meterRegistry.get("wallet.datasource.replica.available").tag("replica", "replica-1").gauge().value())
+                .isZero();
+    }
+
+    @Test
+    void getConnection_WhenAReplicaRefusesTheConnection_UsesThePrimaryAndSkipsTheReplicaUntilItsNextCheck() throws Exception {
+        // Arrange: only replica-1 is caught up, then goes away
+        Connection lagCheck = givenLag(replica1, 0L);
+        givenLag(replica2, null);
+        replicas.checkLag();
+        when(replica1.getConnection()).thenThrow(new SQLException("Connection refused"));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        // Act
+        Connection connection = routingDataSource.getConnection();
+
+        // Assert
+        assertThat(connection).isSameAs(primaryConnection);
+        assertThat(replicas.next()).isEmpty();
+        assertThat(meterRegistry.get("wallet.datasource.replica.fallbacks").tag("replica", "replica-1")
+                .counter().count()).isEqualTo(1);
+        verify(lagCheck).close();
+    }
+
+    // The replica answers the lag query with the given lag in milliseconds, or NULL
+    private static Connection givenLag(DataSource replica, Long lagMillis) throws SQLException {
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(replica.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(ReadReplicas.LAG_QUERY)).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getLong(1)).thenReturn(lagMillis != null ? lagMillis : 0L);
+        when(resultSet.wasNull()).thenReturn(lagMillis == null);
+        return connection;
+    }
+}
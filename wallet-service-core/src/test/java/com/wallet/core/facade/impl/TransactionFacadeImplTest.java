@@ -1,24 +1,36 @@
 package com.wallet.core.facade.impl;
 
+import com.wallet.common.dto.BatchTransferItemResultDTO;
+import com.wallet.common.dto.BatchTransferRequestDTO;
+import com.wallet.common.dto.BatchTransferResponseDTO;
 import com.wallet.common.dto.TransferRequestDTO;
 import com.wallet.common.dto.WalletResponseDTO;
+import com.wallet.common.exception.WalletBusinessException;
+import com.wallet.core.concurrency.TransferGroupCommitter;
+import com.wallet.core.concurrency.WalletExecutionLanes;
 import com.wallet.core.entity.Wallet;
 import com.wallet.core.facade.AuthFacade;
+import com.wallet.core.handler.HandlerChainExecutor;
 import com.wallet.core.handler.TransactionContext;
-import com.wallet.core.handler.TransactionHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,18 +40,20 @@ class TransactionFacadeImplTest {
     private AuthFacade authFacade;
 
     @Mock
-    private TransactionHandler mockHandler1;
+    private HandlerChainExecutor handlerChainExecutor;
 
     @Mock
-    private TransactionHandler mockHandler2;
+    private TransferGroupCommitter transferGroupCommitter;
 
     private TransactionFacadeImpl transactionFacade;
 
     @BeforeEach
     void setUp() {
-        // Arrange manual handler chain injection
-        List<TransactionHandler> handlerChain = List.of(mockHandler1, mockHandler2);
-        transactionFacade = new TransactionFacadeImpl(handlerChain, authFacade);
+        // Lanes enabled so the facade exercises the same path as production with lanes switched on
+        WalletExecutionLanes executionLanes = new WalletExecutionLanes(true, 4, Duration.ofSeconds(1), new SimpleMeterRegistry());
+        transactionFacade = new TransactionFacadeImpl(handlerChainExecutor, authFacade, executionLanes,
+                transferGroupCommitter);
+        ReflectionTestUtils.setField(transactionFacade, "maxBatchSize", 3);
     }
 
     @Test
@@ -58,28 +72,26 @@ class TransactionFacadeImplTest {
                     LocalDateTime.now());
             context.setSenderWallet(sender);
             return null;
-        }).when(mockHandler1).process(any(TransactionContext.class));
+        }).when(handlerChainExecutor).execute(any(TransactionContext.class));
 
         // Act
         WalletResponseDTO response = transactionFacade.executeTransfer(requestId, clientId, requestDTO);
 
         // Assert
-        // 1. Verify AuthFacade was called
-        verify(authFacade, times(1)).fetchUsername(clientId);
-
-        // 2. Verify Handlers were called in order with the same context
+        // 1. Verify the chain was executed once with a correctly built context
         ArgumentCaptor<TransactionContext> contextCaptor = ArgumentCaptor.forClass(TransactionContext.class);
-        verify(mockHandler1, times(1)).process(contextCaptor.capture());
-        verify(mockHandler2, times(1)).process(contextCaptor.capture());
+        verify(handlerChainExecutor, times(1)).execute(contextCaptor.capture());
 
-        // Ensure context was built correctly and passed to handlers
-        TransactionContext capturedContext = contextCaptor.getAllValues().get(0);
+        TransactionContext capturedContext = contextCaptor.getValue();
         assertThat(capturedContext.getRequestId()).isEqualTo(requestId);
         assertThat(capturedContext.getClientId()).isEqualTo(clientId);
-        assertThat(capturedContext.getSenderUsername()).isEqualTo("john_doe");
         assertThat(capturedContext.getTransactionId()).startsWith("TXN-");
         assertThat(capturedContext.getRequest()).isEqualTo(requestDTO);
 
+        // 2. The username was resolved before the chain (and its transaction) started
+        assertThat(capturedContext.getSenderUsername()).isEqualTo("john_doe");
+        verify(authFacade, times(1)).fetchUsername(clientId);
+
         // 3. Verify final balance calculation
         // Sender balance was 100.00, amount was 15.50 -> expected 84.50
         assertThat(response.walletId()).isEqualTo("w1");
@@ -87,4 +99,87 @@ class TransactionFacadeImplTest {
         assertThat(response.status()).isEqualTo("COMPLETED");
         assertThat(response.currentBalance()).isEqualTo(new BigDecimal("84.50"));
     }
+
+    @Test
+    void executeTransfer_WhenTheUsernameLookupFails_RejectsBeforeTheChainRuns() {
+        // Arrange
+        TransferRequestDTO requestDTO = new TransferRequestDTO("w1", "w2", new BigDecimal("15.50"), "Test");
+        when(authFacade.fetchUsername("client-456"))
+                .thenThrow(new WalletBusinessException("Could not verify user identity: UNAVAILABLE"));
+
+        // Act & Assert
+        assertThatThrownBy(() -> transactionFacade.executeTransfer("REQ-123", "client-456", requestDTO))
+                .isInstanceOf(WalletBusinessException.class)
+                .hasMessage("Could not verify user identity: UNAVAILABLE");
+        verifyNoInteractions(handlerChainExecutor, transferGroupCommitter);
+    }
+
+    @Test
+    void executeTransfer_WhenGroupCommitIsEnabled_HandsTheContextToTheCommitter() {
+        // Arrange
+        TransferRequestDTO requestDTO = new TransferRequestDTO("w1", "w2", new BigDecimal("15.50"), "Test");
+        when(transferGroupCommitter.isEnabled()).thenReturn(true);
+        doAnswer(invocation -> {
+            TransactionContext context = invocation.getArgument(0);
+            context.setSenderWallet(new Wallet("w1", "user1", new BigDecimal("100.00"), "USD", "ACTIVE", 1,
+                    LocalDateTime.now(), LocalDateTime.now()));
+            return null;
+        }).when(transferGroupCommitter).submit(any(TransactionContext.class));
+
+        // Act
+        WalletResponseDTO response = transactionFacade.executeTransfer("REQ-123", "client-456", requestDTO);
+
+        // Assert
+        assertThat(response.currentBalance()).isEqualByComparingTo("84.50");
+        verify(handlerChainExecutor, never()).execute(any());
+    }
+
+    @Test
+    void executeBatchTransfer_WhenCalled_BuildsOneContextPerItemAndSummarizesResults() {
+        // Arrange
+        TransferRequestDTO ok = new TransferRequestDTO("w1", "w2", new BigDecimal("10.00"), "Salary");
+        TransferRequestDTO bad = new TransferRequestDTO("w1", "w3", new BigDecimal("999.00"), "Salary");
+
+        when(authFacade.fetchUsername("client-456")).thenReturn("john_doe");
+        when(handlerChainExecutor.executeBatch(anyList())).thenReturn(List.of(
+                BatchTransferItemResultDTO.completed(0, "TXN-1", ok),
+                BatchTransferItemResultDTO.failed(1, bad, "Insufficient funds")));
+
+        // Act
+        BatchTransferResponseDTO response = transactionFacade.executeBatchTransfer(
+                "REQ-BATCH", "client-456", new BatchTransferRequestDTO(List.of(ok, bad)));
+
+        // Assert
+        // 1. Identity is resolved once for the whole batch
+        verify(authFacade, times(1)).fetchUsername("client-456");
+
+        // 2. Each item gets its own request and transaction ID
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TransactionContext>> contextsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(handlerChainExecutor, times(1)).executeBatch(contextsCaptor.capture());
+        List<TransactionContext> contexts = contextsCaptor.getValue();
+        assertThat(contexts).extracting(TransactionContext::getRequestId, TransactionContext::getBatchIndex)
+                .containsExactly(tuple("REQ-BATCH", 0), tuple("REQ-BATCH", 1));
+        assertThat(contexts).allSatisfy(context -> assertThat(context.getSenderUsername()).isEqualTo("john_doe"));
+        assertThat(contexts.get(0).getTransactionId()).isNotEqualTo(contexts.get(1).getTransactionId());
+
+        // 3. Results are summarized
+        assertThat(response.totalCount()).isEqualTo(2);
+        assertThat(response.successCount()).isEqualTo(1);
+        assertThat(response.failureCount()).isEqualTo(1);
+    }
+
+    @Test
+    void executeBatchTransfer_WhenBatchExceedsMaxSize_ThrowsException() {
+        // Arrange
+        TransferRequestDTO transfer = new TransferRequestDTO("w1", "w2", new BigDecimal("1.00"), "Test");
+        BatchTransferRequestDTO request = new BatchTransferRequestDTO(List.of(transfer, transfer, transfer, transfer));
+
+        // Act & Assert
+        assertThatThrownBy(() -> transactionFacade.executeBatchTransfer("REQ-BATCH", "client-456", request))
+                .isInstanceOf(WalletBusinessException.class)
+                .hasMessage("Batch size exceeds the maximum of 3 transfers");
+
+        verifyNoInteractions(authFacade, handlerChainExecutor);
+    }
 }
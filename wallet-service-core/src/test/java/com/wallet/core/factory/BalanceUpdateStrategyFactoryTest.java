@@ -0,0 +1,40 @@
+package com.wallet.core.factory;
+
+import com.wallet.common.enums.BalanceUpdateMode;
+import com.wallet.common.exception.WalletBusinessException;
+import com.wallet.core.mapper.WalletMapper;
+import com.wallet.core.strategy.AtomicBalanceUpdateStrategy;
+import com.wallet.core.strategy.OptimisticBalanceUpdateStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class BalanceUpdateStrategyFactoryTest {
+
+    private final WalletMapper walletMapper = mock(WalletMapper.class);
+
+    @Test
+    void getActiveStrategy_WhenModeConfigured_ReturnsMatchingStrategy() {
+        // Arrange
+        BalanceUpdateStrategyFactory factory = new BalanceUpdateStrategyFactory(List.of(
+                new OptimisticBalanceUpdateStrategy(walletMapper),
+                new AtomicBalanceUpdateStrategy(walletMapper)), BalanceUpdateMode.ATOMIC);
+
+        // Act & Assert
+        assertThat(factory.getActiveStrategy()).isInstanceOf(AtomicBalanceUpdateStrategy.class);
+        assertThat(factory.getStrategy(BalanceUpdateMode.OPTIMISTIC)).isInstanceOf(OptimisticBalanceUpdateStrategy.class);
+    }
+
+    @Test
+    void constructor_WhenConfiguredModeHasNoStrategy_FailsFast() {
+        // Act & Assert
+        assertThatThrownBy(() -> new BalanceUpdateStrategyFactory(
+                List.of(new OptimisticBalanceUpdateStrategy(walletMapper)), BalanceUpdateMode.ATOMIC))
+                .isInstanceOf(WalletBusinessException.class)
+                .hasMessage("Unsupported balance update mode: " + BalanceUpdateMode.ATOMIC);
+    }
+}
@@ -0,0 +1,242 @@
+package com.wallet.core.handler;
+
+import com.wallet.common.dto.BatchTransferItemResultDTO;
+import com.wallet.common.dto.TransferRequestDTO;
+import com.wallet.common.exception.WalletBusinessException;
+import com.wallet.common.exception.WalletConcurrencyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.MDC;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HandlerChainExecutorTest {
+
+    @Mock
+    private TransactionHandler mockHandler1;
+
+    @Mock
+    private TransactionHandler mockHandler2;
+
+    @Mock
+    private LedgerBatchWriter ledgerBatchWriter;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private HandlerChainExecutor handlerChainExecutor;
+
+    @BeforeEach
+    void setUp() {
+        // Arrange manual handler chain injection
+        handlerChainExecutor = new HandlerChainExecutor(List.of(mockHandler1, mockHandler2), ledgerBatchWriter, meterRegistry);
+    }
+
+    @Test
+    void execute_WhenCalled_RunsHandlersInOrderWithSameContext() {
+        // Arrange
+        TransactionContext context = TransactionContext.builder().transactionId("TXN-123").build();
+
+        // Act
+        handlerChainExecutor.execute(context);
+
+        // Assert
+        InOrder inOrder = inOrder(mockHandler1, mockHandler2);
+        inOrder.verify(mockHandler1).process(context);
+        inOrder.verify(mockHandler2).process(context);
+        verifyNoInteractions(ledgerBatchWriter);
+    }
+
+    @Test
+    void execute_WhenHandlerRejects_StopsTheChain() {
+        // Arrange
+        TransactionContext context = TransactionContext.builder().transactionId("TXN-123").build();
+        doThrow(new WalletBusinessException("Insufficient funds")).when(mockHandler1).process(context);
+
+        // Act & Assert
+        assertThatThrownBy(() -> handlerChainExecutor.execute(context))
+                .isInstanceOf(WalletBusinessException.class)
+                .hasMessage("Insufficient funds");
+
+        verify(mockHandler2, never()).process(any());
+    }
+
+    @Test
+    void executeBatch_WhenOneItemIsRejected_ReportsItAndFlushesTheRest() {
+        // Arrange
+        TransferRequestDTO ok1 = new TransferRequestDTO("w1", "w2", new BigDecimal("10.00"), "Salary");
+        TransferRequestDTO bad = new TransferRequestDTO("w1", "w3", new BigDecimal("999.00"), "Salary");
+        TransferRequestDTO ok2 = new TransferRequestDTO("w1", "w4", new BigDecimal("20.00"), "Salary");
+        LedgerBatch ledgerBatch = new LedgerBatch(id -> Optional.empty());
+
+        when(ledgerBatchWriter.open(anyCollection())).thenReturn(ledgerBatch);
+        doAnswer(invocation -> {
+            TransactionContext context = invocation.getArgument(0);
+            if (context.getRequest() == bad) {
+                throw new WalletBusinessException("Insufficient funds");
+            }
+            return null;
+        }).when(mockHandler1).process(any(TransactionContext.class));
+
+        List<TransactionContext> contexts = List.of(context("TXN-0", ok1), context("TXN-1", bad), context("TXN-2", ok2));
+
+        // Act
+        List<BatchTransferItemResultDTO> results = handlerChainExecutor.executeBatch(contexts);
+
+        // Assert
+        // 1. Rejected item never reaches the rest of the chain
+        ArgumentCaptor<TransactionContext> contextCaptor = ArgumentCaptor.forClass(TransactionContext.class);
+        verify(mockHandler2, times(2)).process(contextCaptor.capture());
+        assertThat(contextCaptor.getAllValues())
+                .extracting(TransactionContext::getTransactionId)
+                .containsExactly("TXN-0", "TXN-2");
+        assertThat(contexts).allSatisfy(context -> assertThat(context.getLedgerBatch()).isSameAs(ledgerBatch));
+
+        // 2. Every wallet in the batch is read up front, once
+        verify(ledgerBatchWriter).open(Set.of("w1", "w2", "w3", "w4"));
+
+        // 3. Staged writes are flushed once, and results are reported per item
+        verify(ledgerBatchWriter, times(1)).flush(ledgerBatch);
+        assertThat(results).extracting(BatchTransferItemResultDTO::status).containsExactly("COMPLETED", "FAILED", "COMPLETED");
+        assertThat(results.get(0).transactionId()).isEqualTo("TXN-0");
+        assertThat(results.get(1).transactionId()).isNull();
+        assertThat(results.get(1).errorMessage()).isEqualTo("Insufficient funds");
+        assertThat(results.get(2).index()).isEqualTo(2);
+    }
+
+    @Test
+    void executeBatch_WhenAnItemHitsAnInternalError_FailsTheWholeBatchWithoutFlushing() {
+        // Arrange
+        TransferRequestDTO ok = new TransferRequestDTO("w1", "w2", new BigDecimal("10.00"), "Salary");
+        TransferRequestDTO broken = new TransferRequestDTO("w1", "w3", new BigDecimal("20.00"), "Salary");
+        when(ledgerBatchWriter.open(anyCollection())).thenReturn(new LedgerBatch(id -> Optional.empty()));
+        doAnswer(invocation -> {
+            TransactionContext context = invocation.getArgument(0);
+            if (context.getRequest() == broken) {
+                throw new IllegalStateException("Wallet w3 was not loaded into the batch");
+            }
+            return null;
+        }).when(mockHandler1).process(any(TransactionContext.class));
+
+        List<TransactionContext> contexts = List.of(context("TXN-0", ok), context("TXN-1", broken));
+
+        // Act & Assert
+        assertThatThrownBy(() -> handlerChainExecutor.executeBatch(contexts))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Wallet w3 was not loaded into the batch");
+        verify(ledgerBatchWriter, never()).flush(any());
+    }
+
+    @Test
+    void executeGroup_RunsEachItemUnderItsCallersLogContext() {
+        // Arrange
+        TransferRequestDTO first = new TransferRequestDTO("w1", "w2", new BigDecimal("10.00"), "Salary");
+        TransferRequestDTO second = new TransferRequestDTO("w3", "w4", new BigDecimal("20.00"), "Salary");
+        when(ledgerBatchWriter.open(anyCollection())).thenReturn(new LedgerBatch(id -> Optional.empty()));
+        List<String> loggedUnder = new ArrayList<>();
+        doAnswer(invocation -> loggedUnder.add(MDC.get("requestId")))
+                .when(mockHandler1).process(any(TransactionContext.class));
+
+        TransactionContext firstContext = context("TXN-0", first);
+        firstContext.setLogContext(Map.of("requestId", "REQ-1"));
+        TransactionContext secondContext = context("TXN-1", second);
+        secondContext.setLogContext(Map.of("requestId", "REQ-2"));
+
+        // Act
+        handlerChainExecutor.executeGroup(List.of(firstContext, secondContext));
+
+        // Assert
+        assertThat(loggedUnder).containsExactly("REQ-1", "REQ-2");
+        assertThat(MDC.get("requestId")).isNull(); // The committer thread is left as it was
+    }
+
+    @Test
+    void execute_RecordsATimerPerHandlerAndForTheChain() {
+        // Arrange
+        HandlerChainExecutor executor = new HandlerChainExecutor(
+                List.of(new CheckHandler(), new WriteHandler()), ledgerBatchWriter, meterRegistry);
+
+        // Act
+        executor.execute(TransactionContext.builder().transactionId("TXN-123").build());
+
+        // Assert
+        assertThat(handlerCount("CheckHandler", "success")).isEqualTo(1);
+        assertThat(handlerCount("WriteHandler", "success")).isEqualTo(1);
+        assertThat(chainCount("success")).isEqualTo(1);
+    }
+
+    @Test
+    void execute_WhenAHandlerFails_TagsTheHandlerAndChainWithTheOutcome() {
+        // Arrange
+        HandlerChainExecutor executor = new HandlerChainExecutor(
+                List.of(new CheckHandler(), new WriteHandler()), ledgerBatchWriter, meterRegistry);
+        TransactionContext rejected = TransactionContext.builder().transactionId("REJECT").build();
+        TransactionContext conflicted = TransactionContext.builder().transactionId("CONFLICT").build();
+        TransactionContext broken = TransactionContext.builder().transactionId("BREAK").build();
+
+        // Act
+        assertThatThrownBy(() -> executor.execute(rejected)).isInstanceOf(WalletBusinessException.class);
+        assertThatThrownBy(() -> executor.execute(conflicted)).isInstanceOf(WalletConcurrencyException.class);
+        assertThatThrownBy(() -> executor.execute(broken)).isInstanceOf(NullPointerException.class);
+
+        // Assert
+        assertThat(handlerCount("CheckHandler", "rejected")).isEqualTo(1);
+        assertThat(handlerCount("CheckHandler", "success")).isEqualTo(2);
+        assertThat(handlerCount("WriteHandler", "conflict")).isEqualTo(1);
+        assertThat(handlerCount("WriteHandler", "error")).isEqualTo(1);
+        assertThat(chainCount("rejected")).isEqualTo(1);
+        assertThat(chainCount("conflict")).isEqualTo(1);
+        assertThat(chainCount("error")).isEqualTo(1);
+        assertThat(chainCount("success")).isZero();
+    }
+
+    private long handlerCount(String handler, String outcome) {
+        return meterRegistry.get("wallet.handler.duration").tag("handler", handler).tag("outcome", outcome)
+                .timer().count();
+    }
+
+    private long chainCount(String outcome) {
+        return meterRegistry.get("wallet.handler.chain.duration").tag("outcome", outcome).timer().count();
+    }
+
+    private static class CheckHandler implements TransactionHandler {
+        @Override
+        public void process(TransactionContext context) {
+            if ("REJECT".equals(context.getTransactionId())) {
+                throw new WalletBusinessException("Insufficient funds");
+            }
+        }
+    }
+
+    private static class WriteHandler implements TransactionHandler {
+        @Override
+        public void process(TransactionContext context) {
+            if ("CONFLICT".equals(context.getTransactionId())) {
+                throw new WalletConcurrencyException("Concurrent update detected");
+            }
+            if ("BREAK".equals(context.getTransactionId())) {
+                throw new NullPointerException("boom");
+            }
+        }
+    }
+
+    private static TransactionContext context(String transactionId, TransferRequestDTO request) {
+        return TransactionContext.builder().transactionId(transactionId).request(request).build();
+    }
+}
@@ -0,0 +1,246 @@
+package com.wallet.core.handler;
+
+import com.wallet.common.exception.WalletBusinessException;
+import com.wallet.common.exception.WalletConcurrencyException;
+import com.wallet.core.entity.Hold;
+import com.wallet.core.entity.JournalEntry;
+import com.wallet.core.entity.OutboxEvent;
+import com.wallet.core.entity.TransactionRequest;
+import com.wallet.core.entity.Wallet;
+import com.wallet.common.enums.WalletConcurrencyMode;
+import com.wallet.core.factory.WalletConcurrencyStrategyFactory;
+import com.wallet.core.mapper.WalletMapper;
+import com.wallet.core.service.WalletShardService;
+import com.wallet.core.strategy.OptimisticWalletConcurrencyStrategy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerBatchWriterTest {
+
+    @Mock
+    private WalletMapper walletMapper;
+
+    private LedgerBatchWriter ledgerBatchWriter;
+
+    @BeforeEach
+    void setUp() {
+        WalletConcurrencyStrategyFactory concurrencyStrategyFactory = new WalletConcurrencyStrategyFactory(
+                List.of(new OptimisticWalletConcurrencyStrategy(walletMapper)), WalletConcurrencyMode.OPTIMISTIC);
+        ledgerBatchWriter = new LedgerBatchWriter(walletMapper, concurrencyStrategyFactory, new WalletShardService(walletMapper));
+    }
+
+    @Test
+    void flush_WhenTransfersAreStaged_WritesNetBalancesAndMultiRowInserts() {
+        // Arrange: w1 pays w2 twice, the batch should collapse that into one update per wallet
+        when(walletMapper.findWalletsByIds(List.of("w1", "w2")))
+                .thenReturn(List.of(wallet("w1", "100.00", 3), wallet("w2", "50.00", 7)));
+        when(walletMapper.updateWalletBalances(anyList())).thenReturn(2);
+
+        LedgerBatch batch = ledgerBatchWriter.open(List.of("w1", "w2"));
+        stage(batch, "TXN-1", "w1", "w2", "10.00");
+        stage(batch, "TXN-2", "w1", "w2", "15.00");
+
+        // Act
+        ledgerBatchWriter.flush(batch);
+
+        // Assert
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Wallet>> walletsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(walletMapper, times(1)).updateWalletBalances(walletsCaptor.capture());
+        assertThat(walletsCaptor.getValue())
+                .extracting(Wallet::id, Wallet::balance, Wallet::version)
+                .containsExactly(
+                        tuple("w1", new BigDecimal("75.00"), 3),
+                        tuple("w2", new BigDecimal("75.00"), 7));
+
+        // All wallets are read from the database in one query
+        verify(walletMapper, times(1)).findWalletsByIds(anyCollection());
+
+        verify(walletMapper, times(1)).insertTransactionRequests(argThat(rows -> rows.size() == 2));
+        verify(walletMapper, times(1)).insertJournalEntries(argThat(rows -> rows.size() == 4));
+        verify(walletMapper, times(1)).insertOutboxEvents(argThat(rows -> rows.size() == 2));
+        verify(walletMapper, never()).insertJournalEntry(any());
+    }
+
+    @Test
+    void flush_WhenAWalletVersionMoved_ThrowsConcurrencyErrorBeforeInserting() {
+        // Arrange
+        when(walletMapper.findWalletsByIds(List.of("w1", "w2")))
+                .thenReturn(List.of(wallet("w1", "100.00", 3), wallet("w2", "50.00", 7)));
+        when(walletMapper.updateWalletBalances(anyList())).thenReturn(1);
+
+        LedgerBatch batch = ledgerBatchWriter.open(List.of("w1", "w2"));
+        stage(batch, "TXN-1", "w1", "w2", "10.00");
+
+        // Act & Assert
+        assertThatThrownBy(() -> ledgerBatchWriter.flush(batch))
+                .isInstanceOf(WalletBusinessException.class)
+                .hasMessage("Concurrency error: Wallet state changed during batch transfer.");
+
+        verify(walletMapper, never()).insertTransactionRequests(anyList());
+        verify(walletMapper, never()).insertJournalEntries(anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_WhenRowsExceedStatementLimit_SplitsIntoChunks() {
+        // Arrange
+        when(walletMapper.findWalletsByIds(anyCollection())).thenAnswer(invocation ->
+                ((Collection<String>) invocation.getArgument(0)).stream().map(id -> wallet(id, "1000000.00", 0)).toList());
+        when(walletMapper.updateWalletBalances(anyList())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+
+        List<String> walletIds = new ArrayList<>(List.of("payer"));
+        for (int i = 0; i < LedgerBatchWriter.ROWS_PER_STATEMENT + 1; i++) {
+            walletIds.add("payee-" + i);
+        }
+
+        LedgerBatch batch = ledgerBatchWriter.open(walletIds);
+        for (int i = 0; i < LedgerBatchWriter.ROWS_PER_STATEMENT + 1; i++) {
+            stage(batch, "TXN-" + i, "payer", "payee-" + i, "1.00");
+        }
+
+        // Act
+        ledgerBatchWriter.flush(batch);
+
+        // Assert: 502 wallets, 501 requests and outbox events, 1002 journal legs
+        verify(walletMapper, times(2)).updateWalletBalances(anyList());
+        verify(walletMapper, times(2)).insertTransactionRequests(anyList());
+        verify(walletMapper, times(3)).insertJournalEntries(anyList());
+        verify(walletMapper, times(2)).insertOutboxEvents(anyList());
+    }
+
+    @Test
+    void flush_WhenAWalletIsSplit_AppliesItsNetChangeToAShard() {
+        // Arrange: w1 pays the split merchant wallet twice
+        Wallet merchant = new Wallet("m1", "merchant", new BigDecimal("500.00"), "USD", "ACTIVE", 2,
+                LocalDateTime.now(), LocalDateTime.now(), 4);
+        when(walletMapper.findWalletsByIds(List.of("w1", "m1"))).thenReturn(List.of(wallet("w1", "100.00", 3), merchant));
+        when(walletMapper.updateWalletBalances(anyList())).thenReturn(1);
+
+        LedgerBatch batch = ledgerBatchWriter.open(List.of("w1", "m1"));
+        stage(batch, "TXN-1", "w1", "m1", "10.00");
+        stage(batch, "TXN-2", "w1", "m1", "15.00");
+
+        // Act
+        ledgerBatchWriter.flush(batch);
+
+        // Assert
+        verify(walletMapper).updateWalletBalances(argThat(wallets -> wallets.size() == 1 && wallets.get(0).id().equals("w1")));
+        verify(walletMapper).creditBalanceShard(eq("m1"), anyInt(), eq(new BigDecimal("25.00")));
+    }
+
+    @Test
+    void flush_WhenHoldsAreStaged_ReservesEachSendersTotalAndWritesTheHolds() {
+        // Arrange: hold settlement mode, w1 pays twice and w3 once
+        when(walletMapper.findWalletsByIds(List.of("w1", "w2", "w3")))
+                .thenReturn(List.of(wallet("w1", "100.00", 3), wallet("w2", "50.00", 7), wallet("w3", "80.00", 1)));
+        when(walletMapper.placeHold(anyString(), any())).thenReturn(Optional.of(BigDecimal.ONE));
+
+        LedgerBatch batch = ledgerBatchWriter.open(List.of("w1", "w2", "w3"));
+        batch.stageHold(hold("TXN-1", "w3", "w2", "5.00"));
+        batch.stageHold(hold("TXN-2", "w1", "w2", "10.00"));
+        batch.stageHold(hold("TXN-3", "w1", "w2", "15.00"));
+
+        // Act
+        ledgerBatchWriter.flush(batch);
+
+        // Assert: one guarded reservation per sender in wallet ID order, then every hold in one insert
+        InOrder inOrder = inOrder(walletMapper);
+        inOrder.verify(walletMapper).placeHold("w1", new BigDecimal("25.00"));
+        inOrder.verify(walletMapper).placeHold("w3", new BigDecimal("5.00"));
+        inOrder.verify(walletMapper).insertHolds(argThat(holds -> holds.size() == 3));
+        verify(walletMapper, never()).updateWalletBalances(anyList());
+        verify(walletMapper, never()).insertJournalEntries(anyList());
+    }
+
+    @Test
+    void flush_WhenAHeldSenderNoLongerHasTheFunds_ThrowsConcurrencyErrorBeforeWritingHolds() {
+        // Arrange
+        when(walletMapper.findWalletsByIds(List.of("w1", "w2")))
+                .thenReturn(List.of(wallet("w1", "100.00", 3), wallet("w2", "50.00", 7)));
+        when(walletMapper.placeHold("w1", new BigDecimal("10.00"))).thenReturn(Optional.empty());
+
+        LedgerBatch batch = ledgerBatchWriter.open(List.of("w1", "w2"));
+        batch.stageHold(hold("TXN-1", "w1", "w2", "10.00"));
+
+        // Act & Assert: the retry re-validates the batch from fresh reads
+        assertThatThrownBy(() -> ledgerBatchWriter.flush(batch))
+                .isInstanceOf(WalletConcurrencyException.class);
+        verify(walletMapper, never()).insertHolds(anyList());
+    }
+
+    @Test
+    void flush_WhenASplitSendersFundsWereSpentMeanwhile_ThrowsConcurrencyErrorBeforeInserting() {
+        // Arrange: the batch read the split wallet's total, its shards are not locked until the flush
+        Wallet merchant = new Wallet("m1", "merchant", new BigDecimal("500.00"), "USD", "ACTIVE", 2,
+                LocalDateTime.now(), LocalDateTime.now(), 4);
+        when(walletMapper.findWalletsByIds(List.of("m1", "w1"))).thenReturn(List.of(merchant, wallet("w1", "100.00", 3)));
+        when(walletMapper.updateWalletBalances(anyList())).thenReturn(1);
+        when(walletMapper.debitAnyBalanceShard("m1", new BigDecimal("400.00"))).thenReturn(Optional.empty());
+        when(walletMapper.findBalanceShardsForUpdate("m1")).thenReturn(List.of());
+        when(walletMapper.findWalletById("m1")).thenReturn(Optional.of(new Wallet("m1", "merchant",
+                new BigDecimal("500.00"), "USD", "ACTIVE", 2, LocalDateTime.now(), LocalDateTime.now(), 4,
+                new BigDecimal("200.00"))));
+
+        LedgerBatch batch = ledgerBatchWriter.open(List.of("m1", "w1"));
+        stage(batch, "TXN-1", "m1", "w1", "400.00");
+
+        // Act & Assert: the retry re-validates against the funds pending holds left
+        assertThatThrownBy(() -> ledgerBatchWriter.flush(batch)).isInstanceOf(WalletConcurrencyException.class);
+        verify(walletMapper, never()).insertTransactionRequests(anyList());
+    }
+
+    @Test
+    void flush_WhenNothingWasStaged_DoesNothing() {
+        // Act
+        ledgerBatchWriter.flush(ledgerBatchWriter.open(List.of()));
+
+        // Assert
+        verifyNoInteractions(walletMapper);
+    }
+
+    private static Wallet wallet(String id, String balance, int version) {
+        return new Wallet(id, "user-" + id, new BigDecimal(balance), "MYR", "ACTIVE", version,
+                LocalDateTime.now(), LocalDateTime.now());
+    }
+
+    private static Hold hold(String txId, String from, String to, String amount) {
+        return new Hold(txId, "REQ-BATCH", from, to, new BigDecimal(amount), "PENDING",
+                LocalDateTime.now().plusSeconds(60), LocalDateTime.now(), null, Integer.parseInt(txId.substring(4)));
+    }
+
+    private static void stage(LedgerBatch batch, String txId, String from, String to, String amount) {
+        BigDecimal value = new BigDecimal(amount);
+        batch.findWallet(from);
+        batch.findWallet(to);
+        batch.stageTransfer(from, to, value,
+                new TransactionRequest(txId, "REQ-" + txId, "TRANSFER", "SUCCESS", value, LocalDateTime.now(), null),
+                List.of(new JournalEntry(null, txId, from, "DEBIT", value, LocalDateTime.now()),
+                        new JournalEntry(null, txId, to, "CREDIT", value, LocalDateTime.now())),
+                new OutboxEvent(null, "transfer-events", "{}", "PENDING", LocalDateTime.now()));
+    }
+}
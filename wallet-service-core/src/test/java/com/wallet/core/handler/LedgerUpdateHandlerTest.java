@@ -4,23 +4,39 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.wallet.common.dto.TransferEventDTO;
 import com.wallet.common.dto.TransferRequestDTO;
+import com.wallet.common.enums.BalanceUpdateMode;
+import com.wallet.common.enums.SettlementMode;
 import com.wallet.common.exception.WalletBusinessException;
+import com.wallet.core.entity.Hold;
 import com.wallet.core.entity.JournalEntry;
 import com.wallet.core.entity.OutboxEvent;
 import com.wallet.core.entity.TransactionRequest;
 import com.wallet.core.entity.Wallet;
+import com.wallet.core.factory.BalanceUpdateStrategyFactory;
 import com.wallet.core.mapper.WalletMapper;
+import com.wallet.core.service.HoldService;
+import com.wallet.core.service.HoldSettler;
+import com.wallet.core.service.WalletShardService;
+import com.wallet.core.strategy.AtomicBalanceUpdateStrategy;
+import com.wallet.core.strategy.OptimisticBalanceUpdateStrategy;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -34,9 +50,27 @@ class LedgerUpdateHandlerTest {
     @Mock
     private ObjectMapper objectMapper;
 
-    @InjectMocks
+    @Mock
+    private HoldService holdService;
+
+    @Mock
+    private HoldSettler holdSettler;
+
     private LedgerUpdateHandler ledgerUpdateHandler;
 
+    @BeforeEach
+    void setUp() {
+        ledgerUpdateHandler = handlerWithMode(BalanceUpdateMode.OPTIMISTIC);
+    }
+
+    private LedgerUpdateHandler handlerWithMode(BalanceUpdateMode mode) {
+        BalanceUpdateStrategyFactory factory = new BalanceUpdateStrategyFactory(List.of(
+                new OptimisticBalanceUpdateStrategy(walletMapper),
+                new AtomicBalanceUpdateStrategy(walletMapper)), mode);
+        return new LedgerUpdateHandler(walletMapper, objectMapper, factory, new WalletShardService(walletMapper),
+                holdService, holdSettler);
+    }
+
     @Test
     void process_WhenRequestIsValid_CompletesSuccessfully() throws JsonProcessingException {
         // Arrange
@@ -62,10 +96,14 @@ class LedgerUpdateHandlerTest {
         // Act & Assert
         assertThatCode(() -> ledgerUpdateHandler.process(context)).doesNotThrowAnyException();
 
+        // Three write statements per transfer: two balance updates and one combined insert
+        // (previously six: two updates, the request, two journal legs and the outbox event)
         verify(walletMapper, times(2)).updateWalletBalance(anyString(), any(BigDecimal.class), anyInt());
-        verify(walletMapper, times(2)).insertJournalEntry(any(JournalEntry.class));
-        verify(walletMapper, times(1)).insertTransactionRequest(any(TransactionRequest.class));
-        verify(walletMapper, times(1)).insertOutboxEvent(any(OutboxEvent.class));
+        verify(walletMapper, times(1)).insertLedgerRecords(
+                argThat(request -> request.requestId().equals("REQ-123")),
+                argThat(legs -> legs.stream().map(JournalEntry::type).toList().equals(List.of("DEBIT", "CREDIT"))),
+                any(OutboxEvent.class));
+        verifyNoMoreInteractions(walletMapper);
     }
 
     @Test
@@ -93,7 +131,7 @@ class LedgerUpdateHandlerTest {
                 .isInstanceOf(WalletBusinessException.class)
                 .hasMessage("Concurrency error: Sender wallet state changed.");
 
-        verify(walletMapper, never()).insertJournalEntry(any());
+        verify(walletMapper, never()).insertLedgerRecords(any(), any(), any());
     }
 
     @Test
@@ -152,7 +190,209 @@ class LedgerUpdateHandlerTest {
                 .isInstanceOf(WalletBusinessException.class)
                 .hasMessage("Internal Error: Failed to format outbox event");
 
-        verify(walletMapper, times(1)).insertTransactionRequest(any(TransactionRequest.class));
-        verify(walletMapper, never()).insertOutboxEvent(any());
+        verify(walletMapper, never()).insertLedgerRecords(any(), any(), any());
+    }
+
+    @Test
+    void process_WhenContextBelongsToBatch_StagesWritesWithoutTouchingDatabase() throws JsonProcessingException {
+        // Arrange
+        Wallet sender = new Wallet("w1", "user1", new BigDecimal("100.00"), "USD", "ACTIVE", 1, LocalDateTime.now(),
+                LocalDateTime.now());
+        Wallet receiver = new Wallet("w2", "user2", new BigDecimal("50.00"), "USD", "ACTIVE", 1, LocalDateTime.now(),
+                LocalDateTime.now());
+        TransferRequestDTO requestDTO = new TransferRequestDTO(sender.id(), receiver.id(), new BigDecimal("10.00"),
+                "Test");
+
+        LedgerBatch batch = new LedgerBatch(id -> Optional.of(id.equals("w1") ? sender : receiver));
+        TransactionContext context = TransactionContext.builder()
+                .transactionId("TXN-123")
+                .requestId("REQ-123")
+                .batchIndex(0)
+                .request(requestDTO)
+                .senderWallet(sender)
+                .receiverWallet(receiver)
+                .ledgerBatch(batch)
+                .build();
+
+        when(objectMapper.writeValueAsString(any(TransferEventDTO.class))).thenReturn("{\"event\":\"test\"}");
+
+        // Act
+        ledgerUpdateHandler.process(context);
+
+        // Assert
+        verifyNoInteractions(walletMapper);
+        assertThat(batch.getUpdatedWallets())
+                .extracting(Wallet::balance)
+                .containsExactly(new BigDecimal("90.00"), new BigDecimal("60.00"));
+        assertThat(batch.getTransactionRequests()).extracting(TransactionRequest::requestId, TransactionRequest::batchIndex)
+                .containsExactly(tuple("REQ-123", 0));
+        assertThat(batch.getJournalEntries()).extracting(JournalEntry::type).containsExactly("DEBIT", "CREDIT");
+        assertThat(batch.getOutboxEvents()).hasSize(1);
+    }
+
+    @Test
+    void process_WhenAtomicMode_UsesRelativeUpdatesInWalletIdOrder() throws JsonProcessingException {
+        // Arrange
+        ledgerUpdateHandler = handlerWithMode(BalanceUpdateMode.ATOMIC);
+
+        // Receiver sorts first, so it must be locked first
+        Wallet sender = new Wallet("w2", "user1", new BigDecimal("100.00"), "USD", "ACTIVE", 1, LocalDateTime.now(),
+                LocalDateTime.now());
+        Wallet receiver = new Wallet("w1", "user2", new BigDecimal("50.00"), "USD", "ACTIVE", 1, LocalDateTime.now(),
+                LocalDateTime.now());
+        TransferRequestDTO requestDTO = new TransferRequestDTO(sender.id(), receiver.id(), new BigDecimal("10.00"),
+                "Test");
+
+        TransactionContext context = TransactionContext.builder()
+                .transactionId("TXN-123")
+                .requestId("REQ-123")
+                .request(requestDTO)
+                .senderWallet(sender)
+                .receiverWallet(receiver)
+                .build();
+
+        // A concurrent transfer already moved the sender, the returned balance must win over the stale read
+        when(walletMapper.creditWalletBalance("w1", new BigDecimal("10.00"))).thenReturn(Optional.of(new BigDecimal("60.00")));
+        when(walletMapper.debitWalletBalance("w2", new BigDecimal("10.00"))).thenReturn(Optional.of(new BigDecimal("70.00")));
+        when(objectMapper.writeValueAsString(any(TransferEventDTO.class))).thenReturn("{\"event\":\"test\"}");
+
+        // Act
+        ledgerUpdateHandler.process(context);
+
+        // Assert
+        InOrder inOrder = inOrder(walletMapper);
+        inOrder.verify(walletMapper).creditWalletBalance("w1", new BigDecimal("10.00"));
+        inOrder.verify(walletMapper).debitWalletBalance("w2", new BigDecimal("10.00"));
+        verify(walletMapper, never()).updateWalletBalance(anyString(), any(), anyInt());
+        assertThat(context.getSenderNewBalance()).isEqualTo(new BigDecimal("70.00"));
+    }
+
+    @Test
+    void process_WhenAtomicDebitGuardRejects_ThrowsInsufficientFunds() {
+        // Arrange
+        ledgerUpdateHandler = handlerWithMode(BalanceUpdateMode.ATOMIC);
+
+        Wallet sender = new Wallet("w1", "user1", new BigDecimal("100.00"), "USD", "ACTIVE", 1, LocalDateTime.now(),
+                LocalDateTime.now());
+        Wallet receiver = new Wallet("w2", "user2", new BigDecimal("50.00"), "USD", "ACTIVE", 1, LocalDateTime.now(),
+                LocalDateTime.now());
+        TransferRequestDTO requestDTO = new TransferRequestDTO(sender.id(), receiver.id(), new BigDecimal("10.00"),
+                "Test");
+
+        TransactionContext context = TransactionContext.builder()
+                .transactionId("TXN-123")
+                .requestId("REQ-123")
+                .request(requestDTO)
+                .senderWallet(sender)
+                .receiverWallet(receiver)
+                .build();
+
+        // Balance was drained by another writer after validation
+        when(walletMapper.debitWalletBalance("w1", new BigDecimal("10.00"))).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThatThrownBy(() -> ledgerUpdateHandler.process(context))
+                .isInstanceOf(WalletBusinessException.class)
+                .hasMessage("Insufficient funds");
+
+        verify(walletMapper, never()).creditWalletBalance(anyString(), any());
+        verify(walletMapper, never()).insertLedgerRecords(any(), any(), any());
+    }
+
+    @Test
+    void process_WhenReceiverIsSplit_CreditsOneOfItsShardsInsteadOfTheWalletRow() throws JsonProcessingException {
+        // Arrange
+        Wallet sender = new Wallet("w1", "user1", new BigDecimal("100.00"), "USD", "ACTIVE", 1, LocalDateTime.now(),
+                LocalDateTime.now());
+        Wallet merchant = new Wallet("w2", "merchant", new BigDecimal("5000.00"), "USD", "ACTIVE", 1, LocalDateTime.now(),
+                LocalDateTime.now(), 4);
+        TransactionContext context = TransactionContext.builder()
+                .transactionId("TXN-123")
+                .requestId("REQ-123")
+                .request(new TransferRequestDTO(sender.id(), merchant.id(), new BigDecimal("10.00"), "Test"))
+                .senderWallet(sender)
+                .receiverWallet(merchant)
+                .build();
+
+        when(walletMapper.updateWalletBalance("w1", new BigDecimal("90.00"), 1)).thenReturn(1);
+        when(objectMapper.writeValueAsString(any(TransferEventDTO.class))).thenReturn("{\"event\":\"test\"}");
+
+        // Act
+        ledgerUpdateHandler.process(context);
+
+        // Assert
+        verify(walletMapper).creditBalanceShard(eq("w2"), intThat(shard -> shard >= 0 && shard < 4), eq(new BigDecimal("10.00")));
+        verify(walletMapper, never()).updateWalletBalance(eq("w2"), any(), anyInt());
+        verify(walletMapper).insertLedgerRecords(any(), any(), any());
+    }
+
+    @Test
+    void process_WhenHoldSettlementMode_OnlyPlacesAHoldOnTheSender() {
+        // Arrange
+        ReflectionTestUtils.setField(ledgerUpdateHandler, "settlementMode", SettlementMode.HOLD);
+
+        Wallet sender = new Wallet("w1", "user1", new BigDecimal("100.00"), "USD", "ACTIVE", 1, LocalDateTime.now(),
+                LocalDateTime.now());
+        Wallet receiver = new Wallet("w2", "user2", new BigDecimal("50.00"), "USD", "ACTIVE", 1, LocalDateTime.now(),
+                LocalDateTime.now());
+        TransactionContext context = TransactionContext.builder()
+                .transactionId("TXN-123")
+                .requestId("REQ-123")
+                .request(new TransferRequestDTO(sender.id(), receiver.id(), new BigDecimal("10.00"), "Test"))
+                .senderWallet(sender)
+                .receiverWallet(receiver)
+                .build();
+
+        when(holdService.place("TXN-123", "REQ-123", sender, "w2", new BigDecimal("10.00")))
+                .thenReturn(new BigDecimal("90.00"));
+
+        // Act
+        ledgerUpdateHandler.process(context);
+
+        // Assert
+        assertThat(context.isOnHold()).isTrue();
+        assertThat(context.getSenderNewBalance()).isEqualTo(new BigDecimal("90.00"));
+        verify(holdSettler).trackExpiry("TXN-123");
+        verifyNoInteractions(walletMapper, objectMapper);
+    }
+
+    @Test
+    void process_WhenHoldSettlementModeAndContextBelongsToBatch_StagesAHoldInsteadOfATransfer() {
+        // Arrange
+        ReflectionTestUtils.setField(ledgerUpdateHandler, "settlementMode", SettlementMode.HOLD);
+
+        Wallet sender = new Wallet("w1", "user1", new BigDecimal("100.00"), "USD", "ACTIVE", 1, LocalDateTime.now(),
+                LocalDateTime.now());
+        Wallet receiver = new Wallet("w2", "user2", new BigDecimal("50.00"), "USD", "ACTIVE", 1, LocalDateTime.now(),
+                LocalDateTime.now());
+        LedgerBatch batch = new LedgerBatch(id -> Optional.of(id.equals("w1") ? sender : receiver));
+        TransactionContext context = TransactionContext.builder()
+                .transactionId("TXN-123")
+                .requestId("REQ-123")
+                .batchIndex(2)
+                .request(new TransferRequestDTO(sender.id(), receiver.id(), new BigDecimal("10.00"), "Test"))
+                .senderWallet(sender)
+                .receiverWallet(receiver)
+                .ledgerBatch(batch)
+                .build();
+
+        Hold hold = new Hold("TXN-123", "REQ-123", "w1", "w2", new BigDecimal("10.00"), "PENDING",
+                LocalDateTime.now().plusSeconds(60), LocalDateTime.now(), null, 2);
+        when(holdService.newHold("TXN-123", "REQ-123", 2, "w1", "w2", new BigDecimal("10.00"))).thenReturn(hold);
+
+        // Act
+        ledgerUpdateHandler.process(context);
+
+        // Assert: the sender's working copy reserves the amount, nothing moves until settlement
+        assertThat(context.isOnHold()).isTrue();
+        assertThat(context.getSenderNewBalance()).isEqualTo(new BigDecimal("90.00"));
+        assertThat(batch.findWallet("w1")).get().extracting(Wallet::availableBalance).isEqualTo(new BigDecimal("90.00"));
+        assertThat(batch.getHolds()).containsExactly(hold);
+        assertThat(batch.getHeldWalletDeltas()).containsExactly(entry("w1", new BigDecimal("10.00")));
+        assertThat(batch.getUpdatedWallets()).isEmpty();
+        assertThat(batch.getTransactionRequests()).isEmpty();
+        verify(holdService, never()).place(any(), any(), any(), any(), any());
+        verify(holdSettler).trackExpiry("TXN-123");
+        verifyNoInteractions(walletMapper, objectMapper);
     }
 }
@@ -1,6 +1,7 @@
 package com.wallet.core.handler;
 
 import com.wallet.common.dto.TransferRequestDTO;
+import com.wallet.common.exception.WalletBusinessException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -66,7 +67,7 @@ class LimitCheckHandlerTest {
 
                 // Act & Assert
                 assertThatThrownBy(() -> limitCheckHandler.process(context))
-                                .isInstanceOf(IllegalStateException.class)
+                                .isInstanceOf(WalletBusinessException.class)
                                 .hasMessage("Transfer amount exceeds the maximum allowed limit");
         }
 }
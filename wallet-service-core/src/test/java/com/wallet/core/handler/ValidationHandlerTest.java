@@ -3,21 +3,25 @@ package com.wallet.core.handler;
 import com.wallet.common.dto.TransferRequestDTO;
 import com.wallet.common.exception.WalletBusinessException;
 import com.wallet.core.entity.Wallet;
+import com.wallet.common.enums.WalletConcurrencyMode;
+import com.wallet.core.factory.WalletConcurrencyStrategyFactory;
 import com.wallet.core.mapper.WalletMapper;
+import com.wallet.core.strategy.OptimisticWalletConcurrencyStrategy;
+import com.wallet.core.strategy.PessimisticWalletConcurrencyStrategy;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.Optional;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
-import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class ValidationHandlerTest {
@@ -25,9 +29,19 @@ class ValidationHandlerTest {
         @Mock
         private WalletMapper walletMapper;
 
-        @InjectMocks
         private ValidationHandler validationHandler;
 
+        @BeforeEach
+        void setUp() {
+                validationHandler = handlerWithMode(WalletConcurrencyMode.OPTIMISTIC);
+        }
+
+        private ValidationHandler handlerWithMode(WalletConcurrencyMode mode) {
+                return new ValidationHandler(new WalletConcurrencyStrategyFactory(List.of(
+                                new OptimisticWalletConcurrencyStrategy(walletMapper),
+                                new PessimisticWalletConcurrencyStrategy(walletMapper)), mode));
+        }
+
         @Test
         void process_WhenAmountIsLessThanOrEqualZero_ThrowsException() {
                 // Arrange
@@ -67,7 +81,7 @@ class ValidationHandlerTest {
                                 .request(requestDTO)
                                 .build();
 
-                when(walletMapper.findWalletById("w1")).thenReturn(Optional.empty());
+                when(walletMapper.findWalletsByIds(List.of("w1", "w2"))).thenReturn(List.of());
 
                 // Act & Assert
                 assertThatThrownBy(() -> validationHandler.process(context))
@@ -87,7 +101,7 @@ class ValidationHandlerTest {
 
                 Wallet sender = new Wallet("w1", "user1", new BigDecimal("100.00"), "USD", "ACTIVE", 1,
                                 LocalDateTime.now(), LocalDateTime.now());
-                when(walletMapper.findWalletById("w1")).thenReturn(Optional.of(sender));
+                when(walletMapper.findWalletsByIds(List.of("w1", "w2"))).thenReturn(List.of(sender));
 
                 // Act & Assert
                 assertThatThrownBy(() -> validationHandler.process(context))
@@ -107,8 +121,7 @@ class ValidationHandlerTest {
 
                 Wallet sender = new Wallet("w1", "user1", new BigDecimal("100.00"), "USD", "ACTIVE", 1,
                                 LocalDateTime.now(), LocalDateTime.now());
-                when(walletMapper.findWalletById("w1")).thenReturn(Optional.of(sender));
-                when(walletMapper.findWalletById("w2")).thenReturn(Optional.empty());
+                when(walletMapper.findWalletsByIds(List.of("w1", "w2"))).thenReturn(List.of(sender));
 
                 // Act & Assert
                 assertThatThrownBy(() -> validationHandler.process(context))
@@ -132,8 +145,7 @@ class ValidationHandlerTest {
                 Wallet receiver = new Wallet("w2", "user2", new BigDecimal("50.00"), "USD", "ACTIVE", 1,
                                 LocalDateTime.now(), LocalDateTime.now());
 
-                when(walletMapper.findWalletById("w1")).thenReturn(Optional.of(sender));
-                when(walletMapper.findWalletById("w2")).thenReturn(Optional.of(receiver));
+                when(walletMapper.findWalletsByIds(List.of("w1", "w2"))).thenReturn(List.of(sender, receiver));
 
                 // Act & Assert
                 assertThatThrownBy(() -> validationHandler.process(context))
@@ -156,13 +168,42 @@ class ValidationHandlerTest {
                 Wallet receiver = new Wallet("w2", "user2", new BigDecimal("50.00"), "USD", "ACTIVE", 1,
                                 LocalDateTime.now(), LocalDateTime.now());
 
-                when(walletMapper.findWalletById("w1")).thenReturn(Optional.of(sender));
-                when(walletMapper.findWalletById("w2")).thenReturn(Optional.of(receiver));
+                when(walletMapper.findWalletsByIds(List.of("w1", "w2"))).thenReturn(List.of(sender, receiver));
+
+                // Act
+                validationHandler.process(context);
+
+                // Assert
+                assertThat(context.getSenderWallet()).isEqualTo(sender);
+                assertThat(context.getReceiverWallet()).isEqualTo(receiver);
+        }
+
+        @Test
+        void process_WhenPessimisticMode_LocksBothWalletsInOneStatement() {
+                // Arrange
+                validationHandler = handlerWithMode(WalletConcurrencyMode.PESSIMISTIC);
+
+                TransferRequestDTO requestDTO = new TransferRequestDTO("w2", "w1", new BigDecimal("10.00"), "Test");
+                TransactionContext context = TransactionContext.builder()
+                                .requestId("REQ-123")
+                                .clientId("user2")
+                                .request(requestDTO)
+                                .build();
+
+                Wallet sender = new Wallet("w2", "user2", new BigDecimal("100.00"), "USD", "ACTIVE", 1,
+                                LocalDateTime.now(), LocalDateTime.now());
+                Wallet receiver = new Wallet("w1", "user1", new BigDecimal("50.00"), "USD", "ACTIVE", 1,
+                                LocalDateTime.now(), LocalDateTime.now());
+
+                // Rows come back in lock order (ORDER BY id), not request order
+                when(walletMapper.findWalletsByIdsForUpdate(List.of("w2", "w1"))).thenReturn(List.of(receiver, sender));
 
                 // Act
                 validationHandler.process(context);
 
                 // Assert
+                verify(walletMapper, times(1)).findWalletsByIdsForUpdate(anyCollection());
+                verify(walletMapper, never()).findWalletsByIds(anyCollection());
                 assertThat(context.getSenderWallet()).isEqualTo(sender);
                 assertThat(context.getReceiverWallet()).isEqualTo(receiver);
         }
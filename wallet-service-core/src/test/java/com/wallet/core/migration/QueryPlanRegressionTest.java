@@ -0,0 +1,279 @@
+package com.wallet.core.migration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wallet.core.entity.JournalEntryCursor;
+import com.wallet.core.entity.JournalPartition;
+import com.wallet.core.mapper.WalletMapper;
+import com.wallet.core.service.BalanceCheckpointService;
+import com.wallet.core.service.LedgerPartitionManager;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Guards the plans of the hot queries: each has to be served by its index from V2, without
+ * a sequential scan or a sort, and history reads bounded by time only visit the ledger
+ * partitions in range. The SQL is taken from the mapper, so a changed query is checked as
+ * it now is. Balances rebuilt from checkpoints are checked against the full ledger here too,
+ * as only Postgres can run that SQL.
+ */
+@Tag("integration")
+@MybatisTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers
+@Import(SchemaMigrator.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class QueryPlanRegressionTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Autowired
+    private SchemaMigrator schemaMigrator;
+
+    @Autowired
+    private WalletMapper walletMapper;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void seed() {
+        if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM journal_entries", Long.class) > 0) {
+            return;
+        }
+
+        // 200 wallets with 250 legs each, and an outbox where almost everything is already sent
+        jdbcTemplate.execute("""
+                INSERT INTO wallets (id, user_id, balance)
+                SELECT 'W-' || n, 'U-' || n, 1000 FROM generate_series(1, 200) n""");
+        jdbcTemplate.execute("""
+                INSERT INTO transaction_requests (id, request_id, type, status, amount)
+                SELECT 'T-' || n, 'R-' || n, 'TRANSFER', 'COMPLETED', 1 FROM generate_series(1, 25000) n""");
+        jdbcTemplate.execute("""
+                INSERT INTO journal_entries (transaction_id, wallet_id, type, amount, created_at)
+                SELECT 'T-' || n, 'W-' || (n % 200 + 1), 'DEBIT', 1, TIMESTAMP '2026-01-01' + n * INTERVAL '1 minute'
+                FROM generate_series(1, 25000) n
+                UNION ALL
+                SELECT 'T-' || n, 'W-' || ((n + 1) % 200 + 1), 'CREDIT', 1, TIMESTAMP '2026-01-01' + n * INTERVAL '1 minute'
+                FROM generate_series(1, 25000) n""");
+        jdbcTemplate.execute("""
+                INSERT INTO outbox_events (topic, payload, status)
+                SELECT 'transaction-events', '{}', CASE WHEN n % 1000 = 0 THEN 'PENDING' ELSE 'SENT' END
+                FROM generate_series(1, 20000) n""");
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void migrate_RecordsEveryVersionAndIsANoOpOnceApplied() throws Exception {
+        // Act & Assert: the context already migrated at startup
+        assertThat(schemaMigrator.migrate()).isEmpty();
+        assertThat(jdbcTemplate.queryForList("SELECT version FROM schema_migrations ORDER BY version", Integer.class))
+                .startsWith(1, 2, 3, 4, 5, 6, 7, 8, 9);
+    }
+
+    @Test
+    void walletHistory_ReadsTheNewestLegsOffTheWalletIndex() throws Exception {
+        // Act
+        JsonNode plan = explain("findJournalEntriesByWalletId", historyParameters("W-42", null));
+
+        // Assert: on a partitioned table each partition has its own copy of the index, named after it
+        assertThat(indexConditions(plan)).isNotEmpty().allMatch(condition -> condition.contains("wallet_id"));
+        assertThat(nodeTypes(plan)).doesNotContain("Seq Scan", "Sort");
+    }
+
+    @Test
+    void walletHistory_DeepPage_SeeksPastTheCursorWithoutSortingOrSkipping() throws Exception {
+        // Arrange: a cursor far back in the wallet's history
+        JournalEntryCursor before = new JournalEntryCursor(LocalDateTime.of(2026, 1, 3, 0, 0), 2000L);
+
+        // Act
+        JsonNode plan = explain("findJournalEntriesByWalletId", historyParameters("W-42", null, before));
+
+        // Assert
+        assertThat(indexConditions(plan)).isNotEmpty().allMatch(condition -> condition.contains("created_at"));
+        assertThat(nodeTypes(plan)).doesNotContain("Seq Scan", "Sort");
+    }
+
+    @Test
+    void walletHistory_WithAFromBound_SkipsTheOlderPartitions() throws Exception {
+        // Arrange
+        new LedgerPartitionManager(walletMapper, 3, 0).maintainPartitions();
+        LocalDateTime nextMonth = YearMonth.now().plusMonths(1).atDay(1).atStartOfDay();
+
+        // Act
+        JsonNode plan = explain("findJournalEntriesByWalletId", historyParameters("W-42", nextMonth));
+
+        // Assert
+        assertThat(plan.findValuesAsText("Relation Name"))
+                .isNotEmpty()
+                .doesNotContain("journal_entries_legacy")
+                .allMatch(relation -> relation.startsWith("journal_entries_y"));
+    }
+
+    @Test
+    void statement_WalksTheWalletIndexBackwardsInsteadOfSorting() throws Exception {
+        // Arrange
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("walletId", "W-42");
+        parameters.put("from", LocalDateTime.of(2026, 1, 2, 0, 0));
+        parameters.put("to", LocalDateTime.of(2026, 1, 10, 0, 0));
+
+        // Act
+        JsonNode plan = explain("streamJournalEntriesByWalletId", parameters);
+
+        // Assert: oldest first is the history index read the other way round
+        assertThat(indexConditions(plan)).isNotEmpty().allMatch(condition -> condition.contains("wallet_id"));
+        assertThat(nodeTypes(plan)).doesNotContain("Seq Scan", "Sort");
+    }
+
+    @Test
+    void balanceCheckpoints_GiveTheSameBalanceAsTheFullLedger() {
+        // Arrange: every wallet at Jan 10, then the wallets that moved on each of the next two days
+        walletMapper.insertBalanceCheckpoints(null, LocalDateTime.of(2026, 1, 10, 0, 0));
+        walletMapper.insertBalanceCheckpoints(LocalDateTime.of(2026, 1, 10, 0, 0), LocalDateTime.of(2026, 1, 11, 0, 0));
+        walletMapper.insertBalanceCheckpoints(LocalDateTime.of(2026, 1, 11, 0, 0), LocalDateTime.of(2026, 1, 12, 0, 0));
+        BalanceCheckpointService checkpoints = new BalanceCheckpointService(walletMapper, Duration.ofMinutes(5));
+        LocalDateTime at = LocalDateTime.of(2026, 1, 12, 6, 30);
+
+        // Act & Assert
+        assertThat(walletMapper.findLatestBalanceCheckpoint("W-42", at)).get()
+                .satisfies(checkpoint -> assertThat(checkpoint.asOf()).isEqualTo(LocalDateTime.of(2026, 1, 12, 0, 0)));
+        assertThat(checkpoints.balanceAt("W-42", at))
+                .isEqualByComparingTo(walletMapper.sumJournalMovements("W-42", null, at));
+    }
+
+    @Test
+    void pendingOutbox_ReadsOnlyThePartialIndex() throws Exception {
+        // Act
+        JsonNode plan = explain("findPendingOutboxEvents", Map.of());
+
+        // Assert
+        assertThat(indexes(plan)).contains("idx_outbox_events_pending");
+        assertThat(nodeTypes(plan)).doesNotContain("Seq Scan", "Sort");
+    }
+
+    @Test
+    void existsRequest_SeesABatchWhoseFirstItemWasRejected() {
+        // Arrange: item 0 of the batch was rejected, items 1 and 2 committed
+        jdbcTemplate.execute("""
+                INSERT INTO transaction_requests (id, request_id, type, status, amount, batch_index)
+                VALUES ('T-B1', 'R-BATCH', 'TRANSFER', 'SUCCESS', 1, 1), ('T-B2', 'R-BATCH', 'TRANSFER', 'SUCCESS', 1, 2)
+                ON CONFLICT DO NOTHING""");
+
+        // Act & Assert
+        assertThat(walletMapper.existsRequest("R-BATCH")).isTrue();
+        assertThat(walletMapper.existsRequest("R-42")).isTrue();
+        assertThat(walletMapper.existsRequest("R-NEVER")).isFalse();
+    }
+
+    @Test
+    void existsRequest_ProbesEachPartialIndexInsteadOfScanning() throws Exception {
+        // Act
+        JsonNode plan = explain("existsRequest", new HashMap<>(Map.of("requestId", "R-42")));
+
+        // Assert: holds is empty here, so only the seeded transaction_requests plan is meaningful
+        assertThat(indexes(plan)).contains("idx_transaction_requests_request", "idx_transaction_requests_batch_item");
+        assertThat(plan.findParents("Node Type"))
+                .filteredOn(node -> node.path("Node Type").asText().equals("Seq Scan"))
+                .extracting(node -> node.path("Relation Name").asText())
+                .doesNotContain("transaction_requests");
+    }
+
+    @Test
+    void legsOfATransaction_UseTheTransactionIndex() throws Exception {
+        // Act
+        JsonNode plan = explainSql("SELECT * FROM journal_entries WHERE transaction_id = ?", "T-4242");
+
+        // Assert
+        assertThat(indexConditions(plan)).isNotEmpty().allMatch(condition -> condition.contains("transaction_id"));
+        assertThat(nodeTypes(plan)).doesNotContain("Seq Scan");
+    }
+
+    @Test
+    void partitionManager_CreatesTheUpcomingMonths() {
+        // Act
+        new LedgerPartitionManager(walletMapper, 3, 0).maintainPartitions();
+
+        // Assert
+        assertThat(walletMapper.findJournalPartitions())
+                .extracting(JournalPartition::toExclusive)
+                .contains(YearMonth.now().plusMonths(4).atDay(1).atStartOfDay());
+    }
+
+    private JsonNode explain(String statement, Map<String, Object> parameters) throws Exception {
+        Configuration configuration = sqlSessionFactory.getConfiguration();
+        BoundSql bound = configuration
+                .getMappedStatement("com.wallet.core.mapper.WalletMapper." + statement)
+                .getBoundSql(parameters);
+        // Properties can be nested, e.g. before.createdAt
+        MetaObject values = configuration.newMetaObject(parameters);
+        Object[] args = bound.getParameterMappings().stream()
+                .map(mapping -> values.getValue(mapping.getProperty()))
+                .toArray();
+        return explainSql(bound.getSql(), args);
+    }
+
+    private JsonNode explainSql(String sql, Object... args) throws Exception {
+        String json = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + sql, String.class, args);
+        return objectMapper.readTree(json);
+    }
+
+    private static List<String> indexes(JsonNode plan) {
+        return plan.findValuesAsText("Index Name");
+    }
+
+    private static List<String> indexConditions(JsonNode plan) {
+        return plan.findValuesAsText("Index Cond");
+    }
+
+    private static Map<String, Object> historyParameters(String walletId, LocalDateTime from) {
+        return historyParameters(walletId, from, null);
+    }
+
+    private static Map<String, Object> historyParameters(String walletId, LocalDateTime from, JournalEntryCursor before) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("walletId", walletId);
+        parameters.put("from", from);
+        parameters.put("to", null);
+        parameters.put("type", null);
+        parameters.put("before", before);
+        parameters.put("limit", 51);
+        return parameters;
+    }
+
+    private static List<String> nodeTypes(JsonNode plan) {
+        return plan.findValuesAsText("Node Type");
+    }
+}
@@ -0,0 +1,70 @@
+package com.wallet.core.migration;
+
+import com.wallet.core.migration.SchemaMigrator.Migration;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SchemaMigratorTest {
+
+    @Test
+    void discover_SortsScriptsByVersionNumberNotByName() {
+        // Act
+        List<Migration> migrations = SchemaMigrator.discover(new Resource[]{
+                script("V10__later.sql", "SELECT 10;"),
+                script("V2__add_indexes.sql", "SELECT 2;"),
+                script("V1__baseline.sql", "SELECT 1;")});
+
+        // Assert
+        assertThat(migrations).extracting(Migration::version).containsExactly(1, 2, 10);
+        assertThat(migrations.get(1).description()).isEqualTo("add indexes");
+    }
+
+    @Test
+    void discover_ChecksumChangesWithTheScript() {
+        // Act
+        long original = SchemaMigrator.discover(new Resource[]{script("V1__a.sql", "SELECT 1;")}).get(0).checksum();
+        long edited = SchemaMigrator.discover(new Resource[]{script("V1__a.sql", "SELECT 2;")}).get(0).checksum();
+
+        // Assert
+        assertThat(edited).isNotEqualTo(original);
+    }
+
+    @Test
+    void discover_RejectsDuplicateVersionsAndMisnamedScripts() {
+        // Act & Assert
+        assertThatThrownBy(() -> SchemaMigrator.discover(new Resource[]{
+                script("V1__a.sql", ""), script("V1__b.sql", "")}))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Two migration scripts have version 1");
+        assertThatThrownBy(() -> SchemaMigrator.discover(new Resource[]{script("add_index.sql", "")}))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("does not match");
+    }
+
+    @Test
+    void discover_FindsTheShippedScripts() throws Exception {
+        // Act
+        List<Migration> migrations = SchemaMigrator.discover(
+                new PathMatchingResourcePatternResolver().getResources(SchemaMigrator.LOCATION));
+
+        // Assert
+        assertThat(migrations).extracting(Migration::version).startsWith(1, 2);
+    }
+
+    private static Resource script(String filename, String sql) {
+        return new ByteArrayResource(sql.getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public String getFilename() {
+                return filename;
+            }
+        };
+    }
+}
@@ -0,0 +1,156 @@
+package com.wallet.core.reconciliation;
+
+import com.wallet.common.enums.ReconciliationMode;
+import com.wallet.core.entity.ReconciliationDiscrepancy;
+import com.wallet.core.entity.TransferLegCheck;
+import com.wallet.core.entity.WalletBalanceCheck;
+import com.wallet.core.mapper.WalletMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.ibatis.cursor.Cursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReconciliationServiceTest {
+
+    @Mock
+    private WalletMapper walletMapper;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ReconciliationService reconciliationService;
+
+    @BeforeEach
+    void setUp() {
+        reconciliationService = new ReconciliationService(walletMapper, transactionManager, meterRegistry,
+                2, 1000, Duration.ofDays(1), Duration.ofMinutes(5), 0, Duration.ofHours(6));
+    }
+
+    @Test
+    void reconcile_Full_ChecksEveryWalletRangeInARepeatableReadSnapshotAndRecordsMismatches() {
+        // Arrange: two wallet chunks split at W-5, and no transfers yet
+        givenRunStarts();
+        when(walletMapper.findWalletIdChunkBoundaries(1000)).thenReturn(List.of("W-5"));
+        when(walletMapper.findFirstTransferTime()).thenReturn(null);
+        Cursor<WalletBalanceCheck> lowerWallets = cursorOf(List.of(
+                new WalletBalanceCheck("W-1", new BigDecimal("10.00"), new BigDecimal("10.0000")),
+                new WalletBalanceCheck("W-2", new BigDecimal("15.00"), new BigDecimal("12.00"))));
+        Cursor<WalletBalanceCheck> upperWallets = cursorOf(List.of(
+                new WalletBalanceCheck("W-7", BigDecimal.ZERO, BigDecimal.ZERO)));
+        when(walletMapper.streamWalletBalanceChecks(null, "W-5", null)).thenReturn(lowerWallets);
+        when(walletMapper.streamWalletBalanceChecks("W-5", null, null)).thenReturn(upperWallets);
+
+        // Act
+        Optional<ReconciliationReport> report = reconciliationService.reconcile(ReconciliationMode.FULL);
+
+        // Assert
+        ReconciliationDiscrepancy mismatch = new ReconciliationDiscrepancy("BALANCE_MISMATCH", "W-2", null,
+                new BigDecimal("12.00"), new BigDecimal("15.00"), null);
+        assertThat(report).get().satisfies(run -> {
+            assertThat(run.mode()).isEqualTo(ReconciliationMode.FULL);
+            assertThat(run.since()).isNull();
+            assertThat(run.walletsChecked()).isEqualTo(3);
+            assertThat(run.discrepancies()).containsExactly(mismatch);
+        });
+        verify(transactionManager, times(2)).getTransaction(argThat(definition -> definition.isReadOnly()
+                && definition.getIsolationLevel() == TransactionDefinition.ISOLATION_REPEATABLE_READ));
+        verify(walletMapper).insertReconciliationDiscrepancies(7L, List.of(mismatch));
+        verify(walletMapper).finishReconciliationRun(7L, "COMPLETED", 3, 0, 1);
+        verify(walletMapper, never()).findLastReconciliationWatermark();
+        assertThat(meterRegistry.get("wallet.reconciliation.discrepancies").tag("type", "BALANCE_MISMATCH")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void reconcile_Incremental_ContinuesFromTheLastWatermarkAndFindsUnbalancedTransfers() {
+        // Arrange
+        LocalDateTime lastWatermark = LocalDateTime.now().minusHours(2);
+        LocalDateTime since = lastWatermark.minusMinutes(5);
+        givenRunStarts();
+        when(walletMapper.findLastReconciliationWatermark()).thenReturn(lastWatermark);
+        when(walletMapper.findWalletIdChunkBoundaries(1000)).thenReturn(List.of());
+        Cursor<WalletBalanceCheck> wallets = cursorOf(List.of());
+        Cursor<TransferLegCheck> transfers = cursorOf(List.of(
+                new TransferLegCheck("TXN-1", new BigDecimal("5.00"), new BigDecimal("5.00"), new BigDecimal("5.00"), 1, 1),
+                new TransferLegCheck("TXN-2", new BigDecimal("5.00"), new BigDecimal("5.00"), BigDecimal.ZERO, 1, 0)));
+        when(walletMapper.streamWalletBalanceChecks(null, null, since)).thenReturn(wallets);
+        when(walletMapper.streamTransferLegChecks(eq(since), any())).thenReturn(transfers);
+
+        // Act
+        ReconciliationReport report = reconciliationService.reconcile(ReconciliationMode.INCREMENTAL).orElseThrow();
+
+        // Assert
+        assertThat(report.mode()).isEqualTo(ReconciliationMode.INCREMENTAL);
+        assertThat(report.since()).isEqualTo(since);
+        assertThat(report.transfersChecked()).isEqualTo(2);
+        assertThat(report.discrepancies()).singleElement().satisfies(discrepancy -> {
+            assertThat(discrepancy.type()).isEqualTo("UNBALANCED_TRANSFER");
+            assertThat(discrepancy.transactionId()).isEqualTo("TXN-2");
+            assertThat(discrepancy.detail()).isEqualTo("DEBIT 5.00 in 1 legs, CREDIT 0 in 0 legs");
+        });
+        verify(walletMapper).startReconciliationRun(eq("INCREMENTAL"), eq(since), any());
+        verify(walletMapper, never()).findFirstTransferTime();
+    }
+
+    @Test
+    void reconcile_WhenAnotherRunIsInProgress_SkipsWithoutReadingTheLedger() {
+        // Arrange
+        when(walletMapper.startReconciliationRun(anyString(), isNull(), any()))
+                .thenThrow(new DuplicateKeyException("idx_reconciliation_runs_running"));
+
+        // Act & Assert
+        assertThat(reconciliationService.reconcile(ReconciliationMode.FULL)).isEmpty();
+        verify(walletMapper).abandonReconciliationRuns(any());
+        verify(walletMapper, never()).findWalletIdChunkBoundaries(anyInt());
+    }
+
+    @Test
+    void reconcile_WhenAChunkFails_MarksTheRunFailed() {
+        // Arrange
+        givenRunStarts();
+        when(walletMapper.findWalletIdChunkBoundaries(1000)).thenReturn(List.of());
+        when(walletMapper.streamWalletBalanceChecks(null, null, null)).thenThrow(new IllegalStateException("connection lost"));
+
+        // Act & Assert
+        assertThatThrownBy(() -> reconciliationService.reconcile(ReconciliationMode.FULL))
+                .isInstanceOf(IllegalStateException.class);
+        verify(walletMapper).finishReconciliationRun(7L, "FAILED", 0, 0, 0);
+        verify(walletMapper, never()).insertReconciliationDiscrepancies(anyLong(), any());
+    }
+
+    private void givenRunStarts() {
+        when(walletMapper.startReconciliationRun(anyString(), any(), any())).thenReturn(7L);
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Cursor<T> cursorOf(List<T> rows) {
+        Cursor<T> cursor = mock(Cursor.class);
+        when(cursor.iterator()).thenReturn(rows.iterator());
+        return cursor;
+    }
+}
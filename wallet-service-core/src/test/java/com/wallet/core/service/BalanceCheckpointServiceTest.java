@@ -0,0 +1,123 @@
+package com.wallet.core.service;
+
+import com.wallet.core.entity.BalanceCheckpoint;
+import com.wallet.core.mapper.WalletMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceCheckpointServiceTest {
+
+    @Mock
+    private WalletMapper walletMapper;
+
+    private BalanceCheckpointService balanceCheckpointService;
+
+    @BeforeEach
+    void setUp() {
+        balanceCheckpointService = new BalanceCheckpointService(walletMapper, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void balanceAt_AddsTheEntriesAfterTheNearestCheckpoint() {
+        // Arrange
+        LocalDateTime at = LocalDateTime.of(2026, 3, 10, 14, 30);
+        LocalDateTime midnight = LocalDateTime.of(2026, 3, 10, 0, 0);
+        when(walletMapper.findLatestBalanceCheckpoint("W1", at)).thenReturn(Optional.of(
+                new BalanceCheckpoint("W1", midnight, new BigDecimal("500.00"), midnight.plusMinutes(5))));
+        when(walletMapper.sumJournalMovements("W1", midnight, at)).thenReturn(new BigDecimal("-120.50"));
+
+        // Act & Assert
+        assertThat(balanceCheckpointService.balanceAt("W1", at)).isEqualByComparingTo("379.50");
+    }
+
+    @Test
+    void balanceAt_WithoutACheckpoint_ReplaysTheWholeLedger() {
+        // Arrange
+        LocalDateTime at = LocalDateTime.of(2026, 3, 10, 14, 30);
+        when(walletMapper.findLatestBalanceCheckpoint("W1", at)).thenReturn(Optional.empty());
+        when(walletMapper.sumJournalMovements("W1", null, at)).thenReturn(new BigDecimal("42.00"));
+
+        // Act & Assert
+        assertThat(balanceCheckpointService.balanceAt("W1", at)).isEqualByComparingTo("42.00");
+    }
+
+    @Test
+    void checkpoint_OnTheFirstRun_CheckpointsEveryWalletAtTheLastSettledMidnight() {
+        // Arrange
+        givenNoTransactionIsOpen(LocalDateTime.of(2026, 3, 10, 9, 0));
+        when(walletMapper.findLastBalanceCheckpointRun()).thenReturn(null);
+
+        // Act
+        balanceCheckpointService.checkpoint(LocalDateTime.of(2026, 3, 10, 9, 0));
+
+        // Assert: recorded even if there were no wallets yet, so the next run moves on
+        InOrder inOrder = inOrder(walletMapper);
+        inOrder.verify(walletMapper).insertBalanceCheckpoints(null, LocalDateTime.of(2026, 3, 10, 0, 0));
+        inOrder.verify(walletMapper).insertBalanceCheckpointRun(LocalDateTime.of(2026, 3, 10, 0, 0));
+    }
+
+    @Test
+    void checkpoint_AfterMissedDays_CatchesUpOneDayAtATime() {
+        // Arrange
+        givenNoTransactionIsOpen(LocalDateTime.of(2026, 3, 10, 9, 0));
+        when(walletMapper.findLastBalanceCheckpointRun()).thenReturn(LocalDateTime.of(2026, 3, 7, 0, 0));
+
+        // Act
+        balanceCheckpointService.checkpoint(LocalDateTime.of(2026, 3, 10, 9, 0));
+
+        // Assert: each day is recorded after its checkpoints, whether or not a wallet moved
+        InOrder inOrder = inOrder(walletMapper);
+        inOrder.verify(walletMapper).insertBalanceCheckpoints(LocalDateTime.of(2026, 3, 7, 0, 0), LocalDateTime.of(2026, 3, 8, 0, 0));
+        inOrder.verify(walletMapper).insertBalanceCheckpointRun(LocalDateTime.of(2026, 3, 8, 0, 0));
+        inOrder.verify(walletMapper).insertBalanceCheckpoints(LocalDateTime.of(2026, 3, 8, 0, 0), LocalDateTime.of(2026, 3, 9, 0, 0));
+        inOrder.verify(walletMapper).insertBalanceCheckpointRun(LocalDateTime.of(2026, 3, 9, 0, 0));
+        inOrder.verify(walletMapper).insertBalanceCheckpoints(LocalDateTime.of(2026, 3, 9, 0, 0), LocalDateTime.of(2026, 3, 10, 0, 0));
+        inOrder.verify(walletMapper).insertBalanceCheckpointRun(LocalDateTime.of(2026, 3, 10, 0, 0));
+        inOrder.verifyNoMoreInteractions();
+    }
+
+    @Test
+    void checkpoint_JustAfterMidnight_WaitsForTheDayToSettle() {
+        // Arrange
+        givenNoTransactionIsOpen(LocalDateTime.of(2026, 3, 10, 0, 2));
+        when(walletMapper.findLastBalanceCheckpointRun()).thenReturn(LocalDateTime.of(2026, 3, 9, 0, 0));
+
+        // Act: 00:02 is inside the 5 minute settle delay
+        balanceCheckpointService.checkpoint(LocalDateTime.of(2026, 3, 10, 0, 2));
+
+        // Assert
+        verify(walletMapper, never()).insertBalanceCheckpoints(any(), any());
+        verify(walletMapper, never()).insertBalanceCheckpointRun(any());
+    }
+
+    @Test
+    void checkpoint_WhileATransactionFromBeforeMidnightIsStillOpen_WaitsForItToCommit() {
+        // Arrange: well past the settle delay, but a transfer that started at 23:58 has not committed
+        when(walletMapper.findCommitHorizon()).thenReturn(LocalDateTime.of(2026, 3, 9, 23, 58));
+        when(walletMapper.findLastBalanceCheckpointRun()).thenReturn(LocalDateTime.of(2026, 3, 9, 0, 0));
+
+        // Act
+        balanceCheckpointService.checkpoint(LocalDateTime.of(2026, 3, 10, 0, 30));
+
+        // Assert: its entries are dated the 9th, so the 9th is not checkpointed yet
+        verify(walletMapper, never()).insertBalanceCheckpoints(any(), any());
+    }
+
+    private void givenNoTransactionIsOpen(LocalDateTime now) {
+        when(walletMapper.findCommitHorizon()).thenReturn(now);
+    }
+}
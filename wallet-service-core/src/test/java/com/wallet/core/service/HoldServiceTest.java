@@ -0,0 +1,199 @@
+package com.wallet.core.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wallet.common.exception.WalletBusinessException;
+import com.wallet.core.entity.Hold;
+import com.wallet.core.entity.JournalEntry;
+import com.wallet.core.entity.OutboxEvent;
+import com.wallet.core.entity.TransactionRequest;
+import com.wallet.core.entity.Wallet;
+import com.wallet.core.entity.WalletBalanceMovement;
+import com.wallet.core.mapper.WalletMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HoldServiceTest {
+
+    @Mock
+    private WalletMapper walletMapper;
+
+    @Mock
+    private WalletShardService walletShardService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private HoldService holdService;
+
+    @BeforeEach
+    void setUp() {
+        holdService = new HoldService(walletMapper, walletShardService, new ObjectMapper(), Duration.ofSeconds(60),
+                meterRegistry);
+    }
+
+    @Test
+    void place_WhenAvailableBalanceCoversTheAmount_RecordsAPendingHold() {
+        // Arrange
+        when(walletMapper.placeHold("w1", new BigDecimal("10.00"))).thenReturn(Optional.of(new BigDecimal("90.00")));
+
+        // Act
+        BigDecimal available = holdService.place("TXN-1", "REQ-1", wallet("w1", 0), "w2", new BigDecimal("10.00"));
+
+        // Assert
+        assertThat(available).isEqualTo(new BigDecimal("90.00"));
+        verify(walletMapper).insertHold(argThat(hold -> hold.id().equals("TXN-1")
+                && hold.status().equals("PENDING")
+                && hold.expiresAt().isAfter(LocalDateTime.now().plusSeconds(59))));
+    }
+
+    @Test
+    void place_WhenGuardRejects_ThrowsInsufficientFundsAndRecordsNothing() {
+        // Arrange
+        when(walletMapper.placeHold("w1", new BigDecimal("10.00"))).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThatThrownBy(() -> holdService.place("TXN-1", "REQ-1", wallet("w1", 0), "w2", new BigDecimal("10.00")))
+                .isInstanceOf(WalletBusinessException.class)
+                .hasMessage("Insufficient funds");
+        verify(walletMapper, never()).insertHold(any());
+    }
+
+    @Test
+    void place_WhenSenderIsSplit_LocksItsShardsBeforeTheGuardedUpdate() {
+        // Arrange
+        when(walletMapper.placeHold("w1", new BigDecimal("10.00"))).thenReturn(Optional.of(new BigDecimal("90.00")));
+
+        // Act
+        holdService.place("TXN-1", "REQ-1", wallet("w1", 4), "w2", new BigDecimal("10.00"));
+
+        // Assert: the guard sums shards no debit can change until the hold commits
+        InOrder inOrder = inOrder(walletShardService, walletMapper);
+        inOrder.verify(walletShardService).lockForHold("w1");
+        inOrder.verify(walletMapper).placeHold("w1", new BigDecimal("10.00"));
+    }
+
+    @Test
+    void settle_WhenSenderIsSplit_ReleasesItsHeldAmountBeforeDebitingItsShards() {
+        // Arrange
+        Wallet merchant = wallet("m", 4);
+        when(walletMapper.findPendingHoldsForUpdate(500)).thenReturn(List.of(hold("TXN-1", "m", "a", "10.00")));
+        when(walletMapper.findWalletsByIdsForUpdate(any())).thenReturn(List.of(wallet("a", 0), merchant));
+
+        // Act
+        holdService.settle(500);
+
+        // Assert: the shard debit is checked against the holds still pending, not the one settling
+        InOrder inOrder = inOrder(walletMapper, walletShardService);
+        inOrder.verify(walletMapper).applyBalanceMovements(List.of(
+                new WalletBalanceMovement("a", new BigDecimal("10.00"), BigDecimal.ZERO),
+                new WalletBalanceMovement("m", BigDecimal.ZERO, new BigDecimal("10.00"))));
+        inOrder.verify(walletShardService).debit(merchant, new BigDecimal("10.00"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void settle_NetsEveryHoldIntoOneMovementPerWalletAndJournalsEachTransfer() {
+        // Arrange: two payments into the same merchant and one out of it, placed as item 4 of a batch
+        when(walletMapper.findPendingHoldsForUpdate(500)).thenReturn(List.of(
+                hold("TXN-1", "a", "m", "10.00"),
+                hold("TXN-2", "b", "m", "5.00"),
+                new Hold("TXN-3", "REQ-BATCH", "m", "a", new BigDecimal("2.00"), "PENDING",
+                        LocalDateTime.now().plusSeconds(60), LocalDateTime.now(), null, 4)));
+        when(walletMapper.findWalletsByIdsForUpdate(any())).thenReturn(List.of(wallet("a", 0), wallet("b", 0), wallet("m", 0)));
+
+        // Act
+        int settled = holdService.settle(500);
+
+        // Assert
+        assertThat(settled).isEqualTo(3);
+
+        ArgumentCaptor<List<WalletBalanceMovement>> movements = ArgumentCaptor.forClass(List.class);
+        verify(walletMapper).applyBalanceMovements(movements.capture());
+        assertThat(movements.getValue()).containsExactly(
+                new WalletBalanceMovement("a", new BigDecimal("-8.00"), new BigDecimal("10.00")),
+                new WalletBalanceMovement("b", new BigDecimal("-5.00"), new BigDecimal("5.00")),
+                new WalletBalanceMovement("m", new BigDecimal("13.00"), new BigDecimal("2.00")));
+
+        ArgumentCaptor<List<TransactionRequest>> requests = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<JournalEntry>> legs = ArgumentCaptor.forClass(List.class);
+        verify(walletMapper).insertTransactionRequests(requests.capture());
+        verify(walletMapper).insertJournalEntries(legs.capture());
+        assertThat(requests.getValue()).extracting(TransactionRequest::id, TransactionRequest::requestId, TransactionRequest::batchIndex)
+                .containsExactly(tuple("TXN-1", "REQ-TXN-1", null), tuple("TXN-2", "REQ-TXN-2", null), tuple("TXN-3", "REQ-BATCH", 4));
+        assertThat(legs.getValue()).hasSize(6);
+        verify(walletMapper).insertOutboxEvents(argThat(events -> events.size() == 3));
+        verify(walletMapper).markHoldsSettled(List.of("TXN-1", "TXN-2", "TXN-3"));
+        assertThat(meterRegistry.get("wallet.holds").tag("outcome", "settled").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    void settle_WhenReceiverIsSplit_CreditsItsShardsInsteadOfItsRow() {
+        // Arrange
+        Wallet merchant = wallet("m", 4);
+        when(walletMapper.findPendingHoldsForUpdate(500)).thenReturn(List.of(hold("TXN-1", "a", "m", "10.00")));
+        when(walletMapper.findWalletsByIdsForUpdate(any())).thenReturn(List.of(wallet("a", 0), merchant));
+
+        // Act
+        holdService.settle(500);
+
+        // Assert
+        verify(walletShardService).credit(merchant, new BigDecimal("10.00"));
+        verify(walletMapper).applyBalanceMovements(List.of(
+                new WalletBalanceMovement("a", new BigDecimal("-10.00"), new BigDecimal("10.00")),
+                new WalletBalanceMovement("m", BigDecimal.ZERO, BigDecimal.ZERO)));
+    }
+
+    @Test
+    void settle_WhenNothingIsPending_WritesNothing() {
+        // Arrange
+        when(walletMapper.findPendingHoldsForUpdate(500)).thenReturn(List.of());
+
+        // Act & Assert
+        assertThat(holdService.settle(500)).isZero();
+        verifyNoMoreInteractions(walletMapper);
+    }
+
+    @Test
+    void release_GivesHeldFundsBackAndPublishesAFailedTransfer() {
+        // Arrange
+        when(walletMapper.releaseHolds(List.of("TXN-1", "TXN-2"))).thenReturn(List.of(hold("TXN-1", "a", "m", "10.00")));
+
+        // Act
+        int released = holdService.release(List.of("TXN-1", "TXN-2"));
+
+        // Assert: TXN-2 settled meanwhile and is left alone
+        assertThat(released).isEqualTo(1);
+        verify(walletMapper).applyBalanceMovements(List.of(
+                new WalletBalanceMovement("a", BigDecimal.ZERO, new BigDecimal("10.00"))));
+        verify(walletMapper).insertOutboxEvents(argThat(events -> events.size() == 1
+                && events.stream().map(OutboxEvent::payload).allMatch(payload -> payload.contains("\"FAILED\""))));
+    }
+
+    private static Hold hold(String id, String from, String to, String amount) {
+        return new Hold(id, "REQ-" + id, from, to, new BigDecimal(amount), "PENDING",
+                LocalDateTime.now().plusSeconds(60), LocalDateTime.now(), null, null);
+    }
+
+    private static Wallet wallet(String id, int shardCount) {
+        return new Wallet(id, "user-" + id, new BigDecimal("100.00"), "MYR", "ACTIVE", 1, LocalDateTime.now(),
+                LocalDateTime.now(), shardCount);
+    }
+}
@@ -1,86 +1,135 @@
 package com.wallet.core.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wallet.common.exception.DuplicateRequestInFlightException;
 import com.wallet.common.exception.WalletBusinessException;
+import com.wallet.core.factory.IdempotencyStoreFactory;
+import com.wallet.core.service.IdempotencyService.StoredResponse;
+import com.wallet.core.strategy.IdempotencyKey;
+import com.wallet.core.strategy.TieredIdempotencyStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.data.redis.core.ValueOperations;
 
 import java.time.Duration;
 
-import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class IdempotencyServiceTest {
 
     @Mock
-    private StringRedisTemplate redisTemplate;
+    private IdempotencyStoreFactory storeFactory;
 
     @Mock
-    private ValueOperations<String, String> valueOperations;
+    private TieredIdempotencyStore store;
 
-    @InjectMocks
     private IdempotencyService idempotencyService;
 
+    @BeforeEach
+    void setUp() {
+        when(storeFactory.getActiveStore()).thenReturn(store);
+        idempotencyService = new IdempotencyService(storeFactory, new ObjectMapper(), Duration.ofMillis(100),
+                Duration.ofSeconds(30), Duration.ofHours(1));
+    }
+
     @Test
-    void isRequestProcessed_WhenKeyIsAbsent_SetsLockAndReturnsFalse() {
+    void acquireOrReplay_WhenKeyIsFree_TakesItOnALeaseAndReturnsEmpty() {
         // Arrange
-        String requestId = "REQ-123";
-        String redisKey = "IDEMPOTENCY:" + requestId;
+        IdempotencyKey key = IdempotencyKey.of("client-1", "REQ-123");
+        when(store.acquire(key, Duration.ofSeconds(30))).thenReturn(null);
 
-        // Essential setup: the service calls
-        // redisTemplate.opsForValue().setIfAbsent(...)
-        // We must mock the chained method call to prevent NullPointerExceptions.
-        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        // Act & Assert
+        assertThat(idempotencyService.acquireOrReplay("client-1", "REQ-123")).isEmpty();
+    }
 
-        // Mock Redis to simulate the key does NOT exist, so it successfully sets it
-        // (returns true)
-        when(valueOperations.setIfAbsent(eq(redisKey), eq("LOCKED"), any(Duration.class))).thenReturn(true);
+    @Test
+    void acquireOrReplay_WhenRequestAlreadyCompleted_ReturnsTheStoredResponse() {
+        // Arrange
+        givenAcquireReturns("REQ-456", "{\"status\":200,\"body\":\"{\\\"status\\\":\\\"COMPLETED\\\"}\"}");
 
         // Act & Assert
-        assertThatCode(() -> idempotencyService.checkAndLock(requestId))
-                .doesNotThrowAnyException();
+        assertThat(idempotencyService.acquireOrReplay("client-1", "REQ-456"))
+                .contains(new StoredResponse(200, "{\"status\":\"COMPLETED\"}"));
+    }
 
-        verify(valueOperations, times(1)).setIfAbsent(eq(redisKey), eq("LOCKED"), eq(Duration.ofHours(24)));
+    @Test
+    void acquireOrReplay_WhenOnlyTheDatabaseKnowsTheRequest_RejectsTheDuplicate() {
+        // Arrange: the Postgres fallback knows the ID ran but has no response to replay
+        givenAcquireReturns("REQ-456", "COMPLETED");
+
+        // Act & Assert
+        assertThatThrownBy(() -> idempotencyService.acquireOrReplay("client-1", "REQ-456"))
+                .isInstanceOf(WalletBusinessException.class)
+                .hasMessage("Transaction already processed with Request ID: REQ-456");
     }
 
     @Test
-    void isRequestProcessed_WhenKeyExists_ReturnsTrue() {
+    void acquireOrReplay_WhenOriginalCompletesWhileWaiting_ReturnsItsResponse() {
         // Arrange
-        String requestId = "REQ-456";
-        String redisKey = "IDEMPOTENCY:" + requestId;
+        givenAcquireReturns("REQ-789", "IN_PROGRESS", "{\"status\":200,\"body\":\"{}\"}");
 
-        // Essential setup: the service calls
-        // redisTemplate.opsForValue().setIfAbsent(...)
-        // We must mock the chained method call to prevent NullPointerExceptions.
-        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        // Act & Assert
+        assertThat(idempotencyService.acquireOrReplay("client-1", "REQ-789")).contains(new StoredResponse(200, "{}"));
+    }
 
-        // Mock Redis to simulate the key ALREADY exists, so it fails to set it (returns
-        // false)
-        when(valueOperations.setIfAbsent(eq(redisKey), eq("LOCKED"), any(Duration.class))).thenReturn(false);
+    @Test
+    void acquireOrReplay_WhenOriginalIsStillInFlightAfterTheWait_ThrowsConflict() {
+        // Arrange
+        givenAcquireReturns("REQ-789", "IN_PROGRESS");
 
         // Act & Assert
-        assertThatThrownBy(() -> idempotencyService.checkAndLock(requestId))
-                .isInstanceOf(WalletBusinessException.class)
-                .hasMessage("Transaction already processed with Request ID: " + requestId);
+        assertThatThrownBy(() -> idempotencyService.acquireOrReplay("client-1", "REQ-789"))
+                .isInstanceOf(DuplicateRequestInFlightException.class)
+                .hasMessageContaining("still being processed");
+    }
+
+    @Test
+    void complete_StoresTheResponseForTheGivenTtl() {
+        // Act
+        idempotencyService.complete("client-1", "REQ-123", new StoredResponse(201, "{}"), Duration.ofHours(6));
+
+        // Assert
+        verify(store).complete(IdempotencyKey.of("client-1", "REQ-123"), "{\"status\":201,\"body\":\"{}\"}",
+                Duration.ofHours(6));
+    }
+
+    @Test
+    void releaseForRetry_DowngradesTheKeyForTheRetryWindow() {
+        // Act
+        idempotencyService.releaseForRetry("client-1", "REQ-123");
+
+        // Assert
+        verify(store).releaseForRetry(IdempotencyKey.of("client-1", "REQ-123"), Duration.ofHours(1));
     }
 
     @Test
-    void isRequestProcessed_WhenRequestIdIsNull_ThrowsIllegalArgumentException() {
+    void keyOf_IsFixedSizeAndScopedToTheClient() {
+        // Act
+        String shortKey = IdempotencyKey.of("client-1", "a").hash();
+        String longKey = IdempotencyKey.of("client-1", "a".repeat(500)).hash();
+
+        // Assert
+        assertThat(shortKey).hasSameSizeAs(longKey).startsWith("IDEMPOTENCY:");
+        assertThat(IdempotencyKey.of("client-2", "a").hash()).isNotEqualTo(shortKey);
+    }
+
+    @Test
+    void acquireOrReplay_WhenRequestIdIsNull_ThrowsIllegalArgumentException() {
         // Act & Assert
-        assertThatThrownBy(() -> idempotencyService.checkAndLock(null))
+        assertThatThrownBy(() -> idempotencyService.acquireOrReplay("client-1", null))
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessage("X-Request-ID header is missing");
 
-        // Ensure Redis is never called if validation fails upfront.
-        verify(redisTemplate, never()).opsForValue();
+        // Ensure no store is ever called if validation fails upfront.
+        verifyNoInteractions(store);
+    }
+
+    private void givenAcquireReturns(String requestId, String first, String... next) {
+        when(store.acquire(IdempotencyKey.of("client-1", requestId), Duration.ofSeconds(30))).thenReturn(first, next);
     }
 }
@@ -0,0 +1,115 @@
+package com.wallet.core.service;
+
+import com.wallet.core.entity.JournalPartition;
+import com.wallet.core.mapper.WalletMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerPartitionManagerTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 10, 18);
+
+    @Mock
+    private WalletMapper walletMapper;
+
+    @Test
+    void maintain_CreatesTheMonthsAfterTheNewestPartitionUpToTheHorizon() {
+        // Arrange: the migrated table ends with the current month
+        when(walletMapper.findJournalPartitions()).thenReturn(List.of(
+                new JournalPartition("journal_entries_legacy", null, LocalDateTime.of(2026, 11, 1, 0, 0))));
+
+        // Act
+        new LedgerPartitionManager(walletMapper, 3, 0).maintain(TODAY);
+
+        // Assert
+        InOrder inOrder = inOrder(walletMapper);
+        inOrder.verify(walletMapper).createJournalPartition("journal_entries_y2026m11", "2026-11-01 00:00:00", "2026-12-01 00:00:00");
+        inOrder.verify(walletMapper).createJournalPartition("journal_entries_y2026m12", "2026-12-01 00:00:00", "2027-01-01 00:00:00");
+        inOrder.verify(walletMapper).createJournalPartition("journal_entries_y2027m01", "2027-01-01 00:00:00", "2027-02-01 00:00:00");
+        verify(walletMapper, times(3)).createJournalPartition(anyString(), anyString(), anyString());
+        verify(walletMapper, never()).detachJournalPartition(any());
+    }
+
+    @Test
+    void maintain_WhenTheHorizonIsCovered_CreatesNothing() {
+        // Arrange
+        when(walletMapper.findJournalPartitions()).thenReturn(List.of(
+                new JournalPartition("journal_entries_y2027m01", LocalDateTime.of(2027, 1, 1, 0, 0),
+                        LocalDateTime.of(2027, 2, 1, 0, 0))));
+
+        // Act
+        new LedgerPartitionManager(walletMapper, 3, 0).maintain(TODAY);
+
+        // Assert
+        verify(walletMapper, never()).createJournalPartition(any(), any(), any());
+    }
+
+    @Test
+    void maintain_DetachesOnlyWholeMonthsPastRetention() {
+        // Arrange: 6 months of retention keeps April 2026 onwards
+        when(walletMapper.findJournalPartitions()).thenReturn(List.of(
+                partition(2026, 3), partition(2026, 4), partition(2027, 1)));
+        when(walletMapper.findLastBalanceCheckpointRun()).thenReturn(LocalDateTime.of(2026, 10, 18, 0, 0));
+
+        // Act
+        new LedgerPartitionManager(walletMapper, 3, 6).maintain(TODAY);
+
+        // Assert
+        verify(walletMapper).detachJournalPartition("journal_entries_y2026m03");
+        verify(walletMapper, never()).detachJournalPartition("journal_entries_y2026m04");
+    }
+
+    @Test
+    void maintain_KeepsAMonthPastRetentionUntilACheckpointRunHasPassedItsEnd() {
+        // Arrange: March and April 2026 are past retention, the checkpoint job has only reached April 1st
+        when(walletMapper.findJournalPartitions()).thenReturn(List.of(
+                partition(2026, 3), partition(2026, 4), partition(2027, 1)));
+        when(walletMapper.findLastBalanceCheckpointRun()).thenReturn(LocalDateTime.of(2026, 4, 1, 0, 0));
+        LedgerPartitionManager manager = new LedgerPartitionManager(walletMapper, 3, 5);
+
+        // Act
+        manager.maintain(TODAY);
+
+        // Assert: only March is covered
+        verify(walletMapper).detachJournalPartition("journal_entries_y2026m03");
+        verify(walletMapper, never()).detachJournalPartition("journal_entries_y2026m04");
+
+        // Act: the job catches up to May 1st
+        when(walletMapper.findJournalPartitions()).thenReturn(List.of(partition(2026, 4), partition(2027, 1)));
+        when(walletMapper.findLastBalanceCheckpointRun()).thenReturn(LocalDateTime.of(2026, 5, 1, 0, 0));
+        manager.maintain(TODAY);
+
+        // Assert
+        verify(walletMapper).detachJournalPartition("journal_entries_y2026m04");
+    }
+
+    @Test
+    void maintain_WhenNoCheckpointRunHasHappened_DetachesNothing() {
+        // Arrange
+        when(walletMapper.findJournalPartitions()).thenReturn(List.of(partition(2026, 3), partition(2027, 1)));
+        when(walletMapper.findLastBalanceCheckpointRun()).thenReturn(null);
+
+        // Act
+        new LedgerPartitionManager(walletMapper, 3, 6).maintain(TODAY);
+
+        // Assert
+        verify(walletMapper, never()).detachJournalPartition(any());
+    }
+
+    private static JournalPartition partition(int year, int month) {
+        LocalDateTime from = LocalDateTime.of(year, month, 1, 0, 0);
+        return new JournalPartition(String.format("journal_entries_y%dm%02d", year, month), from, from.plusMonths(1));
+    }
+}
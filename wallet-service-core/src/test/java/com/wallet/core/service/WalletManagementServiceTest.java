@@ -2,12 +2,20 @@ package com.wallet.core.service;
 
 import com.wallet.common.dto.InitializeWalletRequestDTO;
 import com.wallet.common.dto.InitializeWalletResponseDTO;
+import com.wallet.common.dto.TopUpRequestDTO;
+import com.wallet.common.dto.TopUpResponseDTO;
 import com.wallet.common.dto.TransactionHistoryDTO;
+import com.wallet.common.dto.WalletBalanceResponseDTO;
+import com.wallet.common.dto.WalletHistoryRequestDTO;
 import com.wallet.common.dto.WalletHistoryResponseDTO;
+import com.wallet.common.enums.JournalEntryType;
 import com.wallet.common.exception.WalletBusinessException;
 import com.wallet.core.entity.JournalEntry;
+import com.wallet.core.entity.JournalEntryCursor;
 import com.wallet.core.entity.Wallet;
+import com.wallet.core.factory.WalletConcurrencyStrategyFactory;
 import com.wallet.core.mapper.WalletMapper;
+import com.wallet.core.strategy.WalletConcurrencyStrategy;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -18,11 +26,16 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,6 +44,18 @@ class WalletManagementServiceTest {
     @Mock
     private WalletMapper walletMapper;
 
+    @Mock
+    private WalletConcurrencyStrategyFactory walletConcurrencyStrategyFactory;
+
+    @Mock
+    private WalletConcurrencyStrategy walletConcurrencyStrategy;
+
+    @Mock
+    private WalletShardService walletShardService;
+
+    @Mock
+    private BalanceCheckpointService balanceCheckpointService;
+
     @InjectMocks
     private WalletManagementService walletManagementService;
 
@@ -106,10 +131,13 @@ class WalletManagementServiceTest {
         JournalEntry entry = new JournalEntry(1L, "TXN-111", walletId, "CREDIT", new BigDecimal("50.00"), txTime);
 
         when(walletMapper.findWalletById(walletId)).thenReturn(Optional.of(wallet));
-        when(walletMapper.findJournalEntriesByWalletId(walletId)).thenReturn(List.of(entry));
+        // Fewer than a page in the recent partitions, so the older ones are read too
+        when(walletMapper.findJournalEntriesByWalletId(eq(walletId), any(LocalDateTime.class), isNull(), isNull(), isNull(), eq(51)))
+                .thenReturn(List.of());
+        when(walletMapper.findJournalEntriesByWalletId(walletId, null, null, null, null, 51)).thenReturn(List.of(entry));
 
         // Act
-        WalletHistoryResponseDTO response = walletManagementService.getWalletHistory(walletId, clientId);
+        WalletHistoryResponseDTO response = walletManagementService.getWalletHistory(walletId, clientId, firstPage(50));
 
         // Assert
         assertThat(response.walletId()).isEqualTo(walletId);
@@ -124,5 +152,150 @@ class WalletManagementServiceTest {
         assertThat(mappedDto.type()).isEqualTo("CREDIT");
         assertThat(mappedDto.amount()).isEqualTo(new BigDecimal("50.00"));
         assertThat(mappedDto.timestamp()).isEqualTo(txTime);
+        assertThat(response.nextCursor()).isNull();
+    }
+
+    @Test
+    void getWalletHistory_WhenMoreEntriesFollow_ReturnsACursorAfterTheLastOneOnThePage() {
+        // Arrange: one entry more than the page comes back, so the recent partitions were enough
+        String walletId = "W-123456";
+        LocalDateTime newest = LocalDateTime.of(2026, 10, 18, 12, 0);
+        List<JournalEntry> entries = IntStream.range(0, 51)
+                .mapToObj(i -> new JournalEntry(100L - i, "TXN-" + i, walletId, "CREDIT", BigDecimal.ONE, newest.minusMinutes(i)))
+                .toList();
+
+        when(walletMapper.findWalletById(walletId)).thenReturn(Optional.of(wallet(walletId)));
+        when(walletMapper.findJournalEntriesByWalletId(eq(walletId), any(LocalDateTime.class), isNull(), isNull(), isNull(), eq(51)))
+                .thenReturn(entries);
+
+        // Act
+        WalletHistoryResponseDTO response = walletManagementService.getWalletHistory(walletId, "user-123", firstPage(50));
+
+        // Assert
+        assertThat(response.transactions()).hasSize(50);
+        assertThat(JournalEntryCursor.decode(response.nextCursor()))
+                .isEqualTo(new JournalEntryCursor(newest.minusMinutes(49), 51L));
+        verify(walletMapper, never()).findJournalEntriesByWalletId(walletId, null, null, null, null, 51);
+    }
+
+    @Test
+    void getWalletHistory_WithCursorAndFilters_ContinuesStrictlyAfterTheCursor() {
+        // Arrange
+        String walletId = "W-123456";
+        JournalEntryCursor cursor = new JournalEntryCursor(LocalDateTime.of(2026, 3, 1, 9, 30), 42L);
+        LocalDateTime from = LocalDateTime.of(2026, 2, 1, 0, 0);
+        when(walletMapper.findWalletById(walletId)).thenReturn(Optional.of(wallet(walletId)));
+        when(walletMapper.findJournalEntriesByWalletId(walletId, from, null, JournalEntryType.DEBIT, cursor, 21))
+                .thenReturn(List.of());
+
+        // Act: the range starts within the recent window, so it is read once as given
+        WalletHistoryResponseDTO response = walletManagementService.getWalletHistory(walletId, "user-123",
+                new WalletHistoryRequestDTO(cursor.encode(), 20, from, null, JournalEntryType.DEBIT));
+
+        // Assert
+        assertThat(response.transactions()).isEmpty();
+        assertThat(response.nextCursor()).isNull();
+    }
+
+    @Test
+    void getWalletHistory_WhenCursorOrSizeIsInvalid_RejectsBeforeReadingTheLedger() {
+        // Arrange
+        String walletId = "W-123456";
+        when(walletMapper.findWalletById(walletId)).thenReturn(Optional.of(wallet(walletId)));
+
+        // Act & Assert
+        assertThatThrownBy(() -> walletManagementService.getWalletHistory(walletId, "user-123",
+                new WalletHistoryRequestDTO("not-a-cursor", 50, null, null, null)))
+                .isInstanceOf(WalletBusinessException.class)
+                .hasMessage("Invalid history cursor");
+        assertThatThrownBy(() -> walletManagementService.getWalletHistory(walletId, "user-123", firstPage(500)))
+                .isInstanceOf(WalletBusinessException.class)
+                .hasMessage("Page size must be between 1 and 200");
+        verify(walletMapper, never()).findJournalEntriesByWalletId(any(), any(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void getBalanceAt_WhenCallerOwnsTheWallet_AnswersFromTheCheckpoints() {
+        // Arrange
+        String walletId = "W-123456";
+        LocalDateTime at = LocalDateTime.of(2026, 1, 15, 12, 0);
+        when(walletMapper.findWalletById(walletId)).thenReturn(Optional.of(wallet(walletId)));
+        when(balanceCheckpointService.balanceAt(walletId, at)).thenReturn(new BigDecimal("75.25"));
+
+        // Act
+        WalletBalanceResponseDTO response = walletManagementService.getBalanceAt(walletId, "user-123", at);
+
+        // Assert
+        assertThat(response).isEqualTo(new WalletBalanceResponseDTO(walletId, new BigDecimal("75.25"), "USD", at));
+    }
+
+    @Test
+    void getBalanceAt_WhenCallerIsNotTheOwnerOrDateIsInTheFuture_ThrowsBusinessException() {
+        // Arrange
+        String walletId = "W-123456";
+        when(walletMapper.findWalletById(walletId)).thenReturn(Optional.of(wallet(walletId)));
+
+        // Act & Assert
+        assertThatThrownBy(() -> walletManagementService.getBalanceAt(walletId, "intruder", LocalDateTime.now()))
+                .isInstanceOf(WalletBusinessException.class)
+                .hasMessageContaining("Unauthorized");
+        assertThatThrownBy(() -> walletManagementService.getBalanceAt(walletId, "user-123",
+                LocalDateTime.now().plusDays(1)))
+                .isInstanceOf(WalletBusinessException.class)
+                .hasMessage("Balance date must not be in the future");
+        verifyNoInteractions(balanceCheckpointService);
+    }
+
+    private static WalletHistoryRequestDTO firstPage(int size) {
+        return new WalletHistoryRequestDTO(null, size, null, null, null);
+    }
+
+    private static Wallet wallet(String walletId) {
+        return new Wallet(walletId, "user-123", new BigDecimal("100.00"), "USD", "ACTIVE", 1,
+                LocalDateTime.now(), LocalDateTime.now());
+    }
+
+    @Test
+    void topUpWallet_WhenCalled_ReadsWalletThroughConcurrencyStrategy() {
+        // Arrange
+        String walletId = "W-123456";
+        String clientId = "user-123";
+        Wallet wallet = new Wallet(walletId, clientId, new BigDecimal("100.00"), "USD", "ACTIVE", 4,
+                LocalDateTime.now(), LocalDateTime.now());
+
+        when(walletConcurrencyStrategyFactory.getActiveStrategy()).thenReturn(walletConcurrencyStrategy);
+        when(walletConcurrencyStrategy.loadForUpdate(List.of(walletId))).thenReturn(Map.of(walletId, wallet));
+        when(walletMapper.updateWalletBalance(walletId, new BigDecimal("125.00"), 4)).thenReturn(1);
+
+        // Act
+        TopUpResponseDTO response = walletManagementService.topUpWallet(
+                "REQ-1", new TopUpRequestDTO(walletId, new BigDecimal("25.00"), "BANK_FPX", "REF-1"), clientId);
+
+        // Assert
+        assertThat(response.transactionId()).startsWith("TXN-TOPUP-");
+        assertThat(response.newBalance()).isEqualTo(new BigDecimal("125.00"));
+        verify(walletMapper, never()).findWalletById(any());
+        verify(walletMapper).insertJournalEntry(any(JournalEntry.class));
+    }
+
+    @Test
+    void topUpWallet_WhenWalletIsSplit_CreditsAShardInsteadOfTheWalletRow() {
+        // Arrange
+        String walletId = "W-123456";
+        String clientId = "user-123";
+        Wallet wallet = new Wallet(walletId, clientId, new BigDecimal("100.00"), "USD", "ACTIVE", 4,
+                LocalDateTime.now(), LocalDateTime.now(), 8);
+
+        when(walletConcurrencyStrategyFactory.getActiveStrategy()).thenReturn(walletConcurrencyStrategy);
+        when(walletConcurrencyStrategy.loadForUpdate(List.of(walletId))).thenReturn(Map.of(walletId, wallet));
+
+        // Act
+        TopUpResponseDTO response = walletManagementService.topUpWallet(
+                "REQ-1", new TopUpRequestDTO(walletId, new BigDecimal("25.00"), "BANK_FPX", "REF-1"), clientId);
+
+        // Assert
+        assertThat(response.newBalance()).isEqualTo(new BigDecimal("125.00"));
+        verify(walletShardService).credit(wallet, new BigDecimal("25.00"));
+        verify(walletMapper, never()).updateWalletBalance(any(), any(), any());
     }
 }
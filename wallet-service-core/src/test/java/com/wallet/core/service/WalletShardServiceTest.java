@@ -0,0 +1,170 @@
+package com.wallet.core.service;
+
+import com.wallet.common.exception.WalletBusinessException;
+import com.wallet.common.exception.WalletConcurrencyException;
+import com.wallet.core.entity.Wallet;
+import com.wallet.core.entity.WalletBalanceShard;
+import com.wallet.core.mapper.WalletMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WalletShardServiceTest {
+
+    @Mock
+    private WalletMapper walletMapper;
+
+    @InjectMocks
+    private WalletShardService walletShardService;
+
+    @Test
+    void split_WhenWalletIsPlain_MovesItsBalanceIntoEvenShards() {
+        // Arrange
+        when(walletMapper.findWalletById("m1")).thenReturn(Optional.of(wallet("100.0001", 0)));
+        when(walletMapper.markWalletSharded("m1", 3, 5)).thenReturn(1);
+
+        // Act
+        walletShardService.split("m1", 3);
+
+        // Assert: remainder of the rounding lands on shard 0, nothing is lost
+        verify(walletMapper).insertBalanceShards("m1",
+                List.of(new BigDecimal("33.3335"), new BigDecimal("33.3333"), new BigDecimal("33.3333")));
+    }
+
+    @Test
+    void split_WhenWalletChangedMeanwhile_ThrowsConcurrencyError() {
+        // Arrange
+        when(walletMapper.findWalletById("m1")).thenReturn(Optional.of(wallet("100.00", 0)));
+        when(walletMapper.markWalletSharded("m1", 3, 5)).thenReturn(0);
+
+        // Act & Assert
+        assertThatThrownBy(() -> walletShardService.split("m1", 3)).isInstanceOf(WalletConcurrencyException.class);
+        verify(walletMapper, never()).insertBalanceShards(anyString(), any());
+    }
+
+    @Test
+    void debit_WhenOneShardHasEnough_DebitsOnlyThatShard() {
+        // Arrange
+        when(walletMapper.debitAnyBalanceShard("m1", new BigDecimal("10.00"))).thenReturn(Optional.of(2));
+        when(walletMapper.findWalletById("m1")).thenReturn(Optional.of(wallet("90.00", 4)));
+
+        // Act
+        BigDecimal newBalance = walletShardService.debit(wallet("100.00", 4), new BigDecimal("10.00"));
+
+        // Assert
+        assertThat(newBalance).isEqualTo(new BigDecimal("90.00"));
+        verify(walletMapper, never()).findBalanceShardsForUpdate(anyString());
+    }
+
+    @Test
+    void debit_WhenNoSingleShardHasEnough_DrainsTheLargestShardsFirst() {
+        // Arrange
+        when(walletMapper.debitAnyBalanceShard("m1", new BigDecimal("50.00"))).thenReturn(Optional.empty());
+        when(walletMapper.findBalanceShardsForUpdate("m1")).thenReturn(List.of(
+                shard(0, "10.00"), shard(1, "30.00"), shard(2, "25.00")));
+        when(walletMapper.findWalletById("m1")).thenReturn(Optional.of(wallet("65.00", 3)));
+
+        // Act
+        walletShardService.debit(wallet("65.00", 3), new BigDecimal("50.00"));
+
+        // Assert
+        verify(walletMapper).updateBalanceShard("m1", 1, new BigDecimal("0.00"));
+        verify(walletMapper).updateBalanceShard("m1", 2, new BigDecimal("5.00"));
+        verify(walletMapper, never()).updateBalanceShard(eq("m1"), eq(0), any());
+    }
+
+    @Test
+    void debit_WhenAllShardsTogetherAreShort_ThrowsInsufficientFunds() {
+        // Arrange
+        when(walletMapper.debitAnyBalanceShard("m1", new BigDecimal("50.00"))).thenReturn(Optional.empty());
+        when(walletMapper.findBalanceShardsForUpdate("m1")).thenReturn(List.of(shard(0, "10.00"), shard(1, "30.00")));
+        when(walletMapper.findWalletById("m1")).thenReturn(Optional.of(wallet("40.00", 2)));
+
+        // Act & Assert
+        assertThatThrownBy(() -> walletShardService.debit(wallet("40.00", 2), new BigDecimal("50.00")))
+                .isInstanceOf(WalletBusinessException.class)
+                .hasMessage("Insufficient funds");
+        verify(walletMapper, never()).updateBalanceShard(anyString(), anyInt(), any());
+    }
+
+    @Test
+    void debit_WhenPendingHoldsReserveTheFunds_ThrowsInsufficientFundsEvenIfTheShardsCoverIt() {
+        // Arrange: 65.00 across the shards, 30.00 of it reserved by pending holds
+        Wallet held = new Wallet("m1", "merchant", new BigDecimal("65.00"), "MYR", "ACTIVE", 5,
+                LocalDateTime.now(), LocalDateTime.now(), 3, new BigDecimal("30.00"));
+        when(walletMapper.debitAnyBalanceShard("m1", new BigDecimal("50.00"))).thenReturn(Optional.empty());
+        when(walletMapper.findBalanceShardsForUpdate("m1")).thenReturn(List.of(
+                shard(0, "10.00"), shard(1, "30.00"), shard(2, "25.00")));
+        when(walletMapper.findWalletById("m1")).thenReturn(Optional.of(held));
+
+        // Act & Assert
+        assertThatThrownBy(() -> walletShardService.debit(held, new BigDecimal("50.00")))
+                .isInstanceOf(WalletBusinessException.class)
+                .hasMessage("Insufficient funds");
+        verify(walletMapper, never()).updateBalanceShard(anyString(), anyInt(), any());
+    }
+
+    @Test
+    void lockForHold_LocksTheWalletRowBeforeItsShards() {
+        // Act
+        walletShardService.lockForHold("m1");
+
+        // Assert: same order as settlement, so the two cannot deadlock
+        InOrder inOrder = inOrder(walletMapper);
+        inOrder.verify(walletMapper).findWalletsByIdsForUpdate(List.of("m1"));
+        inOrder.verify(walletMapper).findBalanceShardsForUpdate("m1");
+    }
+
+    @Test
+    void rebalance_WhenAShardIsBelowHalfItsShare_EvensThemOut() {
+        // Arrange
+        when(walletMapper.findBalanceShardsForUpdate("m1")).thenReturn(List.of(
+                shard(0, "5.00"), shard(1, "50.00"), shard(2, "35.00")));
+
+        // Act
+        walletShardService.rebalance("m1");
+
+        // Assert
+        verify(walletMapper).updateBalanceShard("m1", 0, new BigDecimal("30.0000"));
+        verify(walletMapper).updateBalanceShard("m1", 1, new BigDecimal("30.0000"));
+        verify(walletMapper).updateBalanceShard("m1", 2, new BigDecimal("30.0000"));
+    }
+
+    @Test
+    void rebalance_WhenShardsAreRoughlyEven_LeavesThemAlone() {
+        // Arrange
+        when(walletMapper.findBalanceShardsForUpdate("m1")).thenReturn(List.of(
+                shard(0, "20.00"), shard(1, "40.00"), shard(2, "30.00")));
+
+        // Act
+        walletShardService.rebalance("m1");
+
+        // Assert
+        verify(walletMapper, never()).updateBalanceShard(anyString(), anyInt(), any());
+    }
+
+    private static Wallet wallet(String balance, int shardCount) {
+        return new Wallet("m1", "merchant", new BigDecimal(balance), "MYR", "ACTIVE", 5,
+                LocalDateTime.now(), LocalDateTime.now(), shardCount);
+    }
+
+    private static WalletBalanceShard shard(int shardNo, String balance) {
+        return new WalletBalanceShard("m1", shardNo, new BigDecimal(balance), LocalDateTime.now());
+    }
+}
@@ -0,0 +1,137 @@
+package com.wallet.core.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.wallet.common.enums.StatementFormat;
+import com.wallet.common.exception.WalletBusinessException;
+import com.wallet.core.entity.JournalEntry;
+import com.wallet.core.entity.Wallet;
+import com.wallet.core.mapper.WalletMapper;
+import org.apache.ibatis.cursor.Cursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WalletStatementServiceTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2026, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2026, 2, 1, 0, 0);
+
+    @Mock
+    private WalletMapper walletMapper;
+
+    @Mock
+    private BalanceCheckpointService balanceCheckpointService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private Cursor<JournalEntry> cursor;
+
+    private WalletStatementService walletStatementService;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        walletStatementService = new WalletStatementService(walletMapper, balanceCheckpointService, transactionManager,
+                objectMapper);
+    }
+
+    @Test
+    void exportStatement_AsCsv_WritesAHeaderTheOpeningBalanceAndOneLinePerEntryInsideAReadOnlyTransaction() throws Exception {
+        // Arrange
+        givenEntries();
+
+        // Act
+        String statement = stream(walletStatementService.exportStatement("W1", "user-1", FROM, TO, StatementFormat.CSV));
+
+        // Assert
+        assertThat(statement).isEqualTo(WalletStatementService.CSV_HEADER
+                + ",OPENING_BALANCE,250.00,2026-01-01T00:00\n"
+                + "TXN-1,CREDIT,100.00,2026-01-05T10:15\n"
+                + "TXN-2,DEBIT,25.50,2026-01-19T19:54:27\n");
+        verify(transactionManager).getTransaction(argThat(definition -> definition.isReadOnly()));
+        verify(transactionManager).commit(any());
+        verify(cursor).close();
+    }
+
+    @Test
+    void exportStatement_AsNdjson_WritesOneJsonObjectPerLine() throws Exception {
+        // Arrange
+        givenEntries();
+
+        // Act
+        String statement = stream(walletStatementService.exportStatement("W1", "user-1", FROM, TO, StatementFormat.NDJSON));
+
+        // Assert
+        assertThat(statement.split("\n")).containsExactly(
+                "{\"transactionId\":null,\"type\":\"OPENING_BALANCE\",\"amount\":250.00,\"timestamp\":\"2026-01-01T00:00:00\"}",
+                "{\"transactionId\":\"TXN-1\",\"type\":\"CREDIT\",\"amount\":100.00,\"timestamp\":\"2026-01-05T10:15:00\"}",
+                "{\"transactionId\":\"TXN-2\",\"type\":\"DEBIT\",\"amount\":25.50,\"timestamp\":\"2026-01-19T19:54:27\"}");
+    }
+
+    @Test
+    void exportStatement_WhenCallerDoesNotOwnTheWallet_ThrowsBeforeReadingTheLedger() {
+        // Arrange
+        when(walletMapper.findWalletById("W1")).thenReturn(Optional.of(wallet()));
+
+        // Act & Assert
+        assertThatThrownBy(() -> walletStatementService.exportStatement("W1", "intruder", FROM, TO, StatementFormat.CSV))
+                .isInstanceOf(WalletBusinessException.class)
+                .hasMessageContaining("Unauthorized");
+        verify(walletMapper, never()).streamJournalEntriesByWalletId(any(), any(), any());
+    }
+
+    @Test
+    void exportStatement_WhenRangeIsEmpty_ThrowsBusinessException() {
+        // Arrange
+        when(walletMapper.findWalletById("W1")).thenReturn(Optional.of(wallet()));
+
+        // Act & Assert
+        assertThatThrownBy(() -> walletStatementService.exportStatement("W1", "user-1", TO, FROM, StatementFormat.CSV))
+                .isInstanceOf(WalletBusinessException.class)
+                .hasMessage("Statement range is empty: from must be before to");
+    }
+
+    private void givenEntries() {
+        when(walletMapper.findWalletById("W1")).thenReturn(Optional.of(wallet()));
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(balanceCheckpointService.balanceAt("W1", FROM)).thenReturn(new BigDecimal("250.00"));
+        when(walletMapper.streamJournalEntriesByWalletId("W1", FROM, TO)).thenReturn(cursor);
+        when(cursor.iterator()).thenReturn(List.of(
+                new JournalEntry(1L, "TXN-1", "W1", "CREDIT", new BigDecimal("100.00"), LocalDateTime.of(2026, 1, 5, 10, 15)),
+                new JournalEntry(2L, "TXN-2", "W1", "DEBIT", new BigDecimal("25.50"), LocalDateTime.of(2026, 1, 19, 19, 54, 27))
+        ).iterator());
+    }
+
+    private static String stream(StreamingResponseBody body) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static Wallet wallet() {
+        return new Wallet("W1", "user-1", new BigDecimal("100.00"), "MYR", "ACTIVE", 1, LocalDateTime.now(),
+                LocalDateTime.now());
+    }
+}
@@ -0,0 +1,50 @@
+package com.wallet.core.strategy;
+
+import com.wallet.common.enums.BalanceUpdateMode;
+import com.wallet.common.enums.WalletConcurrencyMode;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Many senders paying one merchant at the same time, once per balance update mode.
+ * Logs committed transfers, conflict rate and throughput so the two modes can be
+ * compared; the assertions only pin down the guarantees of each mode.
+ */
+@Slf4j
+@Tag("integration")
+class BalanceUpdateStrategyStressTest extends LedgerContentionTestSupport {
+
+    private static final int SENDERS = 16;
+    private static final int TRANSFERS_PER_SENDER = 25;
+
+    @ParameterizedTest
+    @EnumSource(BalanceUpdateMode.class)
+    void concurrentTransfersIntoOneMerchant(BalanceUpdateMode mode) throws Exception {
+        // Arrange
+        List<String> merchant = createWallets("M-", 1, BigDecimal.ZERO);
+        List<String> senders = createWallets("S-", SENDERS, OPENING_BALANCE);
+
+        // Act
+        ContentionResult result = runTransfers(WalletConcurrencyMode.OPTIMISTIC, mode, senders, merchant, TRANSFERS_PER_SENDER);
+
+        // Assert
+        log.info("{}: {}", mode, result.summary());
+
+        assertThat(result.committed() + result.conflicts()).isEqualTo(result.attempted());
+        assertThat(totalBalance(merchant)).isEqualByComparingTo(AMOUNT.multiply(BigDecimal.valueOf(result.committed())));
+        assertThat(totalBalance(senders).add(totalBalance(merchant)))
+                .isEqualByComparingTo(OPENING_BALANCE.multiply(BigDecimal.valueOf(SENDERS)));
+
+        if (mode == BalanceUpdateMode.ATOMIC) {
+            // Credits to the shared merchant queue on the row lock instead of failing
+            assertThat(result.conflicts()).isZero();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.wallet.core.strategy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wallet.common.dto.TransferRequestDTO;
+import com.wallet.common.enums.BalanceUpdateMode;
+import com.wallet.common.enums.WalletConcurrencyMode;
+import com.wallet.common.exception.WalletBusinessException;
+import com.wallet.core.entity.Wallet;
+import com.wallet.core.factory.BalanceUpdateStrategyFactory;
+import com.wallet.core.factory.WalletConcurrencyStrategyFactory;
+import com.wallet.core.handler.LedgerUpdateHandler;
+import com.wallet.core.handler.TransactionContext;
+import com.wallet.core.handler.ValidationHandler;
+import com.wallet.core.mapper.WalletMapper;
+import com.wallet.core.migration.SchemaMigrator;
+import com.wallet.core.service.WalletShardService;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared harness for the contention tests: a real Postgres, the real validation and
+ * ledger handlers, and a pool of senders hammering a small set of receivers. Every
+ * transfer runs in its own transaction, like a request going through HandlerChainExecutor.
+ * Subclasses are tagged {@code integration}: they need Docker and fail without it.
+ */
+@MybatisTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers
+@Import(SchemaMigrator.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+abstract class LedgerContentionTestSupport {
+
+    protected static final BigDecimal OPENING_BALANCE = new BigDecimal("1000.0000");
+    protected static final BigDecimal AMOUNT = new BigDecimal("1.0000");
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    protected WalletMapper walletMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    protected record ContentionResult(int attempted, int committed, int conflicts, long elapsedNanos) {
+
+        double conflictRate() {
+            return 100.0 * conflicts / attempted;
+        }
+
+        double throughput() {
+            return committed / (elapsedNanos / 1_000_000_000.0);
+        }
+
+        String summary() {
+            return String.format("%d transfers, %d committed, %d conflicts (%.1f%%), %.0f tx/s",
+                    attempted, committed, conflicts, conflictRate(), throughput());
+        }
+    }
+
+    /**
+     * Each sender runs {@code transfersPerSender} transfers on its own thread, paying
+     * receiver {@code i % receivers.size()}. Conflicts are counted, any other rejection fails the test.
+     */
+    protected ContentionResult runTransfers(WalletConcurrencyMode concurrencyMode, BalanceUpdateMode balanceUpdateMode,
+                                            List<String> senderIds, List<String> receiverIds,
+                                            int transfersPerSender) throws Exception {
+        ValidationHandler validationHandler = new ValidationHandler(new WalletConcurrencyStrategyFactory(List.of(
+                new OptimisticWalletConcurrencyStrategy(walletMapper),
+                new PessimisticWalletConcurrencyStrategy(walletMapper),
+                new AdvisoryLockWalletConcurrencyStrategy(walletMapper)), concurrencyMode));
+        LedgerUpdateHandler ledgerUpdateHandler = new LedgerUpdateHandler(walletMapper, new ObjectMapper(),
+                new BalanceUpdateStrategyFactory(List.of(
+                        new OptimisticBalanceUpdateStrategy(walletMapper),
+                        new AtomicBalanceUpdateStrategy(walletMapper)), balanceUpdateMode),
+                new WalletShardService(walletMapper), null, null); // Immediate settlement, holds are never placed
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        AtomicInteger committed = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(senderIds.size());
+
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int s = 0; s < senderIds.size(); s++) {
+            String senderId = senderIds.get(s);
+            String receiverId = receiverIds.get(s % receiverIds.size());
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < transfersPerSender; i++) {
+                    TransactionContext context = TransactionContext.builder()
+                            .requestId(UUID.randomUUID().toString())
+                            .transactionId(UUID.randomUUID().toString())
+                            .clientId("U-" + senderId)
+                            .request(new TransferRequestDTO(senderId, receiverId, AMOUNT, "Contention"))
+                            .build();
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> {
+                            validationHandler.process(context);
+                            ledgerUpdateHandler.process(context);
+                        });
+                        committed.incrementAndGet();
+                    } catch (WalletBusinessException e) {
+                        if (!e.getMessage().startsWith("Concurrency error")) throw e;
+                        conflicts.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        pool.shutdown();
+
+        return new ContentionResult(senderIds.size() * transfersPerSender, committed.get(), conflicts.get(), elapsedNanos);
+    }
+
+    protected List<String> createWallets(String prefix, int count, BigDecimal balance) {
+        List<String> walletIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String walletId = prefix + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+            walletMapper.insertWallet(new Wallet(walletId, "U-" + walletId, balance, "MYR", "ACTIVE", 0, null, null));
+            walletIds.add(walletId);
+        }
+        return walletIds;
+    }
+
+    protected BigDecimal totalBalance(List<String> walletIds) {
+        return walletIds.stream()
+                .map(walletId -> walletMapper.findWalletById(walletId).orElseThrow().balance())
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
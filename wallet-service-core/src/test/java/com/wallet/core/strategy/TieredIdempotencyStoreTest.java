@@ -0,0 +1,150 @@
+package com.wallet.core.strategy;
+
+import com.wallet.common.enums.IdempotencyBackend;
+import com.wallet.core.mapper.WalletMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TieredIdempotencyStoreTest {
+
+    private static final Duration LEASE = Duration.ofSeconds(30);
+    private static final IdempotencyKey KEY = IdempotencyKey.of("client-1", "REQ-1");
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private WalletMapper walletMapper;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private LocalIdempotencyStore local;
+    private RedisIdempotencyStore redis;
+    private PostgresIdempotencyStore postgres;
+
+    @BeforeEach
+    void setUp() {
+        local = new LocalIdempotencyStore(1000, Duration.ofMinutes(5), meterRegistry);
+        redis = new RedisIdempotencyStore(redisTemplate);
+        postgres = new PostgresIdempotencyStore(walletMapper);
+    }
+
+    @Test
+    void acquire_WhenKeyIsNew_TakesItInEveryTierWithTheRedisScript() {
+        // Arrange
+        TieredIdempotencyStore store = new TieredIdempotencyStore(List.of(local, redis), postgres, meterRegistry);
+        givenRedisAcquireReturns(null);
+
+        // Act & Assert
+        assertThat(store.acquire(KEY, LEASE)).isNull();
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(KEY.hash())),
+                eq("FAILED_RETRYABLE"), eq("IN_PROGRESS"), eq("30000"));
+        assertThat(local.acquire(KEY, LEASE)).isEqualTo("IN_PROGRESS");
+        assertThat(meterRegistry.get("idempotency.store.latency").tags("tier", "redis", "operation", "acquire")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void acquire_WhenTheLocalTierCompletedTheKey_AnswersWithoutAskingRedis() {
+        // Arrange
+        TieredIdempotencyStore store = new TieredIdempotencyStore(List.of(local, redis), postgres, meterRegistry);
+        local.complete(KEY, "{\"status\":200,\"body\":\"{}\"}", Duration.ofHours(24));
+
+        // Act & Assert
+        assertThat(store.acquire(KEY, LEASE)).isEqualTo("{\"status\":200,\"body\":\"{}\"}");
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    void acquire_WhenRedisAlreadyHasTheKey_UndoesTheLocalLease() {
+        // Arrange: another instance is running the request
+        TieredIdempotencyStore store = new TieredIdempotencyStore(List.of(local, redis), postgres, meterRegistry);
+        givenRedisAcquireReturns("IN_PROGRESS");
+
+        // Act & Assert
+        assertThat(store.acquire(KEY, LEASE)).isEqualTo("IN_PROGRESS");
+        assertThat(local.acquire(KEY, LEASE)).isNull();
+    }
+
+    @Test
+    void acquire_WhenRedisIsDown_FallsBackToTheLedgerRequestIds() {
+        // Arrange
+        TieredIdempotencyStore store = new TieredIdempotencyStore(List.of(local, redis), postgres, meterRegistry);
+        givenRedisAcquireFails();
+        when(walletMapper.existsRequest("REQ-1")).thenReturn(true);
+
+        // Act & Assert
+        assertThat(store.acquire(KEY, LEASE)).isEqualTo("COMPLETED");
+        assertThat(meterRegistry.get("idempotency.store.fallbacks").tag("tier", "redis").counter().count()).isEqualTo(1);
+        assertThat(local.acquire(KEY, LEASE)).isNull();
+    }
+
+    @Test
+    void acquire_WhenRedisIsDownWithoutFallback_FailsAndFreesTheLocalLease() {
+        // Arrange
+        TieredIdempotencyStore store = new TieredIdempotencyStore(List.of(local, redis), null, meterRegistry);
+        givenRedisAcquireFails();
+
+        // Act & Assert
+        assertThatThrownBy(() -> store.acquire(KEY, LEASE)).isInstanceOf(RedisConnectionFailureException.class);
+        assertThat(local.acquire(KEY, LEASE)).isNull();
+    }
+
+    @Test
+    void complete_WhenRedisIsDown_StillCachesLocallyAndDoesNotThrow() {
+        // Arrange
+        TieredIdempotencyStore store = new TieredIdempotencyStore(List.of(local, redis), postgres, meterRegistry);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        doThrow(new RedisConnectionFailureException("down")).when(valueOperations).set(any(), any(), any(Duration.class));
+
+        // Act
+        store.complete(KEY, "{}", Duration.ofHours(24));
+
+        // Assert
+        assertThat(local.acquire(KEY, LEASE)).isEqualTo("{}");
+    }
+
+    @Test
+    void localAcquire_AfterARetryableFailure_TakesTheKeyAgain() {
+        // Arrange
+        local.acquire(KEY, LEASE);
+        local.releaseForRetry(KEY, Duration.ofHours(1));
+
+        // Act & Assert
+        assertThat(local.acquire(KEY, LEASE)).isNull();
+        assertThat(local.getSupportedBackend()).isEqualTo(IdempotencyBackend.LOCAL);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenRedisAcquireReturns(String current) {
+        when(redisTemplate.execute(any(RedisScript.class), eq(List.of(KEY.hash())), any(), any(), any()))
+                .thenReturn(current);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenRedisAcquireFails() {
+        when(redisTemplate.execute(any(RedisScript.class), eq(List.of(KEY.hash())), any(), any(), any()))
+                .thenThrow(new RedisConnectionFailureException("Connection refused"));
+    }
+}
@@ -0,0 +1,84 @@
+package com.wallet.core.strategy;
+
+import com.wallet.common.enums.BalanceUpdateMode;
+import com.wallet.common.enums.WalletConcurrencyMode;
+import com.wallet.core.entity.JournalEntry;
+import com.wallet.core.entity.OutboxEvent;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts the statements one transfer sends to Postgres. With the default executor every
+ * statement is its own round trip, plus the commit.
+ * <p>
+ * Before the combined insert: 2 wallet reads, 2 balance updates, the transaction request,
+ * 2 journal legs and the outbox event = 8 statements. Now: 1 wallet read, 2 balance
+ * updates and 1 combined insert = 4.
+ */
+@Tag("integration")
+@Import(TransferRoundTripTest.StatementCounter.class)
+class TransferRoundTripTest extends LedgerContentionTestSupport {
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Test
+    void singleTransfer_SendsFourStatements() throws Exception {
+        // Arrange
+        List<String> sender = createWallets("S-", 1, OPENING_BALANCE);
+        List<String> receiver = createWallets("R-", 1, BigDecimal.ZERO);
+        statementCounter.reset();
+
+        // Act
+        ContentionResult result = runTransfers(WalletConcurrencyMode.OPTIMISTIC, BalanceUpdateMode.OPTIMISTIC,
+                sender, receiver, 1);
+
+        // Assert
+        assertThat(result.committed()).isEqualTo(1);
+        assertThat(statementCounter.count()).isEqualTo(4);
+
+        // The combined insert wrote both legs and the outbox event
+        List<JournalEntry> senderLegs = walletMapper.findJournalEntriesByWalletId(sender.get(0), null, null, null, null, 50);
+        List<JournalEntry> receiverLegs = walletMapper.findJournalEntriesByWalletId(receiver.get(0), null, null, null, null, 50);
+        assertThat(senderLegs).extracting(JournalEntry::type).containsExactly("DEBIT");
+        assertThat(receiverLegs).extracting(JournalEntry::type).containsExactly("CREDIT");
+        assertThat(senderLegs.get(0).transactionId()).isEqualTo(receiverLegs.get(0).transactionId());
+        assertThat(walletMapper.findPendingOutboxEvents())
+                .extracting(OutboxEvent::payload)
+                .anyMatch(payload -> payload.contains(senderLegs.get(0).transactionId()));
+    }
+
+    @Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = {Connection.class, Integer.class}))
+    static class StatementCounter implements Interceptor {
+
+        private final AtomicInteger prepared = new AtomicInteger();
+
+        @Override
+        public Object intercept(Invocation invocation) throws Throwable {
+            prepared.incrementAndGet();
+            return invocation.proceed();
+        }
+
+        int count() {
+            return prepared.get();
+        }
+
+        void reset() {
+            prepared.set(0);
+        }
+    }
+}
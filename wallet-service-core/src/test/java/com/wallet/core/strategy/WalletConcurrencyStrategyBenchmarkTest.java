@@ -0,0 +1,58 @@
+package com.wallet.core.strategy;
+
+import com.wallet.common.enums.BalanceUpdateMode;
+import com.wallet.common.enums.WalletConcurrencyMode;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the wallet concurrency strategies at three contention levels: every sender
+ * paying the same merchant, senders spread over a handful of merchants, and every sender
+ * paying its own receiver. Results are logged per run; the assertions only check that
+ * money is conserved and that the locking strategies never abort a transfer.
+ */
+@Slf4j
+@Tag("integration")
+class WalletConcurrencyStrategyBenchmarkTest extends LedgerContentionTestSupport {
+
+    private static final int SENDERS = 16;
+    private static final int TRANSFERS_PER_SENDER = 25;
+
+    static Stream<Arguments> modesAndReceivers() {
+        return Arrays.stream(WalletConcurrencyMode.values())
+                .flatMap(mode -> Stream.of(1, 4, SENDERS).map(receivers -> Arguments.of(mode, receivers)));
+    }
+
+    @ParameterizedTest(name = "{0} with {1} receiver(s)")
+    @MethodSource("modesAndReceivers")
+    void transfersUnderContention(WalletConcurrencyMode mode, int receiverCount) throws Exception {
+        // Arrange
+        List<String> receivers = createWallets("R-", receiverCount, BigDecimal.ZERO);
+        List<String> senders = createWallets("S-", SENDERS, OPENING_BALANCE);
+
+        // Act
+        ContentionResult result = runTransfers(mode, BalanceUpdateMode.OPTIMISTIC, senders, receivers, TRANSFERS_PER_SENDER);
+
+        // Assert
+        log.info("{} with {} receiver(s): {}", mode, receiverCount, result.summary());
+
+        assertThat(result.committed() + result.conflicts()).isEqualTo(result.attempted());
+        assertThat(totalBalance(senders).add(totalBalance(receivers)))
+                .isEqualByComparingTo(OPENING_BALANCE.multiply(BigDecimal.valueOf(SENDERS)));
+
+        if (mode != WalletConcurrencyMode.OPTIMISTIC) {
+            // Writers wait for the lock, the version check can no longer fail
+            assertThat(result.conflicts()).isZero();
+        }
+    }
+}